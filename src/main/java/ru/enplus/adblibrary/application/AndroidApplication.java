@@ -1,13 +1,18 @@
 package ru.enplus.adblibrary.application;
 
 import lombok.Data;
+import ru.enplus.adblibrary.enums.EPermissionSet;
 import ru.enplus.adblibrary.permissions.ApplicationPermission;
+import ru.enplus.adblibrary.permissions.ApplicationPermissionSet;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents an Android application with details such as its path, package name, cryptographic hashes,
  * and various permissions associated with it.
+ * The permissions are kept compactly as bit sets over the ids of a permission dictionary; the list getters
+ * materialize them on every call.
  */
 @Data
 public class AndroidApplication {
@@ -17,10 +22,79 @@ public class AndroidApplication {
     private String sha1;
     private String sha256;
     private String sha512;
-    private ArrayList<ApplicationPermission> runtimePermissions = new ArrayList<>();
-    private ArrayList<ApplicationPermission> installPermissions = new ArrayList<>();
-    private ArrayList<ApplicationPermission> requestedPermissions = new ArrayList<>();
-    private ArrayList<ApplicationPermission> dangerousPermissions = new ArrayList<>();
+    private ApplicationPermissionSet permissions = new ApplicationPermissionSet();
+
+    /**
+     * Retrieves the runtime permissions of the application.
+     *
+     * @return a new list of the runtime permissions
+     */
+    public ArrayList<ApplicationPermission> getRuntimePermissions() {
+        return permissions.toList(EPermissionSet.RUNTIME);
+    }
+
+    /**
+     * Retrieves the install permissions of the application.
+     *
+     * @return a new list of the install permissions
+     */
+    public ArrayList<ApplicationPermission> getInstallPermissions() {
+        return permissions.toList(EPermissionSet.INSTALL);
+    }
+
+    /**
+     * Retrieves the requested permissions of the application.
+     *
+     * @return a new list of the requested permissions
+     */
+    public ArrayList<ApplicationPermission> getRequestedPermissions() {
+        return permissions.toList(EPermissionSet.REQUESTED);
+    }
+
+    /**
+     * Retrieves the dangerous permissions of the application, each listed once.
+     *
+     * @return a new list of the dangerous permissions
+     */
+    public ArrayList<ApplicationPermission> getDangerousPermissions() {
+        return permissions.toList(EPermissionSet.DANGEROUS);
+    }
+
+    /**
+     * Replaces the runtime permissions of the application.
+     *
+     * @param runtimePermissions the runtime permissions
+     */
+    public void setRuntimePermissions(List<ApplicationPermission> runtimePermissions) {
+        permissions.replace(EPermissionSet.RUNTIME, runtimePermissions);
+    }
+
+    /**
+     * Replaces the install permissions of the application.
+     *
+     * @param installPermissions the install permissions
+     */
+    public void setInstallPermissions(List<ApplicationPermission> installPermissions) {
+        permissions.replace(EPermissionSet.INSTALL, installPermissions);
+    }
+
+    /**
+     * Replaces the requested permissions of the application.
+     *
+     * @param requestedPermissions the requested permissions
+     */
+    public void setRequestedPermissions(List<ApplicationPermission> requestedPermissions) {
+        permissions.replace(EPermissionSet.REQUESTED, requestedPermissions);
+    }
+
+    /**
+     * Replaces the dangerous permissions of the application.
+     *
+     * @param dangerousPermissions the dangerous permissions
+     */
+    public void setDangerousPermissions(List<ApplicationPermission> dangerousPermissions) {
+        permissions.replace(EPermissionSet.DANGEROUS, dangerousPermissions);
+    }
 
     /**
      * Adds a runtime permission to the application.
@@ -28,7 +102,7 @@ public class AndroidApplication {
      * @param permission the runtime permission to add
      */
     public void addRuntimePermission(ApplicationPermission permission){
-        this.runtimePermissions.add(permission);
+        permissions.add(EPermissionSet.RUNTIME, permission.getPermissionName(), permission.isGranted());
     }
 
     /**
@@ -37,7 +111,7 @@ public class AndroidApplication {
      * @param permission the install permission to add
      */
     public void addInstallPermission(ApplicationPermission permission){
-        this.installPermissions.add(permission);
+        permissions.add(EPermissionSet.INSTALL, permission.getPermissionName(), permission.isGranted());
     }
 
     /**
@@ -46,7 +120,7 @@ public class AndroidApplication {
      * @param permission the requested permission to add
      */
     public void addRequestedPermission(ApplicationPermission permission){
-        this.requestedPermissions.add(permission);
+        permissions.add(EPermissionSet.REQUESTED, permission.getPermissionName(), permission.isGranted());
     }
 
     /**
@@ -55,6 +129,6 @@ public class AndroidApplication {
      * @param permission the dangerous permission to add
      */
     public void addDangerousPermission(ApplicationPermission permission){
-        this.dangerousPermissions.add(permission);
+        permissions.add(EPermissionSet.DANGEROUS, permission.getPermissionName(), permission.isGranted());
     }
 }
@@ -0,0 +1,56 @@
+package ru.enplus.adblibrary.application;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A captured inventory of a device: its package list together with the collected properties of the applications,
+ * the baseline the next incremental inventory is diffed against.
+ */
+@Getter
+public class ApplicationInventory {
+
+    /**
+     * The build fingerprint of the device at capture time, or its serial if the fingerprint is unknown.
+     */
+    private final String deviceKey;
+    private final Instant captureTime;
+
+    /**
+     * The listed packages by package name, in list order.
+     */
+    private final Map<String, InstalledPackage> packages;
+
+    /**
+     * The applications with their collected properties by package name.
+     */
+    private final Map<String, AndroidApplication> applications;
+
+    /**
+     * Constructs an inventory.
+     *
+     * @param deviceKey    the build fingerprint of the device, or its serial if the fingerprint is unknown
+     * @param captureTime  the time the package list was captured
+     * @param packages     the listed packages
+     * @param applications the applications with their collected properties
+     */
+    public ApplicationInventory(String deviceKey, Instant captureTime, Collection<InstalledPackage> packages, Collection<AndroidApplication> applications) {
+        this.deviceKey = deviceKey;
+        this.captureTime = captureTime;
+        Map<String, InstalledPackage> packagesByName = new LinkedHashMap<>();
+        for (InstalledPackage installedPackage : packages) {
+            packagesByName.put(installedPackage.getPackageName(), installedPackage);
+        }
+        Map<String, AndroidApplication> applicationsByName = new LinkedHashMap<>();
+        for (AndroidApplication application : applications) {
+            applicationsByName.put(application.getPackageName(), application);
+        }
+        this.packages = Collections.unmodifiableMap(packagesByName);
+        this.applications = Collections.unmodifiableMap(applicationsByName);
+    }
+}
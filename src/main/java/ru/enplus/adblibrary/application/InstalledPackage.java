@@ -0,0 +1,36 @@
+package ru.enplus.adblibrary.application;
+
+import lombok.Data;
+
+/**
+ * Represents a row of the package list of a device: the package name, the path of its APK file,
+ * its version code and the uid it runs under.
+ */
+@Data
+public class InstalledPackage {
+
+    /**
+     * Marks a version code or uid the package list did not contain.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final String packageName;
+    private final String path;
+    private final long versionCode;
+    private final int uid;
+
+    /**
+     * Checks if the package is still the same installation as a previously listed one: an update changes the
+     * version code and, on devices that do not list version codes, the path of the APK file.
+     * Version codes are only compared if both listings contain them.
+     *
+     * @param previous the previously listed package
+     * @return true if neither the path nor the version code changed, false otherwise
+     */
+    public boolean isSameInstallation(InstalledPackage previous) {
+        if (!path.equals(previous.path)) {
+            return false;
+        }
+        return versionCode == UNKNOWN || previous.versionCode == UNKNOWN || versionCode == previous.versionCode;
+    }
+}
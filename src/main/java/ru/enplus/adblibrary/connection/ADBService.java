@@ -1,11 +1,20 @@
 package ru.enplus.adblibrary.connection;
 
 import lombok.Getter;
+import lombok.Setter;
 import ru.enplus.adblibrary.exceptions.ADBIncorrectPathException;
 import ru.enplus.adblibrary.exceptions.ADBNotFoundException;
+import ru.enplus.adblibrary.transport.CommandTransport;
+import ru.enplus.adblibrary.transport.ProcessCommandTransport;
+import ru.enplus.adblibrary.transport.ShellSessionCommandTransport;
+import ru.enplus.adblibrary.transport.SocketCommandTransport;
+import ru.enplus.adblibrary.util.AsyncDeviceExecutor;
+import ru.enplus.adblibrary.util.HashCache;
+import ru.enplus.adblibrary.util.InventoryStore;
 import ru.enplus.adblibrary.util.ProcessOutputHandler;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.logging.Logger;
 
@@ -15,9 +24,41 @@ import java.util.logging.Logger;
 @Getter
 public class ADBService {
 
+    private static final Duration DEVICE_TRACKING_TIMEOUT = Duration.ofSeconds(5);
+
     private final String adbPath;
     private final Logger adbServiceLogger = Logger.getLogger("ADBServiceLogger");
     private final ProcessOutputHandler processOutputHandler;
+    private final ADBSocketClient socketClient;
+
+    /**
+     * The transport every command of this service and its providers goes through.
+     */
+    @Setter
+    private volatile CommandTransport commandTransport;
+
+    /**
+     * The live device registry, if device tracking was started.
+     */
+    private volatile DeviceTracker deviceTracker;
+
+    /**
+     * The executor behind the asynchronous device and provider methods.
+     */
+    @Setter
+    private volatile AsyncDeviceExecutor asyncExecutor = new AsyncDeviceExecutor();
+
+    /**
+     * The persistent cache of APK hashes, or null to hash every APK on every collection.
+     */
+    @Setter
+    private volatile HashCache hashCache;
+
+    /**
+     * The persistent store of the application inventories of devices, or null to keep them in memory only.
+     */
+    @Setter
+    private volatile InventoryStore inventoryStore;
 
     /**
      * Constructs an ADBService instance using the default ADB installation in the system PATH.
@@ -32,6 +73,8 @@ public class ADBService {
         adbServiceLogger.info("ADB is installed on this machine");
         this.adbPath = "adb";
         this.processOutputHandler = new ProcessOutputHandler();
+        this.socketClient = null;
+        this.commandTransport = new ProcessCommandTransport(adbPath, processOutputHandler);
     }
 
     /**
@@ -47,6 +90,39 @@ public class ADBService {
         adbServiceLogger.fine("ADB the user provided is valid");
         this.adbPath = adbPath;
         this.processOutputHandler = new ProcessOutputHandler();
+        this.socketClient = null;
+        this.commandTransport = new ProcessCommandTransport(adbPath, processOutputHandler);
+    }
+
+    /**
+     * Constructs an ADBService instance talking to the ADB server directly over its host protocol.
+     * Shell commands are sent through the socket instead of spawning an adb process per command.
+     *
+     * @param socketClient the client of the ADB server
+     * @throws ADBNotFoundException if the ADB server is not reachable
+     */
+    public ADBService(ADBSocketClient socketClient) throws ADBNotFoundException {
+        if (!socketClient.isServerAvailable()) {
+            throw new ADBNotFoundException("ADB server is not reachable on " + socketClient.getHost() + ":" + socketClient.getPort() + "! Start it with 'adb start-server'!");
+        }
+        adbServiceLogger.info("Using ADB server on " + socketClient.getHost() + ":" + socketClient.getPort());
+        this.adbPath = "adb";
+        this.processOutputHandler = new ProcessOutputHandler();
+        this.socketClient = socketClient;
+        this.commandTransport = new SocketCommandTransport(socketClient);
+    }
+
+    /**
+     * Constructs an ADBService instance sending all commands through the specified transport,
+     * e.g. a {@link ru.enplus.adblibrary.transport.ScriptedCommandTransport} to run without devices.
+     *
+     * @param commandTransport the transport to use
+     */
+    public ADBService(CommandTransport commandTransport) {
+        this.adbPath = "adb";
+        this.processOutputHandler = new ProcessOutputHandler();
+        this.socketClient = commandTransport instanceof SocketCommandTransport socketTransport ? socketTransport.getSocketClient() : null;
+        this.commandTransport = commandTransport;
     }
 
     /**
@@ -81,31 +157,142 @@ public class ADBService {
         }
     }
 
+    /**
+     * Starts tracking the device list of the ADB server over a {@code host:track-devices-l} stream.
+     * Afterwards device availability is answered from the live registry instead of listing devices per call.
+     * The ADB server of the socket client is used, or the default one on 127.0.0.1:5037.
+     *
+     * @return the started device tracker
+     * @throws IOException if the ADB server did not deliver the device list
+     */
+    public DeviceTracker startDeviceTracking() throws IOException {
+        synchronized (this) {
+            if (deviceTracker == null || deviceTracker.isClosed()) {
+                DeviceTracker tracker = new DeviceTracker(socketClient != null ? socketClient : new ADBSocketClient());
+                tracker.start(DEVICE_TRACKING_TIMEOUT);
+                deviceTracker = tracker;
+            }
+            return deviceTracker;
+        }
+    }
+
+    /**
+     * Stops tracking the device list; device availability is listed per call again.
+     */
+    public void stopDeviceTracking() {
+        synchronized (this) {
+            if (deviceTracker != null) {
+                deviceTracker.close();
+                deviceTracker = null;
+            }
+        }
+    }
+
+    /**
+     * Checks if a device is connected and accepts commands. With device tracking started this is a registry lookup.
+     *
+     * @param deviceId the ID of the device
+     * @return true if the device is available, false otherwise
+     */
+    public boolean isDeviceAvailable(String deviceId) {
+        DeviceTracker tracker = deviceTracker;
+        if (tracker != null && !tracker.isClosed()) {
+            return tracker.isOnline(deviceId);
+        }
+        return getAvailableDevices().contains(deviceId);
+    }
+
     /**
      * Retrieves a list of available devices connected to the ADB server.
      *
      * @return a list of available device IDs
      */
     public ArrayList<String> getAvailableDevices() {
-        try {
-            String command = adbPath + " devices";
-            Process process = Runtime.getRuntime().exec(command);
-            ArrayList<String> processOutput = processOutputHandler.getProcessOutput(process);
-            ArrayList<String> result = new ArrayList<>();
-            for (var i : processOutput) {
-                if (!i.startsWith("*") && !i.startsWith("List") && !(i.replaceAll("\\s+", "").isEmpty())) {
-                    String processedResult = i;
-                    processedResult = processedResult.replace("device", "").strip();
-                    result.add(processedResult);
+        ArrayList<String> result = new ArrayList<>();
+        DeviceTracker tracker = deviceTracker;
+        if (tracker != null && !tracker.isClosed()) {
+            for (var device : tracker.getDevices()) {
+                if (device.isOnline()) {
+                    result.add(device.getSerial());
                 }
             }
-            if (result.isEmpty()) {
-                adbServiceLogger.warning("No available devices found!");
-            }
             return result;
+        }
+        try {
+            for (var row : commandTransport.listDevices()) {
+                if (row.startsWith("*") || row.startsWith("List") || row.isBlank()) {
+                    continue;
+                }
+                DeviceDescriptor device = DeviceDescriptor.parse(row);
+                if (device != null && device.isOnline()) {
+                    result.add(device.getSerial());
+                }
+            }
         } catch (IOException e) {
+            adbServiceLogger.warning("Unable to list devices: " + e.getMessage());
+        }
+        if (result.isEmpty()) {
             adbServiceLogger.warning("No available devices found!");
-            return new ArrayList<>();
+        }
+        return result;
+    }
+
+    /**
+     * Executes a shell command on the specified device through the command transport and collects its output.
+     *
+     * @param deviceId the ID of the device
+     * @param command  the shell command to execute
+     * @return an ArrayList of strings containing each line of the command output
+     * @throws IOException if the command could not be executed
+     */
+    public ArrayList<String> executeShellCommand(String deviceId, String command) throws IOException {
+        return commandTransport.executeShell(deviceId, command).getOutput();
+    }
+
+    /**
+     * Opens a sync protocol session for file transfers with the device.
+     * The caller owns the session and has to close it.
+     *
+     * @param deviceId the ID of the device
+     * @return the opened sync session
+     * @throws IOException if the device is not reachable
+     */
+    public ADBSyncSession openSyncSession(String deviceId) throws IOException {
+        return ADBSyncSession.open(socketClient != null ? socketClient : new ADBSocketClient(), deviceId);
+    }
+
+    /**
+     * Switches between running shell commands in one persistent shell session per device
+     * and the plain command transport.
+     *
+     * @param persistentShellEnabled true to use persistent shell sessions, false to go back to the plain transport
+     */
+    public void setPersistentShellEnabled(boolean persistentShellEnabled) {
+        synchronized (this) {
+            if (persistentShellEnabled && !isPersistentShellEnabled()) {
+                commandTransport = new ShellSessionCommandTransport(commandTransport);
+            } else if (!persistentShellEnabled && commandTransport instanceof ShellSessionCommandTransport sessionTransport) {
+                sessionTransport.closeShellSessions();
+                commandTransport = sessionTransport.getDelegate();
+            }
+        }
+    }
+
+    /**
+     * Checks if shell commands run in persistent shell sessions.
+     *
+     * @return true if persistent shell sessions are used, false otherwise
+     */
+    public boolean isPersistentShellEnabled() {
+        return commandTransport instanceof ShellSessionCommandTransport;
+    }
+
+    /**
+     * Closes all persistent shell sessions opened by this service.
+     */
+    public void closeShellSessions() {
+        if (commandTransport instanceof ShellSessionCommandTransport sessionTransport) {
+            sessionTransport.closeShellSessions();
         }
     }
 
@@ -0,0 +1,347 @@
+package ru.enplus.adblibrary.connection;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.util.ByteLineConsumer;
+import ru.enplus.adblibrary.util.ByteLineTokenizer;
+import ru.enplus.adblibrary.util.CommandWatchdog;
+import ru.enplus.adblibrary.util.LineConsumer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+
+/**
+ * Client for the ADB server host protocol (the one the adb binary itself speaks on tcp:5037).
+ * Every request is sent over a fresh socket, so commands run without spawning an adb process.
+ */
+@Getter
+public class ADBSocketClient {
+
+    /**
+     * Default host of the ADB server.
+     */
+    public static final String DEFAULT_HOST = "127.0.0.1";
+
+    /**
+     * Default port of the ADB server.
+     */
+    public static final int DEFAULT_PORT = 5037;
+
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    private final String host;
+    private final int port;
+
+    /**
+     * Constructs an ADBSocketClient connecting to the ADB server on 127.0.0.1:5037.
+     */
+    public ADBSocketClient() {
+        this(DEFAULT_HOST, DEFAULT_PORT);
+    }
+
+    /**
+     * Constructs an ADBSocketClient connecting to the ADB server on the specified host and port.
+     *
+     * @param host the host of the ADB server
+     * @param port the port of the ADB server
+     */
+    public ADBSocketClient(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Checks if the ADB server is reachable by querying its version.
+     *
+     * @return true if the server answered, false otherwise
+     */
+    public boolean isServerAvailable() {
+        try (SocketChannel channel = connect()) {
+            sendRequest(channel, "host:version");
+            readLengthPrefixedString(channel);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Retrieves the long device list of the ADB server ({@code host:devices-l}).
+     *
+     * @return a list of rows in the format "serial state key:value..."
+     * @throws IOException if the server is not reachable or rejected the request
+     */
+    public ArrayList<String> getDevicesLong() throws IOException {
+        try (SocketChannel channel = connect()) {
+            sendRequest(channel, "host:devices-l");
+            return splitRows(readLengthPrefixedString(channel));
+        }
+    }
+
+    /**
+     * Executes a shell command on the device ({@code shell:}) and collects its output.
+     *
+     * @param serial  the serial of the device
+     * @param command the shell command to execute
+     * @return an ArrayList of strings containing each line of the command output
+     * @throws IOException if the device is not reachable or the request was rejected
+     */
+    public ArrayList<String> executeShell(String serial, String command) throws IOException {
+        return executeShell(serial, command, Duration.ZERO);
+    }
+
+    /**
+     * Executes a shell command on the device ({@code shell:}) and collects its output,
+     * closing the connection if the command outlives the deadline.
+     *
+     * @param serial  the serial of the device
+     * @param command the shell command to execute
+     * @param timeout the time the command is allowed to run; zero disables the deadline
+     * @return an ArrayList of strings containing each line of the command output
+     * @throws InterruptedIOException if the command timed out
+     * @throws IOException            if the device is not reachable or the request was rejected
+     */
+    public ArrayList<String> executeShell(String serial, String command, Duration timeout) throws IOException {
+        SocketChannel channel = openService(serial, "shell:" + command);
+        CommandWatchdog.Deadline deadline = CommandWatchdog.schedule(timeout, () -> closeQuietly(channel));
+        try {
+            ArrayList<String> rows = readRows(channel);
+            if (!deadline.finish()) {
+                throw new InterruptedIOException("Command " + command + " on " + serial + " timed out after " + timeout.toMillis() + " ms");
+            }
+            return rows;
+        } catch (IOException e) {
+            if (!deadline.finish()) {
+                throw new InterruptedIOException("Command " + command + " on " + serial + " timed out after " + timeout.toMillis() + " ms");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a shell command on the device ({@code shell:}) and feeds its output to the consumer line by line.
+     * If the consumer stops early, the connection is closed, which terminates the command.
+     *
+     * @param serial   the serial of the device
+     * @param command  the shell command to execute
+     * @param consumer the callback receiving each line; returning false stops the command
+     * @param timeout  the time the command is allowed to run; zero disables the deadline
+     * @return true if the whole output was consumed, false if the consumer stopped early
+     * @throws InterruptedIOException if the command timed out
+     * @throws IOException            if the device is not reachable or the request was rejected
+     */
+    public boolean streamShell(String serial, String command, LineConsumer consumer, Duration timeout) throws IOException {
+        return streamShellBytes(serial, command, line -> consumer.accept(line.toString()), timeout);
+    }
+
+    /**
+     * Executes a shell command on the device ({@code shell:}) and feeds its output to the consumer line by line
+     * as undecoded bytes, read through a single reused buffer.
+     * If the consumer stops early, the connection is closed, which terminates the command.
+     *
+     * @param serial   the serial of the device
+     * @param command  the shell command to execute
+     * @param consumer the callback receiving each line; returning false stops the command
+     * @param timeout  the time the command is allowed to run; zero disables the deadline
+     * @return true if the whole output was consumed, false if the consumer stopped early
+     * @throws InterruptedIOException if the command timed out
+     * @throws IOException            if the device is not reachable or the request was rejected
+     */
+    public boolean streamShellBytes(String serial, String command, ByteLineConsumer consumer, Duration timeout) throws IOException {
+        SocketChannel channel = openService(serial, "shell:" + command);
+        CommandWatchdog.Deadline deadline = CommandWatchdog.schedule(timeout, () -> closeQuietly(channel));
+        try (channel) {
+            ByteLineTokenizer tokenizer = new ByteLineTokenizer(consumer);
+            ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                if (!tokenizer.feed(buffer)) {
+                    return false;
+                }
+                buffer.clear();
+            }
+            if (!tokenizer.finish()) {
+                return false;
+            }
+            if (!deadline.finish()) {
+                throw new InterruptedIOException("Command " + command + " on " + serial + " timed out after " + timeout.toMillis() + " ms");
+            }
+            return true;
+        } catch (IOException e) {
+            if (deadline.isExpired()) {
+                throw new InterruptedIOException("Command " + command + " on " + serial + " timed out after " + timeout.toMillis() + " ms");
+            }
+            throw e;
+        } finally {
+            deadline.finish();
+        }
+    }
+
+    /**
+     * Executes a command on the device without a shell output translation ({@code exec:}) and collects its output.
+     *
+     * @param serial  the serial of the device
+     * @param command the command to execute
+     * @return an ArrayList of strings containing each line of the command output
+     * @throws IOException if the device is not reachable or the request was rejected
+     */
+    public ArrayList<String> executeExec(String serial, String command) throws IOException {
+        return readRows(openService(serial, "exec:" + command));
+    }
+
+    /**
+     * Switches a fresh connection to the device transport and opens the specified device service on it.
+     * The caller owns the returned channel and has to close it.
+     *
+     * @param serial  the serial of the device
+     * @param service the device service to open (e.g. "shell:ls", "exec:cat /proc/uptime", "sync:")
+     * @return the connected channel positioned at the start of the service stream
+     * @throws IOException if the device is not reachable or the request was rejected
+     */
+    public SocketChannel openService(String serial, String service) throws IOException {
+        SocketChannel channel = connect();
+        try {
+            sendRequest(channel, "host:transport:" + serial);
+            sendRequest(channel, service);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a blocking connection to the ADB server.
+     *
+     * @return the connected channel
+     * @throws IOException if the server is not reachable
+     */
+    public SocketChannel connect() throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        return channel;
+    }
+
+    /**
+     * Sends a host protocol request (4 hex digits of length followed by the payload) and checks the status.
+     *
+     * @param channel the connected channel
+     * @param request the request payload
+     * @throws IOException if the server answered FAIL or the connection was lost
+     */
+    public static void sendRequest(SocketChannel channel, String request) throws IOException {
+        byte[] payload = request.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + payload.length);
+        buffer.put(String.format("%04x", payload.length).getBytes(StandardCharsets.US_ASCII));
+        buffer.put(payload);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        readStatus(channel, request);
+    }
+
+    /**
+     * Reads the OKAY/FAIL status of a host protocol request.
+     *
+     * @param channel the connected channel
+     * @param request the request the status belongs to, used in the error message
+     * @throws IOException if the server answered FAIL or the connection was lost
+     */
+    private static void readStatus(SocketChannel channel, String request) throws IOException {
+        String status = new String(readFully(channel, 4), StandardCharsets.US_ASCII);
+        if ("OKAY".equals(status)) {
+            return;
+        }
+        if ("FAIL".equals(status)) {
+            throw new IOException("ADB server rejected request " + request + ": " + readLengthPrefixedString(channel));
+        }
+        throw new IOException("Unexpected ADB server status " + status + " for request " + request);
+    }
+
+    /**
+     * Reads a string prefixed with 4 hex digits of length.
+     *
+     * @param channel the connected channel
+     * @return the decoded string
+     * @throws IOException if the connection was lost
+     */
+    public static String readLengthPrefixedString(SocketChannel channel) throws IOException {
+        String lengthHex = new String(readFully(channel, 4), StandardCharsets.US_ASCII);
+        int length;
+        try {
+            length = Integer.parseInt(lengthHex, 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed ADB server length prefix: " + lengthHex);
+        }
+        return new String(readFully(channel, length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads exactly the specified amount of bytes from the channel.
+     *
+     * @param channel the connected channel
+     * @param length  the amount of bytes to read
+     * @return the read bytes
+     * @throws IOException if the connection was closed before all bytes were read
+     */
+    public static byte[] readFully(SocketChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("ADB connection closed unexpectedly");
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reads all lines of the service stream until the device closes it, and closes the channel.
+     *
+     * @param channel the channel of an opened service
+     * @return an ArrayList of strings containing each line of the stream
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private ArrayList<String> readRows(SocketChannel channel) throws IOException {
+        ArrayList<String> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rows.add(line);
+            }
+        }
+        return rows;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // the channel is being discarded anyway
+        }
+    }
+
+    /**
+     * Splits a server payload into its non-empty rows.
+     *
+     * @param payload the payload to split
+     * @return an ArrayList of non-empty rows
+     */
+    private ArrayList<String> splitRows(String payload) {
+        ArrayList<String> rows = new ArrayList<>();
+        for (String row : payload.split("\n")) {
+            if (!row.isBlank()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
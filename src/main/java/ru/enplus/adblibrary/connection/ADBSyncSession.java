@@ -0,0 +1,334 @@
+package ru.enplus.adblibrary.connection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * File transfer engine speaking the ADB sync protocol (STAT, LIST, RECV, SEND) over a {@code sync:} stream.
+ * File data is moved between the socket and the target channel directly, without intermediate copies on the heap.
+ * A session serves one request at a time and may be reused for many requests.
+ */
+public class ADBSyncSession implements Closeable {
+
+    /**
+     * Maximum payload of a single DATA packet accepted by adbd.
+     */
+    public static final int MAX_DATA_CHUNK = 64 * 1024;
+
+    private static final int DEFAULT_FILE_MODE = 0644;
+
+    private final SocketChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocateDirect(8).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer statBody = ByteBuffer.allocateDirect(16).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer dataBuffer = ByteBuffer.allocateDirect(MAX_DATA_CHUNK);
+
+    /**
+     * Constructs an ADBSyncSession over a channel where the {@code sync:} service is already opened.
+     *
+     * @param channel the channel of the sync service
+     */
+    public ADBSyncSession(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a sync session on the specified device.
+     *
+     * @param socketClient the client of the ADB server
+     * @param serial       the serial of the device
+     * @return the opened session
+     * @throws IOException if the device is not reachable or the request was rejected
+     */
+    public static ADBSyncSession open(ADBSocketClient socketClient, String serial) throws IOException {
+        return new ADBSyncSession(socketClient.openService(serial, "sync:"));
+    }
+
+    /**
+     * Retrieves the mode, size and modification time of a remote path.
+     *
+     * @param remotePath the path on the device
+     * @return the entry of the path; {@link SyncFileEntry#exists()} is false if the path does not exist
+     * @throws IOException if the connection was lost
+     */
+    public SyncFileEntry stat(String remotePath) throws IOException {
+        sendRequest("STAT", remotePath);
+        expectId(readHeader(), "STAT");
+        readStatBody(8);
+        return new SyncFileEntry(remotePath, header.getInt(4), Integer.toUnsignedLong(statBody.getInt(0)), Integer.toUnsignedLong(statBody.getInt(4)));
+    }
+
+    /**
+     * Lists the entries of a remote directory.
+     *
+     * @param remotePath the directory on the device
+     * @return the entries of the directory, including "." and ".." if the device reports them
+     * @throws IOException if the connection was lost
+     */
+    public ArrayList<SyncFileEntry> list(String remotePath) throws IOException {
+        sendRequest("LIST", remotePath);
+        ArrayList<SyncFileEntry> entries = new ArrayList<>();
+        while (true) {
+            String id = readHeader();
+            readStatBody(12);
+            if (id.equals("DONE")) {
+                return entries;
+            }
+            expectId(id, "DENT");
+            int nameLength = statBody.getInt(8);
+            String name = new String(readBytes(nameLength), StandardCharsets.UTF_8);
+            entries.add(new SyncFileEntry(name, header.getInt(4), Integer.toUnsignedLong(statBody.getInt(0)), Integer.toUnsignedLong(statBody.getInt(4))));
+        }
+    }
+
+    /**
+     * Streams a remote file into the specified channel.
+     *
+     * @param remotePath the file on the device
+     * @param target     the channel receiving the file data
+     * @return the amount of bytes transferred
+     * @throws IOException if the file does not exist or the connection was lost
+     */
+    public long pull(String remotePath, WritableByteChannel target) throws IOException {
+        sendRequest("RECV", remotePath);
+        long transferred = 0;
+        while (true) {
+            String id = readHeader();
+            int length = header.getInt(4);
+            if (id.equals("DONE")) {
+                return transferred;
+            }
+            if (id.equals("FAIL")) {
+                throw new IOException("Unable to pull " + remotePath + ": " + new String(readBytes(length), StandardCharsets.UTF_8));
+            }
+            expectId(id, "DATA");
+            if (target instanceof FileChannel fileChannel) {
+                transferToFile(fileChannel, length);
+            } else {
+                transferToChannel(target, length);
+            }
+            transferred += length;
+        }
+    }
+
+    /**
+     * Pulls a remote file into a local file, replacing it if it exists.
+     *
+     * @param remotePath the file on the device
+     * @param localPath  the local file
+     * @return the amount of bytes transferred
+     * @throws IOException if the file does not exist, the local file can not be written or the connection was lost
+     */
+    public long pull(String remotePath, Path localPath) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(localPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return pull(remotePath, fileChannel);
+        }
+    }
+
+    /**
+     * Streams the data of the channel into a remote file.
+     *
+     * @param source           the channel providing the file data
+     * @param remotePath       the file on the device
+     * @param mode             the unix permission bits of the remote file
+     * @param modificationTime the modification time of the remote file in seconds since the epoch
+     * @return the amount of bytes transferred
+     * @throws IOException if the device rejected the file or the connection was lost
+     */
+    public long push(ReadableByteChannel source, String remotePath, int mode, long modificationTime) throws IOException {
+        sendRequest("SEND", remotePath + "," + mode);
+        long start = source instanceof FileChannel fileChannel ? fileChannel.position() : 0;
+        long transferred = 0;
+        while (true) {
+            long sent = source instanceof FileChannel fileChannel
+                    ? sendFileChunk(fileChannel, start + transferred)
+                    : sendChannelChunk(source);
+            if (sent < 0) {
+                break;
+            }
+            transferred += sent;
+        }
+        writeHeader("DONE", (int) modificationTime);
+        String id = readHeader();
+        int length = header.getInt(4);
+        if (id.equals("FAIL")) {
+            throw new IOException("Unable to push " + remotePath + ": " + new String(readBytes(length), StandardCharsets.UTF_8));
+        }
+        expectId(id, "OKAY");
+        return transferred;
+    }
+
+    /**
+     * Pushes a local file to the device with mode 0644.
+     *
+     * @param localPath  the local file
+     * @param remotePath the file on the device
+     * @return the amount of bytes transferred
+     * @throws IOException if the local file can not be read, the device rejected the file or the connection was lost
+     */
+    public long push(Path localPath, String remotePath) throws IOException {
+        long modificationTime = Files.getLastModifiedTime(localPath).toMillis() / 1000;
+        try (FileChannel fileChannel = FileChannel.open(localPath, StandardOpenOption.READ)) {
+            return push(fileChannel, remotePath, DEFAULT_FILE_MODE, modificationTime);
+        }
+    }
+
+    /**
+     * Ends the sync session and closes the connection.
+     *
+     * @throws IOException if the connection could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (channel.isOpen()) {
+                writeHeader("QUIT", 0);
+            }
+        } catch (IOException ignored) {
+            // the device may already have dropped the connection
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Moves a DATA payload from the socket into a file channel at its current position.
+     */
+    private void transferToFile(FileChannel fileChannel, int length) throws IOException {
+        long position = fileChannel.position();
+        long remaining = length;
+        while (remaining > 0) {
+            long moved = fileChannel.transferFrom(channel, position, remaining);
+            if (moved <= 0) {
+                fileChannel.position(position);
+                transferToChannel(fileChannel, (int) remaining);
+                return;
+            }
+            position += moved;
+            remaining -= moved;
+        }
+        fileChannel.position(position);
+    }
+
+    /**
+     * Moves a DATA payload from the socket into an arbitrary channel through the reusable direct buffer.
+     */
+    private void transferToChannel(WritableByteChannel target, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            dataBuffer.clear().limit(Math.min(remaining, dataBuffer.capacity()));
+            readFully(dataBuffer);
+            dataBuffer.flip();
+            remaining -= dataBuffer.remaining();
+            while (dataBuffer.hasRemaining()) {
+                target.write(dataBuffer);
+            }
+        }
+    }
+
+    /**
+     * Sends the next DATA packet of a file channel using transferTo.
+     *
+     * @return the amount of bytes sent, or -1 at the end of the file
+     */
+    private long sendFileChunk(FileChannel source, long offset) throws IOException {
+        long length = Math.min(MAX_DATA_CHUNK, source.size() - offset);
+        if (length <= 0) {
+            return -1;
+        }
+        writeHeader("DATA", (int) length);
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            position += source.transferTo(position, end - position, channel);
+        }
+        return length;
+    }
+
+    /**
+     * Sends the next DATA packet of an arbitrary channel through the reusable direct buffer.
+     *
+     * @return the amount of bytes sent, or -1 at the end of the stream
+     */
+    private long sendChannelChunk(ReadableByteChannel source) throws IOException {
+        dataBuffer.clear();
+        while (dataBuffer.hasRemaining()) {
+            if (source.read(dataBuffer) < 0) {
+                break;
+            }
+        }
+        dataBuffer.flip();
+        if (!dataBuffer.hasRemaining()) {
+            return -1;
+        }
+        int length = dataBuffer.remaining();
+        writeHeader("DATA", length);
+        while (dataBuffer.hasRemaining()) {
+            channel.write(dataBuffer);
+        }
+        return length;
+    }
+
+    private void sendRequest(String id, String path) throws IOException {
+        byte[] payload = path.getBytes(StandardCharsets.UTF_8);
+        writeHeader(id, payload.length);
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void writeHeader(String id, int value) throws IOException {
+        header.clear();
+        header.put(id.getBytes(StandardCharsets.US_ASCII)).putInt(value).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    /**
+     * Reads the 8-byte packet header; the id is returned and the value stays at index 4 of the header buffer.
+     */
+    private String readHeader() throws IOException {
+        header.clear();
+        readFully(header);
+        byte[] id = new byte[4];
+        header.get(0, id);
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    private void readStatBody(int length) throws IOException {
+        statBody.clear().limit(length);
+        readFully(statBody);
+    }
+
+    private byte[] readBytes(int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(buffer);
+        return buffer.array();
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("ADB sync connection closed unexpectedly");
+            }
+        }
+    }
+
+    private void expectId(String actual, String expected) throws IOException {
+        if (!actual.equals(expected)) {
+            throw new IOException("Unexpected ADB sync packet " + actual + ", expected " + expected);
+        }
+    }
+}
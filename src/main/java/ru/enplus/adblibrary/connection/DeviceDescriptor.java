@@ -0,0 +1,67 @@
+package ru.enplus.adblibrary.connection;
+
+import lombok.Data;
+
+/**
+ * Device entry of the ADB server device list, as reported by {@code host:devices-l} and {@code host:track-devices-l}.
+ */
+@Data
+public class DeviceDescriptor {
+
+    /**
+     * The state of a device that accepts commands.
+     */
+    public static final String ONLINE_STATE = "device";
+
+    private final String serial;
+    private final String state;
+    private final String product;
+    private final String model;
+    private final String device;
+    private final String transportId;
+
+    /**
+     * Parses a device list row in the format "serial state key:value...".
+     *
+     * @param row the device list row
+     * @return the parsed descriptor, or null if the row does not describe a device
+     */
+    public static DeviceDescriptor parse(String row) {
+        if (row.isBlank() || row.startsWith("*") || row.startsWith("List")) {
+            return null;
+        }
+        String[] columns = row.strip().split("\\s+");
+        if (columns.length < 2) {
+            return null;
+        }
+        String product = "";
+        String model = "";
+        String device = "";
+        String transportId = "";
+        for (int i = 2; i < columns.length; i++) {
+            int separator = columns[i].indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+            String value = columns[i].substring(separator + 1);
+            switch (columns[i].substring(0, separator)) {
+                case "product" -> product = value;
+                case "model" -> model = value;
+                case "device" -> device = value;
+                case "transport_id" -> transportId = value;
+                default -> {
+                }
+            }
+        }
+        return new DeviceDescriptor(columns[0], columns[1], product, model, device, transportId);
+    }
+
+    /**
+     * Checks if the device accepts commands.
+     *
+     * @return true if the device is in the "device" state, false otherwise
+     */
+    public boolean isOnline() {
+        return ONLINE_STATE.equals(state);
+    }
+}
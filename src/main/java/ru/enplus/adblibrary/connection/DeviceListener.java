@@ -0,0 +1,33 @@
+package ru.enplus.adblibrary.connection;
+
+/**
+ * Subscriber of the device events published by a {@link DeviceTracker}.
+ * Events are delivered on the tracker thread, so listeners should return quickly.
+ */
+public interface DeviceListener {
+
+    /**
+     * Called when a device appears in the device list of the ADB server.
+     *
+     * @param device the connected device
+     */
+    default void deviceConnected(DeviceDescriptor device) {
+    }
+
+    /**
+     * Called when a device disappears from the device list of the ADB server.
+     *
+     * @param device the last known state of the disconnected device
+     */
+    default void deviceDisconnected(DeviceDescriptor device) {
+    }
+
+    /**
+     * Called when a listed device changes its state (e.g. "offline" to "device") or transport.
+     *
+     * @param previous the previous state of the device
+     * @param current  the current state of the device
+     */
+    default void deviceChanged(DeviceDescriptor previous, DeviceDescriptor current) {
+    }
+}
@@ -0,0 +1,226 @@
+package ru.enplus.adblibrary.connection;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Live registry of the devices of the ADB server, kept up to date by a {@code host:track-devices-l} stream.
+ * The server pushes the whole device list on every change; the tracker diffs it against the registry
+ * and publishes connect, disconnect and state change events to its listeners.
+ * If the stream breaks, every device is reported as disconnected and the tracker reconnects.
+ */
+public class DeviceTracker implements Closeable {
+
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(1);
+
+    @Getter
+    private final ADBSocketClient socketClient;
+    private final Map<String, DeviceDescriptor> devices = new ConcurrentHashMap<>();
+    private final List<DeviceListener> listeners = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstUpdate = new CountDownLatch(1);
+    private final Logger trackerLogger = Logger.getLogger("DeviceTrackerLogger");
+
+    private volatile boolean closed;
+    private volatile SocketChannel channel;
+    private Thread trackerThread;
+
+    /**
+     * Constructs a DeviceTracker following the device list of the specified ADB server.
+     *
+     * @param socketClient the client of the ADB server
+     */
+    public DeviceTracker(ADBSocketClient socketClient) {
+        this.socketClient = socketClient;
+    }
+
+    /**
+     * Starts tracking and waits until the first device list arrived, so that the registry is complete.
+     *
+     * @param timeout the time to wait for the first device list
+     * @throws IOException if the ADB server did not deliver a device list in time
+     */
+    public void start(Duration timeout) throws IOException {
+        synchronized (this) {
+            if (trackerThread != null) {
+                return;
+            }
+            trackerThread = new Thread(this::track, "adb-device-tracker");
+            trackerThread.setDaemon(true);
+            trackerThread.start();
+        }
+        try {
+            if (!firstUpdate.await(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                close();
+                throw new IOException("ADB server on " + socketClient.getHost() + ":" + socketClient.getPort() + " did not deliver the device list");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IOException("Interrupted while waiting for the device list");
+        }
+    }
+
+    /**
+     * Retrieves the registry entry of a device.
+     *
+     * @param serial the serial of the device
+     * @return the descriptor of the device, or null if the ADB server does not list it
+     */
+    public DeviceDescriptor getDevice(String serial) {
+        return devices.get(serial);
+    }
+
+    /**
+     * Checks if a device is listed and accepts commands.
+     *
+     * @param serial the serial of the device
+     * @return true if the device is online, false otherwise
+     */
+    public boolean isOnline(String serial) {
+        DeviceDescriptor device = devices.get(serial);
+        return device != null && device.isOnline();
+    }
+
+    /**
+     * Retrieves all listed devices, whatever their state.
+     *
+     * @return a snapshot of the registry
+     */
+    public List<DeviceDescriptor> getDevices() {
+        return new ArrayList<>(devices.values());
+    }
+
+    /**
+     * Subscribes a listener to the events following the subscription; use {@link #getDevices()} for the current state.
+     *
+     * @param listener the listener to subscribe
+     */
+    public void addListener(DeviceListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unsubscribes a listener.
+     *
+     * @param listener the listener to unsubscribe
+     */
+    public void removeListener(DeviceListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Checks if the tracker was closed.
+     *
+     * @return true if the tracker was closed, false otherwise
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops tracking and closes the stream.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        SocketChannel current = channel;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // the stream is being discarded anyway
+            }
+        }
+        Thread thread = trackerThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Reads device lists until the tracker is closed, reconnecting whenever the stream breaks.
+     */
+    private void track() {
+        while (!closed) {
+            try (SocketChannel current = socketClient.connect()) {
+                channel = current;
+                if (closed) {
+                    return;
+                }
+                ADBSocketClient.sendRequest(current, "host:track-devices-l");
+                while (!closed) {
+                    update(parseDeviceList(ADBSocketClient.readLengthPrefixedString(current)));
+                    firstUpdate.countDown();
+                }
+            } catch (IOException e) {
+                if (closed) {
+                    break;
+                }
+                trackerLogger.warning("Device tracking stream broke: " + e.getMessage());
+            }
+            update(Map.of());
+            try {
+                Thread.sleep(RECONNECT_DELAY.toMillis());
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Applies a complete device list to the registry and publishes the differences.
+     *
+     * @param current the current device list by serial
+     */
+    private synchronized void update(Map<String, DeviceDescriptor> current) {
+        for (DeviceDescriptor previous : new ArrayList<>(devices.values())) {
+            if (!current.containsKey(previous.getSerial())) {
+                devices.remove(previous.getSerial());
+                publish(listener -> listener.deviceDisconnected(previous));
+            }
+        }
+        for (DeviceDescriptor device : current.values()) {
+            DeviceDescriptor previous = devices.put(device.getSerial(), device);
+            if (previous == null) {
+                publish(listener -> listener.deviceConnected(device));
+            } else if (!previous.equals(device)) {
+                publish(listener -> listener.deviceChanged(previous, device));
+            }
+        }
+    }
+
+    private void publish(Consumer<DeviceListener> call) {
+        for (DeviceListener listener : listeners) {
+            try {
+                call.accept(listener);
+            } catch (RuntimeException e) {
+                trackerLogger.warning("Device listener failed: " + e);
+            }
+        }
+    }
+
+    private static Map<String, DeviceDescriptor> parseDeviceList(String payload) {
+        Map<String, DeviceDescriptor> current = new HashMap<>();
+        for (String row : payload.split("\n")) {
+            DeviceDescriptor device = DeviceDescriptor.parse(row);
+            if (device != null) {
+                current.put(device.getSerial(), device);
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,550 @@
+package ru.enplus.adblibrary.connection;
+
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local in-process imitation of the ADB server host protocol.
+ * It serves scripted devices and shell outputs, so the socket backend can be exercised without hardware:
+ * <pre>
+ *     FakeADBServer server = new FakeADBServer();
+ *     server.addDevice("emulator-5554");
+ *     server.setProperty("emulator-5554", "ro.build.version.release", "13");
+ *     ADBService adbService = new ADBService(new ADBSocketClient("127.0.0.1", server.getPort()));
+ * </pre>
+ */
+public class FakeADBServer implements Closeable {
+
+    private static final Pattern FRAMED_COMMAND = Pattern.compile("^\\{ (.*); } < /dev/null 2>&1; echo \"(.+):\\$\\?\"$");
+
+    private final ServerSocket serverSocket;
+    private final Map<String, FakeDevice> devices = new ConcurrentHashMap<>();
+    private final Map<OutputStream, Boolean> deviceTrackers = new ConcurrentHashMap<>();
+    private final Logger fakeServerLogger = Logger.getLogger("FakeADBServerLogger");
+
+    @Getter
+    private final int port;
+
+    /**
+     * Starts the fake server on a free loopback port.
+     *
+     * @throws IOException if the server socket can not be opened
+     */
+    public FakeADBServer() throws IOException {
+        this(0);
+    }
+
+    /**
+     * Starts the fake server on the specified loopback port.
+     *
+     * @param port the port to listen on, 0 for any free port
+     * @throws IOException if the server socket can not be opened
+     */
+    public FakeADBServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.port = serverSocket.getLocalPort();
+        Thread acceptor = new Thread(this::acceptConnections, "fake-adb-server-" + this.port);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Registers an online device.
+     *
+     * @param serial the serial of the device
+     * @return the registered device
+     */
+    public FakeDevice addDevice(String serial) {
+        return addDevice(serial, "device");
+    }
+
+    /**
+     * Registers a device in the specified state (e.g. "device", "offline", "unauthorized").
+     *
+     * @param serial the serial of the device
+     * @param state  the state of the device
+     * @return the registered device
+     */
+    public FakeDevice addDevice(String serial, String state) {
+        FakeDevice device = new FakeDevice(serial, state, devices.size() + 1);
+        devices.put(serial, device);
+        notifyDeviceTrackers();
+        return device;
+    }
+
+    /**
+     * Removes the device with the specified serial.
+     *
+     * @param serial the serial of the device
+     */
+    public void removeDevice(String serial) {
+        devices.remove(serial);
+        notifyDeviceTrackers();
+    }
+
+    /**
+     * Sets the output the device prints for the specified shell command.
+     *
+     * @param serial  the serial of the device
+     * @param command the exact shell command
+     * @param output  the output of the command
+     */
+    public void setShellOutput(String serial, String command, String output) {
+        FakeDevice device = devices.get(serial);
+        if (device == null) {
+            throw new IllegalArgumentException("Unknown fake device " + serial);
+        }
+        device.getShellOutputs().put(command, output);
+    }
+
+    /**
+     * Sets a system property of the device, reported by {@code getprop} and {@code getprop <key>}.
+     *
+     * @param serial the serial of the device
+     * @param key    the property key
+     * @param value  the property value
+     */
+    public void setProperty(String serial, String key, String value) {
+        FakeDevice device = devices.get(serial);
+        if (device == null) {
+            throw new IllegalArgumentException("Unknown fake device " + serial);
+        }
+        device.getProperties().put(key, value);
+    }
+
+    /**
+     * Places a file on the device, available to the sync service.
+     *
+     * @param serial           the serial of the device
+     * @param path             the absolute path of the file
+     * @param data             the content of the file
+     * @param modificationTime the modification time of the file in seconds since the epoch
+     */
+    public void setFile(String serial, String path, byte[] data, long modificationTime) {
+        FakeDevice device = devices.get(serial);
+        if (device == null) {
+            throw new IllegalArgumentException("Unknown fake device " + serial);
+        }
+        device.getFiles().put(path, new FakeFile(data, modificationTime));
+    }
+
+    /**
+     * Stops the fake server.
+     *
+     * @throws IOException if the server socket can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (OutputStream tracker : deviceTrackers.keySet()) {
+            tracker.close();
+        }
+        deviceTrackers.clear();
+    }
+
+    /**
+     * Accepts client connections until the server is closed.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread handler = new Thread(() -> handleConnection(socket), "fake-adb-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (SocketException e) {
+                return;
+            } catch (IOException e) {
+                fakeServerLogger.warning("Unable to accept connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Serves the host requests of a single connection.
+     *
+     * @param socket the client connection
+     */
+    private void handleConnection(Socket socket) {
+        try (socket) {
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            OutputStream output = socket.getOutputStream();
+            FakeDevice transport = null;
+            while (true) {
+                String request = readRequest(input);
+                if (request == null) {
+                    return;
+                }
+                if (request.equals("host:version")) {
+                    writeOkay(output);
+                    writeLengthPrefixed(output, String.format("%04x", 41));
+                    return;
+                }
+                if (request.equals("host:devices") || request.equals("host:devices-l")) {
+                    writeOkay(output);
+                    writeLengthPrefixed(output, describeDevices(request.endsWith("-l")));
+                    return;
+                }
+                if (request.equals("host:track-devices") || request.equals("host:track-devices-l")) {
+                    writeOkay(output);
+                    trackDevices(output, request.endsWith("-l"), input);
+                    return;
+                }
+                if (request.startsWith("host:transport:")) {
+                    transport = devices.get(request.substring("host:transport:".length()));
+                    if (transport == null || !transport.getState().equals("device")) {
+                        writeFail(output, "device '" + request.substring("host:transport:".length()) + "' not found");
+                        return;
+                    }
+                    writeOkay(output);
+                    continue;
+                }
+                if (transport == null) {
+                    writeFail(output, "unknown host service " + request);
+                    return;
+                }
+                handleDeviceService(transport, request, input, output);
+                return;
+            }
+        } catch (IOException e) {
+            fakeServerLogger.fine("Fake connection closed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serves a device service request after the connection was switched to a device transport.
+     *
+     * @param device  the device the connection is bound to
+     * @param request the service request
+     * @param input   the client input
+     * @param output  the client output
+     * @throws IOException if the client connection was lost
+     */
+    private void handleDeviceService(FakeDevice device, String request, DataInputStream input, OutputStream output) throws IOException {
+        if (request.equals("sync:")) {
+            writeOkay(output);
+            runSync(device, input, output);
+            return;
+        }
+        String command;
+        if (request.startsWith("shell:")) {
+            command = request.substring("shell:".length());
+        } else if (request.startsWith("exec:")) {
+            command = request.substring("exec:".length());
+        } else {
+            writeFail(output, "unknown device service " + request);
+            return;
+        }
+        writeOkay(output);
+        if (command.equals("sh")) {
+            runInteractiveShell(device, input, output);
+            return;
+        }
+        output.write(device.runCommand(command).getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+
+    /**
+     * Imitates a non-interactive sh reading commands from stdin, as used by persistent shell sessions.
+     * Understands commands framed as {@code { command; } < /dev/null 2>&1; echo "sentinel:$?"}.
+     *
+     * @param device the device the shell runs on
+     * @param input  the stdin of the shell
+     * @param output the stdout of the shell
+     * @throws IOException if the client connection was lost
+     */
+    private void runInteractiveShell(FakeDevice device, InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Matcher matcher = FRAMED_COMMAND.matcher(line);
+            if (!matcher.matches()) {
+                output.write(device.runCommand(line).getBytes(StandardCharsets.UTF_8));
+                output.flush();
+                continue;
+            }
+            String command = matcher.group(1);
+            output.write(device.runCommand(command).getBytes(StandardCharsets.UTF_8));
+            output.write((matcher.group(2) + ":" + device.exitCodeOf(command) + "\n").getBytes(StandardCharsets.UTF_8));
+            output.flush();
+        }
+    }
+
+    /**
+     * Imitates the sync service (STAT, LIST, RECV, SEND, QUIT) over the in-memory files of the device.
+     *
+     * @param device the device the service runs on
+     * @param input  the client input
+     * @param output the client output
+     * @throws IOException if the client connection was lost
+     */
+    private void runSync(FakeDevice device, DataInputStream input, OutputStream output) throws IOException {
+        while (true) {
+            byte[] idBytes = input.readNBytes(4);
+            if (idBytes.length < 4) {
+                return;
+            }
+            String id = new String(idBytes, StandardCharsets.US_ASCII);
+            int length = readLittleEndianInt(input);
+            if (id.equals("QUIT")) {
+                return;
+            }
+            String path = new String(input.readNBytes(length), StandardCharsets.UTF_8);
+            switch (id) {
+                case "STAT" -> {
+                    FakeFile file = device.getFiles().get(path);
+                    int mode = file != null ? FakeFile.REGULAR_FILE_MODE : (device.isDirectory(path) ? FakeFile.DIRECTORY_MODE : 0);
+                    writeSyncPacket(output, "STAT", mode, file != null ? file.data.length : 0, file != null ? file.modificationTime : 0);
+                }
+                case "LIST" -> {
+                    String prefix = path.endsWith("/") ? path : path + "/";
+                    for (var entry : device.getFiles().entrySet()) {
+                        String name = entry.getKey();
+                        if (name.startsWith(prefix) && name.indexOf('/', prefix.length()) < 0) {
+                            byte[] nameBytes = name.substring(prefix.length()).getBytes(StandardCharsets.UTF_8);
+                            writeSyncPacket(output, "DENT", FakeFile.REGULAR_FILE_MODE, entry.getValue().data.length, entry.getValue().modificationTime, nameBytes.length);
+                            output.write(nameBytes);
+                        }
+                    }
+                    writeSyncPacket(output, "DONE", 0, 0, 0, 0);
+                }
+                case "RECV" -> {
+                    FakeFile file = device.getFiles().get(path);
+                    if (file == null) {
+                        writeSyncFail(output, "No such file or directory");
+                        break;
+                    }
+                    for (int offset = 0; offset < file.data.length; offset += ADBSyncSession.MAX_DATA_CHUNK) {
+                        int chunk = Math.min(ADBSyncSession.MAX_DATA_CHUNK, file.data.length - offset);
+                        writeSyncPacket(output, "DATA", chunk);
+                        output.write(file.data, offset, chunk);
+                    }
+                    writeSyncPacket(output, "DONE", 0);
+                }
+                case "SEND" -> {
+                    String remotePath = path.substring(0, path.lastIndexOf(','));
+                    ByteArrayOutputStream data = new ByteArrayOutputStream();
+                    while (true) {
+                        String packet = new String(input.readNBytes(4), StandardCharsets.US_ASCII);
+                        int value = readLittleEndianInt(input);
+                        if (packet.equals("DONE")) {
+                            device.getFiles().put(remotePath, new FakeFile(data.toByteArray(), value));
+                            writeSyncPacket(output, "OKAY", 0);
+                            break;
+                        }
+                        data.write(input.readNBytes(value));
+                    }
+                }
+                default -> {
+                    writeSyncFail(output, "unknown sync request " + id);
+                    return;
+                }
+            }
+            output.flush();
+        }
+    }
+
+    private int readLittleEndianInt(DataInputStream input) throws IOException {
+        return Integer.reverseBytes(input.readInt());
+    }
+
+    private void writeSyncPacket(OutputStream output, String id, long... values) throws IOException {
+        output.write(id.getBytes(StandardCharsets.US_ASCII));
+        for (long value : values) {
+            int intValue = (int) value;
+            output.write(new byte[]{(byte) intValue, (byte) (intValue >> 8), (byte) (intValue >> 16), (byte) (intValue >> 24)});
+        }
+    }
+
+    private void writeSyncFail(OutputStream output, String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        writeSyncPacket(output, "FAIL", bytes.length);
+        output.write(bytes);
+        output.flush();
+    }
+
+    /**
+     * Pushes the device list to a tracking client now and on every device change, until the client disconnects.
+     *
+     * @param output     the client output
+     * @param longFormat true for the {@code host:track-devices-l} format
+     * @param input      the client input, watched for the disconnect
+     * @throws IOException if the client connection was lost
+     */
+    private void trackDevices(OutputStream output, boolean longFormat, DataInputStream input) throws IOException {
+        synchronized (output) {
+            writeLengthPrefixed(output, describeDevices(longFormat));
+            deviceTrackers.put(output, longFormat);
+        }
+        try {
+            while (input.read() >= 0) {
+                // tracking clients never send anything after the request
+            }
+        } finally {
+            deviceTrackers.remove(output);
+        }
+    }
+
+    private void notifyDeviceTrackers() {
+        deviceTrackers.forEach((output, longFormat) -> {
+            synchronized (output) {
+                try {
+                    writeLengthPrefixed(output, describeDevices(longFormat));
+                } catch (IOException e) {
+                    deviceTrackers.remove(output);
+                }
+            }
+        });
+    }
+
+    /**
+     * Builds the device list payload.
+     *
+     * @param longFormat true to append the product, model, device and transport id columns
+     * @return the device list payload
+     */
+    private String describeDevices(boolean longFormat) {
+        StringBuilder builder = new StringBuilder();
+        for (FakeDevice device : devices.values()) {
+            builder.append(device.getSerial()).append('\t').append(device.getState());
+            if (longFormat) {
+                builder.append(" product:fake model:Fake_Device device:fake transport_id:").append(device.getTransportId());
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Reads a length-prefixed host request.
+     *
+     * @param input the client input
+     * @return the request, or null if the client closed the connection
+     * @throws IOException if the request is malformed
+     */
+    private String readRequest(InputStream input) throws IOException {
+        byte[] lengthHex = input.readNBytes(4);
+        if (lengthHex.length < 4) {
+            return null;
+        }
+        int length = Integer.parseInt(new String(lengthHex, StandardCharsets.US_ASCII), 16);
+        return new String(input.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private void writeOkay(OutputStream output) throws IOException {
+        output.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+    }
+
+    private void writeFail(OutputStream output, String message) throws IOException {
+        output.write("FAIL".getBytes(StandardCharsets.US_ASCII));
+        writeLengthPrefixed(output, message);
+    }
+
+    private void writeLengthPrefixed(OutputStream output, String payload) throws IOException {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        output.write(String.format("%04x", bytes.length).getBytes(StandardCharsets.US_ASCII));
+        output.write(bytes);
+        output.flush();
+    }
+
+    /**
+     * Scripted device served by the fake server.
+     */
+    @Getter
+    public static class FakeDevice {
+
+        private final String serial;
+        private final String state;
+        private final int transportId;
+        private final Map<String, String> shellOutputs = new ConcurrentHashMap<>();
+        private final Map<String, FakeFile> files = new ConcurrentHashMap<>();
+        private final Map<String, String> properties = new ConcurrentSkipListMap<>();
+
+        FakeDevice(String serial, String state, int transportId) {
+            this.serial = serial;
+            this.state = state;
+            this.transportId = transportId;
+        }
+
+        /**
+         * Produces the scripted output of a command, imitating the shell message for unknown commands.
+         *
+         * @param command the command to run
+         * @return the output of the command
+         */
+        String runCommand(String command) {
+            String output = shellOutputs.get(command);
+            if (output != null) {
+                return output;
+            }
+            if (command.equals("getprop")) {
+                StringBuilder listing = new StringBuilder();
+                properties.forEach((key, value) -> listing.append('[').append(key).append("]: [").append(value).append("]\n"));
+                return listing.toString();
+            }
+            if (command.startsWith("getprop ")) {
+                return properties.getOrDefault(command.substring("getprop ".length()).strip(), "") + "\n";
+            }
+            return "/system/bin/sh: " + command.split("\\s+")[0] + ": inaccessible or not found\n";
+        }
+
+        /**
+         * Produces the exit code of a command: 0 for scripted commands, 127 for unknown ones.
+         *
+         * @param command the command to run
+         * @return the exit code of the command
+         */
+        int exitCodeOf(String command) {
+            return shellOutputs.containsKey(command) || command.equals("getprop") || command.startsWith("getprop ") ? 0 : 127;
+        }
+
+        /**
+         * Checks if any file lies under the specified path.
+         *
+         * @param path the path to check
+         * @return true if the path is a parent directory of a file, false otherwise
+         */
+        boolean isDirectory(String path) {
+            String prefix = path.endsWith("/") ? path : path + "/";
+            return files.keySet().stream().anyMatch(file -> file.startsWith(prefix));
+        }
+    }
+
+    /**
+     * In-memory file of a fake device.
+     */
+    @Getter
+    public static class FakeFile {
+
+        static final int REGULAR_FILE_MODE = 0100644;
+        static final int DIRECTORY_MODE = 040755;
+
+        private final byte[] data;
+        private final long modificationTime;
+
+        FakeFile(byte[] data, long modificationTime) {
+            this.data = data;
+            this.modificationTime = modificationTime;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.enplus.adblibrary.connection;
+
+import lombok.Data;
+
+/**
+ * Represents a file entry reported by the ADB sync protocol (STAT or LIST).
+ */
+@Data
+public class SyncFileEntry {
+
+    private static final int TYPE_MASK = 0170000;
+    private static final int TYPE_DIRECTORY = 0040000;
+    private static final int TYPE_REGULAR_FILE = 0100000;
+    private static final int TYPE_SYMLINK = 0120000;
+
+    /**
+     * The name of the entry (the file name for LIST, the requested path for STAT).
+     */
+    private final String name;
+
+    /**
+     * The unix mode of the entry, including its type bits.
+     */
+    private final int mode;
+
+    /**
+     * The size of the entry in bytes.
+     */
+    private final long size;
+
+    /**
+     * The last modification time of the entry in seconds since the epoch.
+     */
+    private final long modificationTime;
+
+    /**
+     * Checks if the entry exists; the device reports all-zero fields for missing paths.
+     *
+     * @return true if the entry exists, false otherwise
+     */
+    public boolean exists() {
+        return mode != 0;
+    }
+
+    /**
+     * Checks if the entry is a directory.
+     *
+     * @return true if the entry is a directory, false otherwise
+     */
+    public boolean isDirectory() {
+        return (mode & TYPE_MASK) == TYPE_DIRECTORY;
+    }
+
+    /**
+     * Checks if the entry is a regular file.
+     *
+     * @return true if the entry is a regular file, false otherwise
+     */
+    public boolean isRegularFile() {
+        return (mode & TYPE_MASK) == TYPE_REGULAR_FILE;
+    }
+
+    /**
+     * Checks if the entry is a symbolic link.
+     *
+     * @return true if the entry is a symbolic link, false otherwise
+     */
+    public boolean isSymlink() {
+        return (mode & TYPE_MASK) == TYPE_SYMLINK;
+    }
+}
@@ -5,15 +5,43 @@ import lombok.Setter;
 import org.jetbrains.annotations.NotNull;
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import ru.enplus.adblibrary.application.AndroidApplication;
+import ru.enplus.adblibrary.application.ApplicationInventory;
+import ru.enplus.adblibrary.application.InstalledPackage;
+import ru.enplus.adblibrary.enums.EHashAlgorithm;
 import ru.enplus.adblibrary.exceptions.ADBException;
+import ru.enplus.adblibrary.exceptions.ADBShellExecutionException;
 import ru.enplus.adblibrary.exceptions.AndroidDeviceNotAvailableException;
 import ru.enplus.adblibrary.connection.ADBService;
+import ru.enplus.adblibrary.connection.SyncFileEntry;
+import ru.enplus.adblibrary.properties.AndroidDeviceProperties;
 import ru.enplus.adblibrary.providers.ApplicationDataProvider;
+import ru.enplus.adblibrary.providers.ApplicationHashLookup;
 import ru.enplus.adblibrary.providers.ApplicationManagementProvider;
 import ru.enplus.adblibrary.providers.ApplicationPermissionManagementProvider;
 import ru.enplus.adblibrary.providers.NetworkDataProvider;
+import ru.enplus.adblibrary.util.AsyncDeviceExecutor;
+import ru.enplus.adblibrary.util.InventoryStore;
 import static ru.enplus.adblibrary.util.AndroidUtils.truncateAndroidVersion;
 
 /**
@@ -26,30 +54,69 @@ public class AndroidDevice extends AndroidDeviceInfo {
     private ApplicationManagementProvider applicationManagementProvider;
     private ApplicationPermissionManagementProvider applicationPermissionManagementProvider;
     private NetworkDataProvider networkDataProvider;
-    private final float versionNumeric;
+    private volatile float versionNumeric = Float.NaN;
 
-    @Getter
+    /**
+     * Number of applications from which their permissions are read with one dumpsys of all packages
+     * instead of one dumpsys per package.
+     */
+    private static final int BULK_PERMISSIONS_THRESHOLD = 8;
+
+    /**
+     * The installed applications; listed on first access by lazily constructed devices.
+     */
     @Setter
-    private ArrayList<AndroidApplication> applications;
+    private volatile ArrayList<AndroidApplication> applications;
+
+    /**
+     * The applications whose permissions and hashes were collected.
+     */
+    private final Set<AndroidApplication> detailedApplications = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    /**
+     * The latest inventory of the device, the baseline of the next {@link #refreshInventory()}; null before the first one.
+     */
+    @Getter
+    private volatile ApplicationInventory inventory;
+
+    /**
+     * Constructs a lazy AndroidDevice with the specified device ID and ADB service. No command is sent to the device:
+     * the device properties, the application list and the details of every application are loaded on first access
+     * and memoized until they are refreshed explicitly. The availability of the device is not checked either;
+     * the first command fails if it is not available.
+     *
+     * @param deviceId the ID of the Android device
+     * @param adbService the ADB service used to interact with the Android device
+     */
+    public AndroidDevice(@NotNull String deviceId, ADBService adbService) {
+        super(deviceId, adbService, true);
+        initProviders(adbService, deviceId);
+    }
 
     /**
      * Constructs an AndroidDevice with the specified device ID and ADB service, and initializes all providers.
      *
      * @param deviceId the ID of the Android device
      * @param adbService the ADB service used to interact with the Android device
-     * @param collectProperties use True if you alse want to collect such applications properties as hashes, etc (requires time)
+     * @param collectProperties use True if you alse want to collect such applications properties as hashes, etc (requires time);
+     *                          with an inventory store set on the ADB service only the applications changed since the
+     *                          stored inventory are collected, see {@link #refreshInventory()}
      * @throws ADBException if there is an error during ADB operations
      * @throws IOException if there is an IO error
      * @throws NoSuchAlgorithmException if there is an error with hashing algorithms
      */
     public AndroidDevice(@NotNull String deviceId, ADBService adbService, boolean collectProperties) throws ADBException, IOException, NoSuchAlgorithmException {
         super(deviceId, adbService);
-        if (!adbService.getAvailableDevices().contains(deviceId)) {
+        if (!adbService.isDeviceAvailable(deviceId)) {
             throw new AndroidDeviceNotAvailableException("Android device " + deviceId + " is not available!");
         }
         initProviders(adbService, deviceId);
         this.applications = new ArrayList<>();
         this.versionNumeric = Float.parseFloat(truncateAndroidVersion(getAndroidVersion()));
+        if (collectProperties && adbService.getInventoryStore() != null) {
+            refreshInventory();
+            return;
+        }
         this.applications = applicationDataProvider.getApplicationsList(-1);
         if (collectProperties){
             collectApplicationProperties();
@@ -69,7 +136,7 @@ public class AndroidDevice extends AndroidDeviceInfo {
      */
     public AndroidDevice(@NotNull String deviceId, ADBService adbService, int appsListRestriction, boolean collectProperties) throws ADBException, IOException, NoSuchAlgorithmException {
         super(deviceId, adbService);
-        if (!adbService.getAvailableDevices().contains(deviceId)) {
+        if (!adbService.isDeviceAvailable(deviceId)) {
             throw new AndroidDeviceNotAvailableException("Android device " + deviceId + " is not available!");
         }
         initProviders(adbService, deviceId);
@@ -81,6 +148,106 @@ public class AndroidDevice extends AndroidDeviceInfo {
         }
     }
 
+    /**
+     * Loads the device concurrently: the availability check, the device properties and the application list run
+     * as parallel tasks of the ADB service async executor, so the startup takes as long as the slowest of them instead
+     * of their sum. The first failing task cancels the others and its error is thrown. Afterwards the properties of
+     * the applications are collected if requested, incrementally if an inventory store is set on the ADB service.
+     * <p>
+     * Must not be called from a task of the async executor, whose per-device limit the parallel tasks need.
+     *
+     * @param collectProperties use True if you also want to collect such applications properties as hashes, etc
+     * @return this device
+     * @throws ADBException if the device is not available or one of the queries failed
+     * @throws IOException if there is an IO error; an InterruptedIOException if the calling thread was interrupted
+     * @throws NoSuchAlgorithmException if there is an error with hashing algorithms
+     */
+    public AndroidDevice load(boolean collectProperties) throws ADBException, IOException, NoSuchAlgorithmException {
+        String deviceId = getDeviceId();
+        AsyncDeviceExecutor executor = getAdbService().getAsyncExecutor();
+        boolean incremental = collectProperties && getAdbService().getInventoryStore() != null;
+        List<CompletableFuture<?>> queries = new ArrayList<>();
+        queries.add(executor.submit(deviceId, () -> {
+            if (!getAdbService().isDeviceAvailable(deviceId)) {
+                throw new AndroidDeviceNotAvailableException("Android device " + deviceId + " is not available!");
+            }
+            return null;
+        }));
+        queries.add(executor.submit(deviceId, () -> {
+            getPropertySnapshot();
+            return getVersionNumeric();
+        }));
+        CompletableFuture<ArrayList<AndroidApplication>> listing = incremental ? null : executor.submit(deviceId, () -> applicationDataProvider.getApplicationsList(-1));
+        if (listing != null) {
+            queries.add(listing);
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (CompletableFuture<?> query : queries) {
+            query.whenComplete((ignored, error) -> {
+                if (error != null && failure.compareAndSet(null, error)) {
+                    queries.forEach(sibling -> sibling.cancel(true));
+                }
+            });
+        }
+        try {
+            CompletableFuture.allOf(queries.toArray(new CompletableFuture<?>[0])).get();
+        } catch (InterruptedException e) {
+            queries.forEach(query -> query.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Loading of " + deviceId + " was cancelled");
+        } catch (ExecutionException | CancellationException e) {
+            Throwable error = failure.get() != null ? failure.get() : e.getCause() != null ? e.getCause() : e;
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof ADBException adbException) {
+                throw adbException;
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new ADBShellExecutionException("Unable to load " + deviceId + ": " + cause);
+        }
+        if (listing != null) {
+            this.applications = listing.join();
+            detailedApplications.clear();
+        }
+        if (incremental) {
+            refreshInventory();
+        } else if (collectProperties) {
+            collectApplicationProperties();
+        }
+        return this;
+    }
+
+    /**
+     * Retrieves the numeric Android version of the device, e.g. 13.0, parsing it on first access.
+     *
+     * @return the numeric Android version
+     */
+    private float getVersionNumeric() {
+        float version = versionNumeric;
+        if (Float.isNaN(version)) {
+            version = Float.parseFloat(truncateAndroidVersion(getAndroidVersion()));
+            versionNumeric = version;
+        }
+        return version;
+    }
+
+    /**
+     * Retrieves the key identifying the build of the device in inventories and the hash cache: the build fingerprint
+     * from the property cache, or the serial if the fingerprint is unknown or can not be read.
+     *
+     * @return the device key
+     */
+    private String getDeviceKey() {
+        try {
+            String fingerprint = getRawPropertyValue(AndroidDeviceProperties.ANDROID_BUILD_FINGERPRINT);
+            return fingerprint.isEmpty() ? getDeviceId() : fingerprint;
+        } catch (ADBShellExecutionException e) {
+            getAdbService().logInfo("Unable to read the build fingerprint of " + getDeviceId() + ", keying by serial: " + e.getMessage());
+            return getDeviceId();
+        }
+    }
+
     /**
      * Initializes the various data providers used by this Android device.
      *
@@ -94,18 +261,335 @@ public class AndroidDevice extends AndroidDeviceInfo {
         this.networkDataProvider = new NetworkDataProvider(adbService, deviceId);
     }
 
+    /**
+     * Lists the installed applications again and replaces the stored application list.
+     *
+     * @return the new application list
+     * @throws ADBException if there is an error executing the ADB command
+     */
+    public ArrayList<AndroidApplication> refreshApplications() throws ADBException {
+        this.applications = applicationDataProvider.getApplicationsList(0);
+        detailedApplications.clear();
+        return this.applications;
+    }
+
+    /**
+     * Retrieves the installed applications, listing them on first access.
+     * A failed listing is not memoized; the next access lists them again.
+     *
+     * @return the installed applications
+     * @throws ADBShellExecutionException if the applications could not be listed
+     */
+    public ArrayList<AndroidApplication> getApplications() throws ADBShellExecutionException {
+        ArrayList<AndroidApplication> result = applications;
+        if (result == null) {
+            synchronized (detailedApplications) {
+                result = applications;
+                if (result == null) {
+                    result = applicationDataProvider.getApplicationsList(-1);
+                    applications = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves an installed application by its package name, listing the applications on first access.
+     *
+     * @param packageName the package name of the application
+     * @return the application, or null if it is not installed
+     */
+    public AndroidApplication getApplication(String packageName) throws ADBShellExecutionException {
+        for (AndroidApplication application : getApplications()) {
+            if (application.getPackageName().equals(packageName)) {
+                return application;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the permissions and hashes of an application of the device, collecting them on first access.
+     * Later calls return the memoized details until {@link #refreshApplicationDetails(AndroidApplication)}.
+     *
+     * @param application the application of this device
+     * @return the application with its permissions and hashes filled
+     * @throws IOException if there is an IO error
+     * @throws NoSuchAlgorithmException if there is an error with hashing algorithms
+     * @throws ADBException if there is an error during ADB operations
+     */
+    public AndroidApplication getApplicationDetails(AndroidApplication application) throws IOException, NoSuchAlgorithmException, ADBException {
+        if (!detailedApplications.contains(application)) {
+            refreshApplicationDetails(application);
+        }
+        return application;
+    }
+
+    /**
+     * Collects the permissions and hashes of an application of the device again.
+     *
+     * @param application the application of this device
+     * @return the application with its permissions and hashes filled
+     * @throws IOException if there is an IO error
+     * @throws NoSuchAlgorithmException if there is an error with hashing algorithms
+     * @throws ADBException if there is an error during ADB operations
+     */
+    public AndroidApplication refreshApplicationDetails(AndroidApplication application) throws IOException, NoSuchAlgorithmException, ADBException {
+        applicationDataProvider.fillApplicationPermissions(application);
+        collectApplicationHashes(List.of(application), EnumSet.allOf(EHashAlgorithm.class));
+        detailedApplications.add(application);
+        return application;
+    }
+
     /**
      * Collects properties of applications installed on the device, including permissions and hashes.
+     * The permissions of all applications are read with a single dumpsys call, and every hash with one
+     * invocation of its hash tool over all APK paths.
      *
      * @throws IOException if there is an IO error
      * @throws NoSuchAlgorithmException if there is an error with hashing algorithms
      * @throws ADBException if there is an error during ADB operations
      */
     public void collectApplicationProperties() throws IOException, NoSuchAlgorithmException, ADBException {
-        for (var application : this.applications) {
-            applicationDataProvider.fillApplicationPermissions(application);
-            applicationDataProvider.fillApplicationHashes(application, versionNumeric);
+        List<AndroidApplication> targets = List.copyOf(getApplications());
+        collectApplicationPermissions(targets);
+        collectApplicationHashes(targets, EnumSet.allOf(EHashAlgorithm.class));
+        detailedApplications.addAll(targets);
+    }
+
+    /**
+     * Takes an incremental inventory of the device. The package list with version codes is diffed against the
+     * previous inventory, kept in memory or loaded from the inventory store of the ADB service, and the permissions
+     * and hashes are collected only for the packages installed or updated since; the other applications keep their
+     * previously collected properties. Removed packages are reported as tombstones. On a stable device this costs
+     * a single {@code pm list packages} call.
+     * <p>
+     * Without a previous inventory, or if it was captured on another build of the device, every application is
+     * collected. Permission grant changes of packages that were not updated are not picked up; use
+     * {@link #collectApplicationProperties()} for a full collection.
+     *
+     * @return the diff against the previous inventory
+     * @throws IOException if there is an IO error
+     * @throws NoSuchAlgorithmException if there is an error with hashing algorithms
+     * @throws ADBException if there is an error during ADB operations
+     */
+    public InventoryDiff refreshInventory() throws IOException, NoSuchAlgorithmException, ADBException {
+        long start = System.nanoTime();
+        Instant captureTime = Instant.now();
+        List<InstalledPackage> packages = applicationDataProvider.getInstalledPackages();
+        String deviceKey = getDeviceKey();
+        InventoryStore store = getAdbService().getInventoryStore();
+        ApplicationInventory previous = this.inventory;
+        if (previous == null && store != null) {
+            previous = store.load(getDeviceId());
+        }
+        boolean fullScan = previous == null || !previous.getDeviceKey().equals(deviceKey);
+        Map<String, InstalledPackage> previousPackages = previous != null ? previous.getPackages() : Map.of();
+        Map<String, AndroidApplication> previousApplications = previous != null ? previous.getApplications() : Map.of();
+
+        ArrayList<AndroidApplication> current = new ArrayList<>(packages.size());
+        List<AndroidApplication> added = new ArrayList<>();
+        List<AndroidApplication> updated = new ArrayList<>();
+        Set<String> listed = new HashSet<>();
+        for (InstalledPackage installedPackage : packages) {
+            String packageName = installedPackage.getPackageName();
+            listed.add(packageName);
+            InstalledPackage previousPackage = previousPackages.get(packageName);
+            AndroidApplication previousApplication = previousApplications.get(packageName);
+            if (!fullScan && previousPackage != null && previousApplication != null && installedPackage.isSameInstallation(previousPackage)) {
+                current.add(previousApplication);
+                continue;
+            }
+            AndroidApplication application = new AndroidApplication();
+            application.setPackageName(packageName);
+            application.setPath(installedPackage.getPath());
+            (previousPackage == null ? added : updated).add(application);
+            current.add(application);
+        }
+        List<PackageTombstone> removed = new ArrayList<>();
+        for (InstalledPackage previousPackage : previousPackages.values()) {
+            if (!listed.contains(previousPackage.getPackageName())) {
+                removed.add(new PackageTombstone(previousPackage, previousApplications.get(previousPackage.getPackageName()),
+                        previous.getCaptureTime(), captureTime));
+            }
+        }
+
+        List<AndroidApplication> changed = new ArrayList<>(added);
+        changed.addAll(updated);
+        if (!changed.isEmpty()) {
+            collectApplicationPermissions(changed);
+            collectApplicationHashes(changed, EnumSet.allOf(EHashAlgorithm.class));
+        }
+        ApplicationInventory inventory = new ApplicationInventory(deviceKey, captureTime, packages, current);
+        InventoryDiff diff = new InventoryDiff(added, updated, removed, current.size() - changed.size(), fullScan, Duration.ofNanos(System.nanoTime() - start));
+        if (store != null && (fullScan || diff.hasChanges())) {
+            store.save(getDeviceId(), inventory);
         }
+        this.inventory = inventory;
+        this.applications = current;
+        detailedApplications.clear();
+        detailedApplications.addAll(current);
+        getAdbService().logInfo(diff + " on " + getDeviceId());
+        return diff;
+    }
+
+    /**
+     * Collects the permissions of the specified applications of the device. Beyond
+     * {@link #BULK_PERMISSIONS_THRESHOLD} applications they are read with a single dumpsys call.
+     *
+     * @param targets the applications to collect permissions for
+     * @throws ADBException if there is an error during ADB operations
+     */
+    private void collectApplicationPermissions(List<AndroidApplication> targets) throws ADBException {
+        Set<AndroidApplication> permissionsMissing;
+        if (targets.size() >= BULK_PERMISSIONS_THRESHOLD) {
+            permissionsMissing = fillApplicationPermissionsInBulk(targets);
+        } else {
+            permissionsMissing = Collections.newSetFromMap(new IdentityHashMap<>());
+            permissionsMissing.addAll(targets);
+        }
+        for (AndroidApplication application : targets) {
+            if (permissionsMissing.contains(application)) {
+                applicationDataProvider.fillApplicationPermissions(application);
+            }
+        }
+    }
+
+    /**
+     * Collects the selected hashes of the applications installed on the device, with one invocation of
+     * every hash tool over all APK paths. Hashes the device cannot compute are calculated from the pulled APK files.
+     *
+     * @param algorithms the hash algorithms to compute
+     * @throws IOException if there is an IO error
+     * @throws NoSuchAlgorithmException if there is an error with hashing algorithms
+     */
+    public void collectApplicationHashes(Set<EHashAlgorithm> algorithms) throws IOException, NoSuchAlgorithmException, ADBShellExecutionException {
+        collectApplicationHashes(getApplications(), algorithms);
+    }
+
+    /**
+     * Collects the selected hashes of the specified applications of the device, with one invocation of
+     * every hash tool over their APK paths.
+     *
+     * @param applications the applications of this device to hash
+     * @param algorithms   the hash algorithms to compute
+     * @throws IOException if there is an IO error
+     * @throws NoSuchAlgorithmException if there is an error with hashing algorithms
+     */
+    public void collectApplicationHashes(Collection<AndroidApplication> applications, Set<EHashAlgorithm> algorithms) throws IOException, NoSuchAlgorithmException {
+        applicationDataProvider.fillApplicationHashes(getDeviceKey(), applications, algorithms, getVersionNumeric());
+    }
+
+    /**
+     * Reads the mode, size and modification time of the APK files of the applications with a batched stat.
+     *
+     * @return the file entries by APK path; files stat could not read are missing
+     * @throws IOException if there is an error executing the stat command
+     */
+    public Map<String, SyncFileEntry> statApplicationFiles() throws IOException, ADBShellExecutionException {
+        List<String> applicationPaths = new ArrayList<>();
+        for (AndroidApplication application : getApplications()) {
+            applicationPaths.add(application.getPath());
+        }
+        return applicationDataProvider.statFiles(applicationPaths);
+    }
+
+    /**
+     * Fills the permissions of the applications with a single {@code dumpsys package packages} call.
+     *
+     * @param targets the applications to fill permissions for
+     * @return the applications whose permissions still have to be collected one by one
+     */
+    private Set<AndroidApplication> fillApplicationPermissionsInBulk(List<AndroidApplication> targets) {
+        Set<AndroidApplication> permissionsMissing = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            permissionsMissing.addAll(applicationDataProvider.fillApplicationPermissions(targets));
+        } catch (ADBException e) {
+            getAdbService().logInfo("Bulk permissions collecting on " + getDeviceId() + " failed, collecting per package: " + e.getMessage());
+            permissionsMissing.addAll(targets);
+        }
+        return permissionsMissing;
+    }
+
+    /**
+     * Collects properties of applications installed on the device, including permissions and hashes,
+     * working on up to {@code parallelism} applications at once. The per-device limit of the ADB service
+     * async executor applies on top. The permissions and the on-device hashes of all applications are read
+     * with batched commands first; the per-application work only covers what the batches missed.
+     * A failing application does not stop the collection; it is reported to the listener and in the returned report.
+     *
+     * @param parallelism the maximum amount of applications collected at once
+     * @param listener    the progress callback, or null
+     * @return the report of the collection, returned once every application finished
+     * @throws InterruptedIOException if the calling thread was interrupted; running collections are cancelled
+     */
+    public ApplicationCollectionReport collectApplicationProperties(int parallelism, ApplicationCollectionListener listener) throws InterruptedIOException, ADBShellExecutionException {
+        List<AndroidApplication> targets = List.copyOf(getApplications());
+        ApplicationCollectionListener progress = listener != null ? listener : new ApplicationCollectionListener() {
+        };
+        Semaphore slots = new Semaphore(Math.max(parallelism, 1));
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger collected = new AtomicInteger();
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> submitted = new ArrayList<>();
+        List<CompletableFuture<Void>> finished = new ArrayList<>();
+        long start = System.nanoTime();
+        Set<AndroidApplication> permissionsMissing = fillApplicationPermissionsInBulk(targets);
+        Set<EHashAlgorithm> algorithms = EnumSet.allOf(EHashAlgorithm.class);
+        ApplicationHashLookup hashLookup = applicationDataProvider.lookupApplicationHashes(getDeviceKey(), targets, algorithms);
+        Set<AndroidApplication> hashesMissing = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            hashesMissing.addAll(applicationDataProvider.fillApplicationHashesOnDevice(hashLookup.getMisses(), algorithms, getVersionNumeric()));
+        } catch (IOException e) {
+            getAdbService().logInfo("Batched hashing on " + getDeviceId() + " failed, hashing per package: " + e.getMessage());
+            hashesMissing.addAll(hashLookup.getMisses());
+        }
+        try {
+            for (AndroidApplication application : targets) {
+                slots.acquire();
+                CompletableFuture<Void> future = getAdbService().getAsyncExecutor().submit(getDeviceId(), () -> {
+                    if (permissionsMissing.contains(application)) {
+                        applicationDataProvider.fillApplicationPermissions(application);
+                    }
+                    if (hashesMissing.contains(application)) {
+                        applicationDataProvider.fillApplicationHashesFromApk(application, algorithms);
+                    }
+                    return null;
+                });
+                submitted.add(future);
+                finished.add(future.whenComplete((ignored, error) -> {
+                    slots.release();
+                    int done = completed.incrementAndGet();
+                    if (error == null) {
+                        collected.incrementAndGet();
+                        detailedApplications.add(application);
+                        progress.applicationCollected(application, done, targets.size());
+                    } else {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        failures.put(application.getPackageName(), cause);
+                        progress.applicationFailed(application, cause, done, targets.size());
+                    }
+                }));
+            }
+            for (CompletableFuture<Void> future : finished) {
+                try {
+                    future.get();
+                } catch (ExecutionException | CancellationException e) {
+                    // reported through the failures
+                }
+            }
+        } catch (InterruptedException e) {
+            submitted.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Collection of application properties on " + getDeviceId() + " was cancelled");
+        }
+        try {
+            applicationDataProvider.storeApplicationHashes(hashLookup, algorithms);
+        } catch (IOException e) {
+            getAdbService().logInfo("Unable to store the hash cache: " + e.getMessage());
+        }
+        return new ApplicationCollectionReport(targets.size(), collected.get(), failures, Duration.ofNanos(System.nanoTime() - start));
     }
 
     /**
@@ -194,4 +678,131 @@ public class AndroidDevice extends AndroidDeviceInfo {
     public String getInterfaceIpAddress(String interfaceName, String ipVersion) throws ADBException {
         return networkDataProvider.getInterfaceIpAddress(interfaceName, ipVersion);
     }
+
+    /**
+     * Asynchronously lists the installed applications again and replaces the stored application list.
+     *
+     * @return the future completed with the new application list
+     * @see #refreshApplications()
+     */
+    public CompletableFuture<ArrayList<AndroidApplication>> refreshApplicationsAsync() {
+        return getAdbService().getAsyncExecutor().submit(getDeviceId(), this::refreshApplications);
+    }
+
+    /**
+     * Asynchronously collects properties of applications installed on the device, including permissions and hashes.
+     *
+     * @return the future completed once the properties of all applications are collected
+     * @see #collectApplicationProperties()
+     */
+    public CompletableFuture<Void> collectApplicationPropertiesAsync() {
+        return getAdbService().getAsyncExecutor().submit(getDeviceId(), () -> {
+            collectApplicationProperties();
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronously fills the permissions of the specified application.
+     *
+     * @param application the application to fill permissions for
+     * @return the future completed once the permissions are filled
+     */
+    public CompletableFuture<Void> fillApplicationPermissionsAsync(AndroidApplication application) {
+        return applicationDataProvider.fillApplicationPermissionsAsync(application);
+    }
+
+    /**
+     * Asynchronously fills the hashes of the specified application.
+     *
+     * @param application the application to fill hashes for
+     * @return the future completed once the hashes are filled
+     */
+    public CompletableFuture<Void> fillApplicationHashesAsync(AndroidApplication application) {
+        return applicationDataProvider.fillApplicationHashesAsync(application, getVersionNumeric());
+    }
+
+    /**
+     * Asynchronously uninstalls the application with the specified package name.
+     *
+     * @param packageName the package name of the application to uninstall
+     * @return the future completed once the application is uninstalled
+     */
+    public CompletableFuture<Void> uninstallAppAsync(String packageName) {
+        return applicationManagementProvider.uninstallAppAsync(packageName);
+    }
+
+    /**
+     * Asynchronously installs an application from the specified APK file path.
+     *
+     * @param apkPath the path to the APK file
+     * @return the future completed with true if the installation was successful, false otherwise
+     */
+    public CompletableFuture<Boolean> installAppFromApkAsync(String apkPath) {
+        return applicationManagementProvider.installAppFromApkAsync(apkPath);
+    }
+
+    /**
+     * Asynchronously grants a permission to an application using its package name.
+     *
+     * @param applicationPackage the package name of the application
+     * @param permission the permission to grant
+     * @return the future completed once the permission is granted
+     */
+    public CompletableFuture<Void> grantPermissionShellOnlyAsync(String applicationPackage, String permission) {
+        return applicationPermissionManagementProvider.grantPermissionShellOnlyAsync(applicationPackage, permission);
+    }
+
+    /**
+     * Asynchronously grants a permission to the specified application.
+     *
+     * @param application the application to grant the permission to
+     * @param permission the permission to grant
+     * @return the future completed once the permission is granted
+     */
+    public CompletableFuture<Void> grantPermissionShellOnlyAsync(AndroidApplication application, String permission) {
+        return applicationPermissionManagementProvider.grantPermissionShellOnlyAsync(application, permission);
+    }
+
+    /**
+     * Asynchronously revokes a permission from an application using its package name.
+     *
+     * @param applicationPackage the package name of the application
+     * @param permission the permission to revoke
+     * @return the future completed once the permission is revoked
+     */
+    public CompletableFuture<Void> revokePermissionShellOnlyAsync(String applicationPackage, String permission) {
+        return applicationPermissionManagementProvider.revokePermissionShellOnlyAsync(applicationPackage, permission);
+    }
+
+    /**
+     * Asynchronously revokes a permission from the specified application.
+     *
+     * @param application the application to revoke the permission from
+     * @param permission the permission to revoke
+     * @return the future completed once the permission is revoked
+     */
+    public CompletableFuture<Void> revokePermissionShellOnlyAsync(AndroidApplication application, String permission) {
+        return applicationPermissionManagementProvider.revokePermissionShellOnlyAsync(application, permission);
+    }
+
+    /**
+     * Asynchronously retrieves a list of network interfaces available on the device.
+     *
+     * @return the future completed with the network interfaces
+     */
+    public CompletableFuture<ArrayList<String>> getNetworkInterfacesAsync() {
+        return networkDataProvider.getNetworkInterfacesAsync();
+    }
+
+    /**
+     * Asynchronously retrieves the IP address of a specified network interface and IP version.
+     *
+     * @param interfaceName the name of the network interface
+     * @param ipVersion the IP version ("ipv4" or "ipv6")
+     * @return the future completed with the IP address of the network interface
+     */
+    public CompletableFuture<String> getInterfaceIpAddressAsync(String interfaceName, String ipVersion) {
+        return networkDataProvider.getInterfaceIpAddressAsync(interfaceName, ipVersion);
+    }
 }
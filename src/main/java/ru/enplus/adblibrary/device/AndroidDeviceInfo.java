@@ -1,18 +1,29 @@
 package ru.enplus.adblibrary.device;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 import org.jetbrains.annotations.NotNull;
 import ru.enplus.adblibrary.connection.ADBService;
+import ru.enplus.adblibrary.enums.EPropertyVolatility;
 import ru.enplus.adblibrary.properties.AndroidDeviceProperties;
 import ru.enplus.adblibrary.exceptions.ADBShellExecutionException;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Represents the basic information of an Android device, including properties like version, brand, and model.
  * It interacts with the device using ADB (Android Debug Bridge) to retrieve these properties.
+ * The generated equals, hashCode and toString read the fields directly, so they never query a lazy device.
  */
 @Data
+@EqualsAndHashCode(doNotUseGetters = true)
+@ToString(doNotUseGetters = true)
 public class AndroidDeviceInfo {
 
     @NotNull
@@ -21,10 +32,26 @@ public class AndroidDeviceInfo {
     @NotNull
     private final ADBService adbService;
 
-    private String androidVersion;
-    private String androidSDKVersion;
-    private String brand;
-    private String model;
+    private volatile String androidVersion;
+    private volatile String androidSDKVersion;
+    private volatile String brand;
+    private volatile String model;
+
+    /**
+     * The getprop snapshot serving plain property keys; captured on first use.
+     */
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile PropertySnapshot propertySnapshot;
+
+    /**
+     * The cache of property and property command values, with per-volatility time to live.
+     */
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final PropertyCache propertyCache = new PropertyCache();
 
     /**
      * Constructs an AndroidDeviceInfo object for the specified device ID and ADB service,
@@ -34,20 +61,42 @@ public class AndroidDeviceInfo {
      * @param adbService the ADB service used to interact with the Android device
      */
     public AndroidDeviceInfo(@NotNull String deviceId, @NotNull ADBService adbService) {
+        this(deviceId, adbService, false);
+    }
+
+    /**
+     * Constructs an AndroidDeviceInfo object for the specified device ID and ADB service. In lazy mode no command is
+     * sent to the device; the device properties are initialized on first access of one of them.
+     *
+     * @param deviceId the ID of the Android device
+     * @param adbService the ADB service used to interact with the Android device
+     * @param lazy true to initialize the device properties on first access, false to initialize them right away
+     */
+    protected AndroidDeviceInfo(@NotNull String deviceId, @NotNull ADBService adbService, boolean lazy) {
         this.deviceId = deviceId;
         this.adbService = adbService;
-        initializeProperties();
+        if (!lazy) {
+            initializeProperties();
+        }
     }
 
     /**
-     * Initializes the properties of the Android device by fetching their values via ADB.
+     * Initializes the properties of the Android device that were not initialized or set yet from a single getprop snapshot.
      */
-    private void initializeProperties() {
+    private synchronized void initializeProperties() {
         try {
-            this.androidVersion = getRawPropertyValue(AndroidDeviceProperties.ANDROID_VERSION);
-            this.androidSDKVersion = getRawPropertyValue(AndroidDeviceProperties.ANDROID_API_LEVEL);
-            this.brand = getRawPropertyValue(AndroidDeviceProperties.ANDROID_PRODUCT_BRAND);
-            this.model = getRawPropertyValue(AndroidDeviceProperties.ANDROID_PRODUCT_DEVICE);
+            if (this.androidVersion == null) {
+                this.androidVersion = getRawPropertyValue(AndroidDeviceProperties.ANDROID_VERSION);
+            }
+            if (this.androidSDKVersion == null) {
+                this.androidSDKVersion = getRawPropertyValue(AndroidDeviceProperties.ANDROID_API_LEVEL);
+            }
+            if (this.brand == null) {
+                this.brand = getRawPropertyValue(AndroidDeviceProperties.ANDROID_PRODUCT_BRAND);
+            }
+            if (this.model == null) {
+                this.model = getRawPropertyValue(AndroidDeviceProperties.ANDROID_PRODUCT_DEVICE);
+            }
         } catch (ADBShellExecutionException e) {
             handleShellExecutionException(e);
         }
@@ -60,37 +109,143 @@ public class AndroidDeviceInfo {
      */
     private void handleShellExecutionException(ADBShellExecutionException e) {
         e.printStackTrace();
-        this.androidVersion = "";
-        this.androidSDKVersion = "";
-        this.brand = "";
-        this.model = "";
+        if (this.androidVersion == null) {
+            this.androidVersion = "";
+        }
+        if (this.androidSDKVersion == null) {
+            this.androidSDKVersion = "";
+        }
+        if (this.brand == null) {
+            this.brand = "";
+        }
+        if (this.model == null) {
+            this.model = "";
+        }
+    }
+
+    /**
+     * Retrieves the Android version of the device, initializing the device properties on first access.
+     *
+     * @return the Android version, e.g. "13"
+     */
+    public String getAndroidVersion() {
+        if (androidVersion == null) {
+            initializeProperties();
+        }
+        return androidVersion;
+    }
+
+    /**
+     * Retrieves the API level of the device, initializing the device properties on first access.
+     *
+     * @return the API level, e.g. "33"
+     */
+    public String getAndroidSDKVersion() {
+        if (androidSDKVersion == null) {
+            initializeProperties();
+        }
+        return androidSDKVersion;
+    }
+
+    /**
+     * Retrieves the brand of the device, initializing the device properties on first access.
+     *
+     * @return the brand
+     */
+    public String getBrand() {
+        if (brand == null) {
+            initializeProperties();
+        }
+        return brand;
+    }
+
+    /**
+     * Retrieves the model of the device, initializing the device properties on first access.
+     *
+     * @return the model
+     */
+    public String getModel() {
+        if (model == null) {
+            initializeProperties();
+        }
+        return model;
+    }
+
+    /**
+     * Retrieves the getprop snapshot of the device, capturing it on first use.
+     *
+     * @return the property snapshot
+     * @throws ADBShellExecutionException if getprop could not be executed
+     */
+    public PropertySnapshot getPropertySnapshot() throws ADBShellExecutionException {
+        PropertySnapshot snapshot = propertySnapshot;
+        if (snapshot == null) {
+            snapshot = refreshProperties();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Captures a new getprop snapshot and drops the cached values of the mutable property keys,
+     * so that subsequent property lookups see the current device state.
+     *
+     * @return the new property snapshot
+     * @throws ADBShellExecutionException if getprop could not be executed
+     */
+    public PropertySnapshot refreshProperties() throws ADBShellExecutionException {
+        adbService.logInfo("Capturing properties of " + deviceId);
+        try {
+            PropertySnapshot snapshot = PropertySnapshot.capture(adbService.getCommandTransport(), deviceId);
+            propertySnapshot = snapshot;
+            propertyCache.invalidateMatching(property -> PropertySnapshot.isPropertyKey(property)
+                    && propertyCache.getVolatility(property) != EPropertyVolatility.IMMUTABLE);
+            return snapshot;
+        } catch (IOException e) {
+            throw new ADBShellExecutionException("Something went wrong during getting of device properties ! Check if the device is available!");
+        }
     }
 
     /**
-     * Retrieves the raw property value from the Android device using ADB.
+     * Retrieves the raw property value from the Android device using ADB, served from the property cache
+     * while the cached value is fresh (see {@link PropertyCache#getVolatility(String)}).
      *
      * @param property the property to retrieve
      * @return the raw value of the property
      * @throws ADBShellExecutionException if there is an error during the property retrieval
      */
     public String getRawPropertyValue(String property) throws ADBShellExecutionException {
-        String command = String.format("%s -s %s shell %s%s",
-                adbService.getAdbPath(), deviceId, property.contains(" ") ? "" : "getprop ", property);
+        return propertyCache.get(property, this::loadRawPropertyValue);
+    }
+
+    /**
+     * Reads the raw property value from the device, bypassing the property cache.
+     * Plain property keys are read from the getprop snapshot, which is recaptured once it is older than the
+     * time to live of the key; shell command entries such as {@link AndroidDeviceProperties#ANDROID_RAM_INFO}
+     * are executed.
+     *
+     * @param property the property to retrieve
+     * @return the raw value of the property
+     * @throws ADBShellExecutionException if there is an error during the property retrieval
+     */
+    private String loadRawPropertyValue(String property) throws ADBShellExecutionException {
+        if (PropertySnapshot.isPropertyKey(property)) {
+            PropertySnapshot snapshot = getPropertySnapshot();
+            Duration timeToLive = propertyCache.getTimeToLive(property);
+            if (timeToLive != null && snapshot.getCaptureTime().plus(timeToLive).isBefore(Instant.now())) {
+                snapshot = refreshProperties();
+            }
+            return snapshot.getString(property, "").strip();
+        }
+        String command = property;
         adbService.logInfo("Executing command: " + command);
         try {
-            ProcessBuilder processBuilder = new ProcessBuilder(command.split("\\s+"));
-            Process process = processBuilder.start();
             StringBuilder output = new StringBuilder();
-            try {
-                List<String> result = adbService.getProcessOutputHandler().getProcessOutput(process);
-                if (!result.isEmpty()) {
-                    for (String line : result) {
-                        output.append(line).append('\n');
-                    }
-                    return output.toString().strip();
+            List<String> result = adbService.getCommandTransport().executeShell(deviceId, command).getOutput();
+            if (!result.isEmpty()) {
+                for (String line : result) {
+                    output.append(line).append('\n');
                 }
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+                return output.toString().strip();
             }
         } catch (IOException e) {
             throw new ADBShellExecutionException("Something went wrong during getting of parameter " + property +
@@ -98,4 +253,15 @@ public class AndroidDeviceInfo {
         }
         return "";
     }
+
+    /**
+     * Asynchronously retrieves the raw property value from the Android device.
+     *
+     * @param property the property to retrieve
+     * @return the future completed with the raw value of the property
+     * @see #getRawPropertyValue(String)
+     */
+    public CompletableFuture<String> getRawPropertyValueAsync(String property) {
+        return adbService.getAsyncExecutor().submit(deviceId, () -> getRawPropertyValue(property));
+    }
 }
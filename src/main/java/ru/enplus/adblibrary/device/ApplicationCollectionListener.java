@@ -0,0 +1,31 @@
+package ru.enplus.adblibrary.device;
+
+import ru.enplus.adblibrary.application.AndroidApplication;
+
+/**
+ * Progress callback of a parallel application properties collection.
+ * Callbacks are invoked on the worker threads, possibly concurrently, and should return quickly.
+ */
+public interface ApplicationCollectionListener {
+
+    /**
+     * Called when the permissions and hashes of an application were collected.
+     *
+     * @param application the application
+     * @param completed   the amount of applications finished so far, including failed ones
+     * @param total       the amount of applications being collected
+     */
+    default void applicationCollected(AndroidApplication application, int completed, int total) {
+    }
+
+    /**
+     * Called when the collection of an application failed; the collection goes on with the other applications.
+     *
+     * @param application the application
+     * @param error       the error the collection failed with
+     * @param completed   the amount of applications finished so far, including failed ones
+     * @param total       the amount of applications being collected
+     */
+    default void applicationFailed(AndroidApplication application, Throwable error, int completed, int total) {
+    }
+}
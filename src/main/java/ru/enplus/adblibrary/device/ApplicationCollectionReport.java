@@ -0,0 +1,45 @@
+package ru.enplus.adblibrary.device;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a parallel application properties collection: how many applications were collected and which ones failed.
+ */
+@Getter
+public class ApplicationCollectionReport {
+
+    private final int total;
+    private final int collected;
+
+    /**
+     * The package names of the failed applications with the errors they failed with.
+     */
+    private final Map<String, Throwable> failures;
+    private final Duration elapsed;
+
+    ApplicationCollectionReport(int total, int collected, Map<String, Throwable> failures, Duration elapsed) {
+        this.total = total;
+        this.collected = collected;
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Checks if the properties of every application were collected.
+     *
+     * @return true if no application failed, false otherwise
+     */
+    public boolean isComplete() {
+        return failures.isEmpty() && collected == total;
+    }
+
+    @Override
+    public String toString() {
+        return "Collected " + collected + "/" + total + " applications in " + elapsed.toMillis() + " ms, " + failures.size() + " failed";
+    }
+}
@@ -0,0 +1,51 @@
+package ru.enplus.adblibrary.device;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.application.AndroidApplication;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of an incremental inventory of a device: the packages installed, updated and removed since the previous
+ * inventory. Only the added and updated applications had their properties collected.
+ */
+@Getter
+public class InventoryDiff {
+
+    private final List<AndroidApplication> added;
+    private final List<AndroidApplication> updated;
+    private final List<PackageTombstone> removed;
+    private final int unchanged;
+
+    /**
+     * True if there was no previous inventory, or it was captured on another build of the device,
+     * so every application was collected.
+     */
+    private final boolean fullScan;
+    private final Duration elapsed;
+
+    InventoryDiff(List<AndroidApplication> added, List<AndroidApplication> updated, List<PackageTombstone> removed, int unchanged, boolean fullScan, Duration elapsed) {
+        this.added = List.copyOf(added);
+        this.updated = List.copyOf(updated);
+        this.removed = List.copyOf(removed);
+        this.unchanged = unchanged;
+        this.fullScan = fullScan;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Checks if any package was installed, updated or removed since the previous inventory.
+     *
+     * @return true if the package list changed, false otherwise
+     */
+    public boolean hasChanges() {
+        return !added.isEmpty() || !updated.isEmpty() || !removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return (fullScan ? "Full inventory: " : "Incremental inventory: ") + added.size() + " added, " + updated.size() + " updated, "
+                + removed.size() + " removed, " + unchanged + " unchanged in " + elapsed.toMillis() + " ms";
+    }
+}
@@ -0,0 +1,43 @@
+package ru.enplus.adblibrary.device;
+
+import lombok.Data;
+import ru.enplus.adblibrary.application.AndroidApplication;
+import ru.enplus.adblibrary.application.InstalledPackage;
+
+import java.time.Instant;
+
+/**
+ * Record of a package that was listed by the previous inventory of a device but is no longer installed.
+ */
+@Data
+public class PackageTombstone {
+
+    /**
+     * The package as it was last listed.
+     */
+    private final InstalledPackage lastListed;
+
+    /**
+     * The application with the properties collected before its removal, or null if none were collected.
+     */
+    private final AndroidApplication lastApplication;
+
+    /**
+     * The capture time of the inventory the package was last listed in.
+     */
+    private final Instant lastSeen;
+
+    /**
+     * The capture time of the inventory the package was found missing in.
+     */
+    private final Instant removedBefore;
+
+    /**
+     * Retrieves the package name of the removed package.
+     *
+     * @return the package name
+     */
+    public String getPackageName() {
+        return lastListed.getPackageName();
+    }
+}
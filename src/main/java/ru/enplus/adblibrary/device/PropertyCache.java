@@ -0,0 +1,303 @@
+package ru.enplus.adblibrary.device;
+
+import ru.enplus.adblibrary.enums.EPropertyVolatility;
+import ru.enplus.adblibrary.exceptions.ADBShellExecutionException;
+import ru.enplus.adblibrary.properties.AndroidDeviceProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Cache of property and property command values of a single device.
+ * Every entry lives as long as the time to live of its {@link EPropertyVolatility}; "ro.*" keys never expire.
+ * The cache is bounded: once it is full, the least recently used entry is evicted.
+ */
+public class PropertyCache {
+
+    /**
+     * Default maximum amount of cached entries.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private static final long NEVER_EXPIRES = Long.MAX_VALUE;
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+    private final Map<EPropertyVolatility, Duration> timesToLive = new EnumMap<>(EPropertyVolatility.class);
+    private final Map<String, EPropertyVolatility> volatilityOverrides = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Constructs a PropertyCache holding up to {@link #DEFAULT_MAX_ENTRIES} entries.
+     */
+    public PropertyCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructs a PropertyCache holding up to the specified amount of entries.
+     *
+     * @param maxEntries the maximum amount of cached entries
+     */
+    public PropertyCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PropertyCache.this.maxEntries) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        timesToLive.put(EPropertyVolatility.IMMUTABLE, null);
+        timesToLive.put(EPropertyVolatility.STABLE, Duration.ofMinutes(1));
+        timesToLive.put(EPropertyVolatility.VOLATILE, Duration.ofSeconds(5));
+        timesToLive.put(EPropertyVolatility.UNCACHED, Duration.ZERO);
+        for (String command : new String[]{
+                AndroidDeviceProperties.ANDROID_IMEI,
+                AndroidDeviceProperties.ANDROID_KERNEL_VERSION,
+                AndroidDeviceProperties.ANDROID_PROC_VERSION,
+                AndroidDeviceProperties.ANDROID_CPU_INFO,
+                AndroidDeviceProperties.ANDROID_WIFI_MAC_ADDRESS,
+                AndroidDeviceProperties.ANDROID_BLUETOOTH_MAC_ADDRESS}) {
+            volatilityOverrides.put(command, EPropertyVolatility.IMMUTABLE);
+        }
+    }
+
+    /**
+     * Loads the value of a property from the device on a cache miss.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * Reads the current value of a property from the device.
+         *
+         * @param property the property key or property command
+         * @return the current value
+         * @throws ADBShellExecutionException if the value could not be read
+         */
+        String load(String property) throws ADBShellExecutionException;
+    }
+
+    /**
+     * Retrieves the cached value of a property, loading and caching it if it is missing or expired.
+     *
+     * @param property the property key or property command
+     * @param loader   the loader reading the value from the device on a miss
+     * @return the value of the property
+     * @throws ADBShellExecutionException if the value had to be loaded and could not be read
+     */
+    public String get(String property, Loader loader) throws ADBShellExecutionException {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(property);
+            if (entry != null) {
+                if (entry.expiresAt == NEVER_EXPIRES || now - entry.expiresAt < 0) {
+                    hitCount.incrementAndGet();
+                    return entry.value;
+                }
+                entries.remove(property);
+                evictionCount.incrementAndGet();
+            }
+        }
+        missCount.incrementAndGet();
+        String value = loader.load(property);
+        Duration timeToLive = getTimeToLive(property);
+        if (timeToLive == null || !timeToLive.isZero()) {
+            long expiresAt = timeToLive == null ? NEVER_EXPIRES : System.nanoTime() + timeToLive.toNanos();
+            synchronized (entries) {
+                entries.put(property, new Entry(value, expiresAt));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Classifies a property: explicit overrides first, then "ro.*" keys as immutable, other keys as stable
+     * and shell command entries as volatile.
+     *
+     * @param property the property key or property command
+     * @return the volatility class of the property
+     */
+    public EPropertyVolatility getVolatility(String property) {
+        EPropertyVolatility volatility = volatilityOverrides.get(property);
+        if (volatility != null) {
+            return volatility;
+        }
+        if (!PropertySnapshot.isPropertyKey(property)) {
+            return EPropertyVolatility.VOLATILE;
+        }
+        return property.startsWith("ro.") ? EPropertyVolatility.IMMUTABLE : EPropertyVolatility.STABLE;
+    }
+
+    /**
+     * Overrides the volatility class of a single property, dropping its cached value.
+     *
+     * @param property   the property key or property command
+     * @param volatility the volatility class to apply
+     */
+    public void setVolatility(String property, EPropertyVolatility volatility) {
+        volatilityOverrides.put(property, volatility);
+        invalidate(property);
+    }
+
+    /**
+     * Retrieves the time to live of a property.
+     *
+     * @param property the property key or property command
+     * @return the time to live, null if the property never expires, zero if it is not cached
+     */
+    public Duration getTimeToLive(String property) {
+        return getTimeToLive(getVolatility(property));
+    }
+
+    /**
+     * Retrieves the time to live of a volatility class.
+     *
+     * @param volatility the volatility class
+     * @return the time to live, null if the entries never expire, zero if they are not cached
+     */
+    public Duration getTimeToLive(EPropertyVolatility volatility) {
+        synchronized (timesToLive) {
+            return timesToLive.get(volatility);
+        }
+    }
+
+    /**
+     * Sets the time to live of a volatility class; already cached entries keep their expiry time.
+     *
+     * @param volatility the volatility class
+     * @param timeToLive the time to live, null for entries that never expire, zero to stop caching them
+     */
+    public void setTimeToLive(EPropertyVolatility volatility, Duration timeToLive) {
+        synchronized (timesToLive) {
+            timesToLive.put(volatility, timeToLive);
+        }
+    }
+
+    /**
+     * Drops the cached value of a property.
+     *
+     * @param property the property key or property command
+     */
+    public void invalidate(String property) {
+        synchronized (entries) {
+            entries.remove(property);
+        }
+    }
+
+    /**
+     * Drops all cached values.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Drops the cached values of all properties matching the filter.
+     *
+     * @param filter the filter selecting the property keys and property commands to drop
+     */
+    public void invalidateMatching(Predicate<String> filter) {
+        synchronized (entries) {
+            entries.keySet().removeIf(filter);
+        }
+    }
+
+    /**
+     * Drops all cached values whose time to live has passed.
+     *
+     * @return the amount of dropped entries
+     */
+    public int evictExpired() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.expiresAt != NEVER_EXPIRES && now - entry.expiresAt >= 0) {
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+        }
+        evictionCount.addAndGet(evicted);
+        return evicted;
+    }
+
+    /**
+     * Retrieves the amount of currently cached entries.
+     *
+     * @return the amount of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Retrieves the amount of lookups served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Retrieves the amount of lookups that had to load the value from the device.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Retrieves the amount of entries dropped because they expired or the cache was full.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Resets the hit, miss and eviction counters.
+     */
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+    }
+
+    /**
+     * Cached value with its expiry time in {@link System#nanoTime()} units.
+     */
+    private static class Entry {
+
+        private final String value;
+        private final long expiresAt;
+
+        Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
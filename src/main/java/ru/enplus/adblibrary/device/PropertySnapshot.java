@@ -0,0 +1,231 @@
+package ru.enplus.adblibrary.device;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.transport.CommandTransport;
+import ru.enplus.adblibrary.util.ByteLine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable snapshot of all system properties of a device, captured with a single {@code getprop} call.
+ * Keys and values are kept in two sorted arrays and looked up by binary search.
+ */
+public class PropertySnapshot {
+
+    /**
+     * The shell command printing all system properties as "[key]: [value]" rows.
+     */
+    public static final String GETPROP_COMMAND = "getprop";
+
+    private final String[] keys;
+    private final String[] values;
+
+    /**
+     * The moment the snapshot was captured.
+     */
+    @Getter
+    private final Instant captureTime;
+
+    private PropertySnapshot(String[] keys, String[] values, Instant captureTime) {
+        this.keys = keys;
+        this.values = values;
+        this.captureTime = captureTime;
+    }
+
+    /**
+     * Captures the system properties of a device.
+     *
+     * @param transport the transport to run {@code getprop} through
+     * @param deviceId  the ID of the device
+     * @return the captured snapshot
+     * @throws IOException if the command could not be executed
+     */
+    public static PropertySnapshot capture(CommandTransport transport, String deviceId) throws IOException {
+        Parser parser = new Parser();
+        transport.streamShellBytes(deviceId, GETPROP_COMMAND, parser::accept);
+        return parser.build();
+    }
+
+    /**
+     * Parses the output of {@code getprop}.
+     *
+     * @param rows the output rows
+     * @return the parsed snapshot
+     */
+    public static PropertySnapshot parse(Iterable<String> rows) {
+        Parser parser = new Parser();
+        for (String row : rows) {
+            parser.accept(ByteLine.wrap(row.getBytes(StandardCharsets.UTF_8)));
+        }
+        return parser.build();
+    }
+
+    /**
+     * Checks if a property entry is a plain property key, as opposed to a shell command such as "cat /proc/meminfo".
+     *
+     * @param property the property entry
+     * @return true if the entry is a property key, false if it is a shell command
+     */
+    public static boolean isPropertyKey(String property) {
+        return !property.isEmpty() && property.indexOf(' ') < 0;
+    }
+
+    /**
+     * Retrieves the value of a property.
+     *
+     * @param key the property key
+     * @return the value, or null if the device has no such property
+     */
+    public String get(String key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    /**
+     * Retrieves the value of a property, falling back to a default.
+     *
+     * @param key          the property key
+     * @param defaultValue the value returned if the device has no such property
+     * @return the value or the default
+     */
+    public String getString(String key, String defaultValue) {
+        String value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Retrieves the value of a property as an int (e.g. "ro.build.version.sdk").
+     *
+     * @param key          the property key
+     * @param defaultValue the value returned if the property is missing or not a number
+     * @return the parsed value or the default
+     */
+    public int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    /**
+     * Retrieves the value of a property as a long (e.g. "ro.build.date.utc").
+     *
+     * @param key          the property key
+     * @param defaultValue the value returned if the property is missing or not a number
+     * @return the parsed value or the default
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.strip());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Retrieves the value of a property as a boolean, accepting "1"/"0", "true"/"false" and "yes"/"no" like Android does.
+     *
+     * @param key          the property key
+     * @param defaultValue the value returned if the property is missing or not a boolean
+     * @return the parsed value or the default
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return switch (value.strip()) {
+            case "1", "y", "yes", "on", "true" -> true;
+            case "0", "n", "no", "off", "false" -> false;
+            default -> defaultValue;
+        };
+    }
+
+    /**
+     * Checks if the device has a property.
+     *
+     * @param key the property key
+     * @return true if the property exists, false otherwise
+     */
+    public boolean contains(String key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    /**
+     * Retrieves the amount of properties in the snapshot.
+     *
+     * @return the amount of properties
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Retrieves the properties as a read-only map sorted by key.
+     *
+     * @return the properties
+     */
+    public Map<String, String> asMap() {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], values[i]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Incremental parser of "[key]: [value]" rows. A value containing line breaks spans several rows
+     * and is closed by the row ending with ']'.
+     */
+    private static class Parser {
+
+        private static final byte[] SEPARATOR = ByteLine.ascii("]: [");
+
+        private final TreeMap<String, String> properties = new TreeMap<>();
+        private String openKey;
+        private StringBuilder openValue;
+
+        boolean accept(ByteLine row) {
+            if (openKey != null) {
+                boolean closed = row.length() > 0 && row.byteAt(row.length() - 1) == ']';
+                openValue.append('\n').append(row.decode(0, closed ? row.length() - 1 : row.length()));
+                if (closed) {
+                    properties.put(openKey, openValue.toString());
+                    openKey = null;
+                    openValue = null;
+                }
+                return true;
+            }
+            if (row.length() == 0 || row.byteAt(0) != '[') {
+                return true;
+            }
+            int separator = row.indexOf(SEPARATOR, 1);
+            if (separator < 0) {
+                return true;
+            }
+            String key = row.decode(1, separator);
+            int valueStart = separator + SEPARATOR.length;
+            if (row.length() > valueStart && row.byteAt(row.length() - 1) == ']') {
+                properties.put(key, row.decode(valueStart, row.length() - 1));
+            } else {
+                openKey = key;
+                openValue = new StringBuilder(row.decode(valueStart, row.length()));
+            }
+            return true;
+        }
+
+        PropertySnapshot build() {
+            String[] keys = properties.keySet().toArray(new String[0]);
+            String[] values = properties.values().toArray(new String[0]);
+            return new PropertySnapshot(keys, values, Instant.now());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.enplus.adblibrary.device;
+
+import ru.enplus.adblibrary.connection.ADBService;
+import ru.enplus.adblibrary.exceptions.ADBException;
+import ru.enplus.adblibrary.transport.ScriptedCommandTransport;
+
+import java.time.Duration;
+
+/**
+ * Startup-latency benchmark of {@link AndroidDevice} against a {@link ScriptedCommandTransport} with per-command
+ * latencies: compares the sequential eager constructor with {@link AndroidDevice#load(boolean)} and measures how
+ * soon a failing getprop aborts a load. Run it with
+ * {@code java -cp target/classes ru.enplus.adblibrary.device.StartupBenchmark [iterations]}.
+ */
+public final class StartupBenchmark {
+
+    private static final String DEVICE_ID = "emulator-5554";
+    private static final Duration DEVICES_LATENCY = Duration.ofMillis(60);
+    private static final Duration GETPROP_LATENCY = Duration.ofMillis(80);
+    private static final Duration PACKAGES_LATENCY = Duration.ofMillis(120);
+    private static final int PACKAGES = 300;
+    private static final int WARMUP_ITERATIONS = 3;
+
+    private StartupBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the average startup latencies.
+     *
+     * @param args the amount of measured iterations, 10 by default
+     * @throws Exception if a device could not be constructed
+     */
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        ScriptedCommandTransport transport = new ScriptedCommandTransport();
+        transport.addDevice(DEVICE_ID);
+        transport.setProperty(DEVICE_ID, "ro.build.version.release", "13");
+        StringBuilder packages = new StringBuilder();
+        for (int i = 0; i < PACKAGES; i++) {
+            packages.append("package:/data/app/com.example").append(i).append("/base.apk=com.example").append(i).append('\n');
+        }
+        transport.setShellOutput(DEVICE_ID, "pm list packages -f", packages.toString());
+        transport.setLatency("devices", DEVICES_LATENCY);
+        transport.setLatency("getprop", GETPROP_LATENCY);
+        transport.setLatency("pm list", PACKAGES_LATENCY);
+        ADBService adbService = new ADBService(transport);
+        try {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                new AndroidDevice(DEVICE_ID, adbService, false);
+                new AndroidDevice(DEVICE_ID, adbService).load(false);
+            }
+            long sequential = 0;
+            long concurrent = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                new AndroidDevice(DEVICE_ID, adbService, false);
+                sequential += System.nanoTime() - start;
+                start = System.nanoTime();
+                new AndroidDevice(DEVICE_ID, adbService).load(false);
+                concurrent += System.nanoTime() - start;
+            }
+            System.out.printf("Latencies: devices %d ms, getprop %d ms, pm list %d ms%n",
+                    DEVICES_LATENCY.toMillis(), GETPROP_LATENCY.toMillis(), PACKAGES_LATENCY.toMillis());
+            System.out.printf("Sequential constructor: %.1f ms%n", sequential / (iterations * 1e6));
+            System.out.printf("load(false): %.1f ms%n", concurrent / (iterations * 1e6));
+
+            transport.setShellFailure(DEVICE_ID, "getprop", "connection reset");
+            long aborted = 0;
+            for (int i = -WARMUP_ITERATIONS; i < iterations; i++) {
+                long start = System.nanoTime();
+                try {
+                    new AndroidDevice(DEVICE_ID, adbService).load(false);
+                    throw new IllegalStateException("load(false) with a failing getprop did not fail");
+                } catch (ADBException e) {
+                    if (i >= 0) {
+                        aborted += System.nanoTime() - start;
+                    }
+                }
+            }
+            System.out.printf("load(false) with a failing getprop: aborted after %.1f ms%n", aborted / (iterations * 1e6));
+        } finally {
+            adbService.getAsyncExecutor().close();
+        }
+    }
+}
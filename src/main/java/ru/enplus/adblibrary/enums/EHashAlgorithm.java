@@ -0,0 +1,45 @@
+package ru.enplus.adblibrary.enums;
+
+import lombok.Getter;
+
+/**
+ * Enum representing the hash algorithms collected for Android applications,
+ * with the on-device tool and the {@link java.security.MessageDigest} algorithm computing them.
+ */
+@Getter
+public enum EHashAlgorithm {
+    /**
+     * SHA-1, computed on the device by sha1sum since Android 6.0.
+     */
+    SHA1("sha1sum", "SHA-1", 6.0f),
+
+    /**
+     * SHA-256, computed on the device by sha256sum since Android 8.0.
+     */
+    SHA256("sha256sum", "SHA-256", 8.0f),
+
+    /**
+     * SHA-512, computed on the device by sha512sum since Android 8.0.
+     */
+    SHA512("sha512sum", "SHA-512", 8.0f);
+
+    private final String shellCommand;
+    private final String digestAlgorithm;
+    private final float minimumAndroidVersion;
+
+    EHashAlgorithm(String shellCommand, String digestAlgorithm, float minimumAndroidVersion) {
+        this.shellCommand = shellCommand;
+        this.digestAlgorithm = digestAlgorithm;
+        this.minimumAndroidVersion = minimumAndroidVersion;
+    }
+
+    /**
+     * Checks if the device is able to compute the hash itself.
+     *
+     * @param versionNumeric the numeric Android version of the device
+     * @return true if the shell command is available on the device, false otherwise
+     */
+    public boolean isAvailableOnDevice(float versionNumeric) {
+        return versionNumeric >= minimumAndroidVersion;
+    }
+}
@@ -0,0 +1,90 @@
+package ru.enplus.adblibrary.enums;
+
+import lombok.Getter;
+
+/**
+ * Enum representing the group of a dangerous Android permission, the unit the user grants permissions in.
+ */
+@Getter
+public enum EPermissionGroup {
+    /**
+     * Calendar permissions.
+     */
+    CALENDAR("android.permission-group.CALENDAR"),
+
+    /**
+     * Call log permissions, part of the phone group before Android 9.
+     */
+    CALL_LOG("android.permission-group.CALL_LOG"),
+
+    /**
+     * Camera permissions.
+     */
+    CAMERA("android.permission-group.CAMERA"),
+
+    /**
+     * Contacts and accounts permissions.
+     */
+    CONTACTS("android.permission-group.CONTACTS"),
+
+    /**
+     * Location permissions.
+     */
+    LOCATION("android.permission-group.LOCATION"),
+
+    /**
+     * Microphone permissions.
+     */
+    MICROPHONE("android.permission-group.MICROPHONE"),
+
+    /**
+     * Bluetooth, Wi-Fi and ultra-wideband device discovery permissions.
+     */
+    NEARBY_DEVICES("android.permission-group.NEARBY_DEVICES"),
+
+    /**
+     * Notification permissions.
+     */
+    NOTIFICATIONS("android.permission-group.NOTIFICATIONS"),
+
+    /**
+     * Physical activity permissions.
+     */
+    ACTIVITY_RECOGNITION("android.permission-group.ACTIVITY_RECOGNITION"),
+
+    /**
+     * Telephony permissions.
+     */
+    PHONE("android.permission-group.PHONE"),
+
+    /**
+     * Body sensor permissions.
+     */
+    SENSORS("android.permission-group.SENSORS"),
+
+    /**
+     * SMS and MMS permissions.
+     */
+    SMS("android.permission-group.SMS"),
+
+    /**
+     * Shared storage and media permissions.
+     */
+    STORAGE("android.permission-group.STORAGE"),
+
+    /**
+     * Vehicle data permissions of Google Play services.
+     */
+    CAR_INFORMATION("com.google.android.gms.permission-group.CAR_INFORMATION"),
+
+    /**
+     * No group; normal and signature permissions are not grouped.
+     */
+    UNDEFINED("android.permission-group.UNDEFINED");
+
+    private final String groupName;
+
+    EPermissionGroup(String groupName) {
+        this.groupName = groupName;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.enplus.adblibrary.enums;
+
+/**
+ * Enum representing the permission sets kept for an Android application.
+ */
+public enum EPermissionSet {
+    /**
+     * Permissions the application requests in its manifest.
+     */
+    REQUESTED,
+
+    /**
+     * Install-time permissions of the application.
+     */
+    INSTALL,
+
+    /**
+     * Runtime permissions of the application.
+     */
+    RUNTIME,
+
+    /**
+     * Install-time and runtime permissions that are granted to the application.
+     */
+    GRANTED,
+
+    /**
+     * Requested, install-time and runtime permissions that are dangerous.
+     */
+    DANGEROUS
+}
@@ -0,0 +1,26 @@
+package ru.enplus.adblibrary.enums;
+
+/**
+ * Enum representing how often a device property or property command changes, which defines how long it is cached.
+ */
+public enum EPropertyVolatility {
+    /**
+     * Never changes while the device is running (e.g. "ro.*" keys, kernel version); cached forever.
+     */
+    IMMUTABLE,
+
+    /**
+     * Changes rarely (e.g. "persist.*" keys, SIM state); cached for minutes.
+     */
+    STABLE,
+
+    /**
+     * Changes constantly (e.g. battery level, memory info, uptime); cached for seconds.
+     */
+    VOLATILE,
+
+    /**
+     * Must be read from the device on every lookup; never cached.
+     */
+    UNCACHED
+}
@@ -0,0 +1,27 @@
+package ru.enplus.adblibrary.enums;
+
+/**
+ * Enum representing the base protection level of an Android permission.
+ */
+public enum EProtectionLevel {
+    /**
+     * Permission granted at install time without asking the user.
+     */
+    NORMAL,
+
+    /**
+     * Permission guarding private data or device features, granted by the user at runtime since Android 6.0.
+     */
+    DANGEROUS,
+
+    /**
+     * Permission granted only to applications signed with the platform key or installed as privileged,
+     * including signature permissions also grantable through app ops or development tools.
+     */
+    SIGNATURE,
+
+    /**
+     * Permission the registry has no metadata for, e.g. one defined by an application.
+     */
+    UNKNOWN
+}
@@ -0,0 +1,83 @@
+package ru.enplus.adblibrary.fleet;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits how many device operations run at once, both in total and per device.
+ * A device permit is always taken before the global one, so a device busy with its own operations
+ * never holds global permits while it waits.
+ */
+public class DeviceConcurrencyLimiter {
+
+    @Getter
+    private final int maxConcurrency;
+
+    @Getter
+    private final int maxConcurrencyPerDevice;
+
+    private final Semaphore globalPermits;
+    private final Map<String, Semaphore> devicePermits = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a DeviceConcurrencyLimiter.
+     *
+     * @param maxConcurrency          the maximum amount of operations running at once across all devices
+     * @param maxConcurrencyPerDevice the maximum amount of operations running at once on a single device
+     */
+    public DeviceConcurrencyLimiter(int maxConcurrency, int maxConcurrencyPerDevice) {
+        if (maxConcurrency < 1 || maxConcurrencyPerDevice < 1) {
+            throw new IllegalArgumentException("Concurrency limits must be positive");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxConcurrencyPerDevice = maxConcurrencyPerDevice;
+        this.globalPermits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Runs an operation on a device once both a device permit and a global permit are available.
+     *
+     * @param deviceId the ID of the device the operation runs on
+     * @param task     the operation
+     * @param <T>      the result type of the operation
+     * @return the result of the operation
+     * @throws InterruptedException if the calling thread was interrupted while waiting for a permit
+     * @throws Exception            if the operation failed
+     */
+    public <T> T call(String deviceId, Callable<T> task) throws Exception {
+        Semaphore device = devicePermits.computeIfAbsent(deviceId, id -> new Semaphore(maxConcurrencyPerDevice, true));
+        device.acquire();
+        try {
+            globalPermits.acquire();
+            try {
+                return task.call();
+            } finally {
+                globalPermits.release();
+            }
+        } finally {
+            device.release();
+        }
+    }
+
+    /**
+     * Retrieves the amount of operations that can start right now across all devices.
+     *
+     * @return the amount of free global permits
+     */
+    public int getAvailablePermits() {
+        return globalPermits.availablePermits();
+    }
+
+    /**
+     * Forgets the permits of a device that left the fleet.
+     *
+     * @param deviceId the ID of the device
+     */
+    public void removeDevice(String deviceId) {
+        devicePermits.remove(deviceId);
+    }
+}
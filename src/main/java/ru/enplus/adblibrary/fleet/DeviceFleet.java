@@ -0,0 +1,268 @@
+package ru.enplus.adblibrary.fleet;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.application.AndroidApplication;
+import ru.enplus.adblibrary.connection.ADBService;
+import ru.enplus.adblibrary.device.AndroidDevice;
+import ru.enplus.adblibrary.enums.EHashAlgorithm;
+import ru.enplus.adblibrary.exceptions.AndroidDeviceNotAvailableException;
+import ru.enplus.adblibrary.util.AsyncDeviceExecutor;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Logger;
+
+/**
+ * Owns many Android devices of one ADB service and runs operations across them concurrently,
+ * under a global and a per-device concurrency cap:
+ * <pre>
+ *     try (DeviceFleet fleet = new DeviceFleet(adbService, 32, 2)) {
+ *         fleet.connectAll().awaitAll();
+ *         for (FleetResult&lt;String&gt; result : fleet.queryProperty(AndroidDeviceProperties.ANDROID_VERSION)) {
+ *             System.out.println(result);
+ *         }
+ *     }
+ * </pre>
+ */
+public class DeviceFleet implements Closeable {
+
+    @Getter
+    private final ADBService adbService;
+
+    @Getter
+    private final DeviceConcurrencyLimiter limiter;
+
+    private final Map<String, AndroidDevice> devices = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final Logger fleetLogger = Logger.getLogger("DeviceFleetLogger");
+
+    /**
+     * Constructs a DeviceFleet.
+     *
+     * @param adbService              the ADB service the devices are reached through
+     * @param maxConcurrency          the maximum amount of operations running at once across the fleet
+     * @param maxConcurrencyPerDevice the maximum amount of operations running at once on a single device
+     */
+    public DeviceFleet(ADBService adbService, int maxConcurrency, int maxConcurrencyPerDevice) {
+        this.adbService = adbService;
+        this.limiter = new DeviceConcurrencyLimiter(maxConcurrency, maxConcurrencyPerDevice);
+        this.workers = AsyncDeviceExecutor.newTaskExecutor("adb-fleet-worker");
+    }
+
+    /**
+     * Connects all devices the ADB service reports as available.
+     *
+     * @return the running connection, yielding each device once it joined the fleet
+     */
+    public FleetExecution<AndroidDevice> connectAll() {
+        return connect(adbService.getAvailableDevices(), 0);
+    }
+
+    /**
+     * Constructs the specified devices concurrently and adds each one to the fleet once it is constructed.
+     * Devices already in the fleet are constructed again and replaced.
+     *
+     * @param deviceIds           the IDs of the devices
+     * @param appsListRestriction the maximum number of applications to list per device; zero lists all of them
+     * @return the running connection, yielding each device once it joined the fleet
+     */
+    public FleetExecution<AndroidDevice> connect(Collection<String> deviceIds, int appsListRestriction) {
+        return submit(deviceIds, deviceId -> {
+            AndroidDevice device = new AndroidDevice(deviceId, adbService, appsListRestriction, false);
+            devices.put(deviceId, device);
+            return device;
+        });
+    }
+
+    /**
+     * Adds lazy handles of the specified devices to the fleet without sending any command to them,
+     * see {@link AndroidDevice#AndroidDevice(String, ADBService)}. Devices already in the fleet are kept.
+     *
+     * @param deviceIds the IDs of the devices
+     * @return the devices of the fleet with the specified IDs
+     */
+    public List<AndroidDevice> attach(Collection<String> deviceIds) {
+        List<AndroidDevice> attached = new ArrayList<>(deviceIds.size());
+        for (String deviceId : deviceIds) {
+            attached.add(devices.computeIfAbsent(deviceId, id -> new AndroidDevice(id, adbService)));
+        }
+        return attached;
+    }
+
+    /**
+     * Adds an already constructed device to the fleet.
+     *
+     * @param device the device to add
+     */
+    public void addDevice(AndroidDevice device) {
+        devices.put(device.getDeviceId(), device);
+    }
+
+    /**
+     * Removes a device from the fleet.
+     *
+     * @param deviceId the ID of the device
+     */
+    public void removeDevice(String deviceId) {
+        devices.remove(deviceId);
+        limiter.removeDevice(deviceId);
+    }
+
+    /**
+     * Retrieves a device of the fleet.
+     *
+     * @param deviceId the ID of the device
+     * @return the device, or null if it is not part of the fleet
+     */
+    public AndroidDevice getDevice(String deviceId) {
+        return devices.get(deviceId);
+    }
+
+    /**
+     * Retrieves the IDs of all devices of the fleet.
+     *
+     * @return the device IDs
+     */
+    public List<String> getDeviceIds() {
+        return new ArrayList<>(devices.keySet());
+    }
+
+    /**
+     * Retrieves the amount of devices in the fleet.
+     *
+     * @return the amount of devices
+     */
+    public int size() {
+        return devices.size();
+    }
+
+    /**
+     * Runs an operation on every device of the fleet.
+     *
+     * @param operation the operation
+     * @param <T>       the result type of the operation
+     * @return the running operation, yielding per-device results as they complete
+     */
+    public <T> FleetExecution<T> execute(DeviceOperation<T> operation) {
+        return execute(getDeviceIds(), operation);
+    }
+
+    /**
+     * Runs an operation on the specified devices of the fleet; devices that are not part of the fleet fail
+     * with an AndroidDeviceNotAvailableException.
+     *
+     * @param deviceIds the IDs of the devices
+     * @param operation the operation
+     * @param <T>       the result type of the operation
+     * @return the running operation, yielding per-device results as they complete
+     */
+    public <T> FleetExecution<T> execute(Collection<String> deviceIds, DeviceOperation<T> operation) {
+        return submit(deviceIds, deviceId -> {
+            AndroidDevice device = devices.get(deviceId);
+            if (device == null) {
+                throw new AndroidDeviceNotAvailableException("Android device " + deviceId + " is not part of the fleet!");
+            }
+            return operation.execute(device);
+        });
+    }
+
+    /**
+     * Lists the installed applications of every device again and stores them on the devices.
+     *
+     * @return the running inventory, yielding the application list of each device
+     */
+    public FleetExecution<ArrayList<AndroidApplication>> inventory() {
+        return execute(AndroidDevice::refreshApplications);
+    }
+
+    /**
+     * Installs an application on every device.
+     *
+     * @param apkPath the path to the APK file
+     * @return the running installation, yielding whether the installation succeeded on each device
+     */
+    public FleetExecution<Boolean> install(String apkPath) {
+        return execute(device -> device.installAppFromApk(apkPath));
+    }
+
+    /**
+     * Grants a permission to an application on every device.
+     *
+     * @param applicationPackage the package name of the application
+     * @param permission         the permission to grant
+     * @return the running operation, yielding true for each device the permission was granted on
+     */
+    public FleetExecution<Boolean> grantPermission(String applicationPackage, String permission) {
+        return execute(device -> {
+            device.grantPermissionShellOnly(applicationPackage, permission);
+            return true;
+        });
+    }
+
+    /**
+     * Reads a property or property command on every device.
+     *
+     * @param property the property to read (see {@link ru.enplus.adblibrary.properties.AndroidDeviceProperties})
+     * @return the running query, yielding the property value of each device
+     */
+    public FleetExecution<String> queryProperty(String property) {
+        return execute(device -> device.getRawPropertyValue(property));
+    }
+
+    /**
+     * Collects the selected hashes of the applications of every device, hashing identical APK copies only once.
+     * Copies with the same build fingerprint, path and size are grouped; one representative per group is hashed,
+     * the specified share of the other copies is hashed to verify it, and its hashes are fanned out to the rest.
+     * Groups that fail verification are hashed copy by copy.
+     *
+     * @param algorithms       the hash algorithms to compute
+     * @param verificationRate the share of duplicate copies hashed for verification, from 0 to 1
+     * @return the report of the collection, returned once every device finished
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public FleetHashReport collectApplicationHashes(Set<EHashAlgorithm> algorithms, double verificationRate) throws InterruptedException {
+        return new FleetHashDeduplicator(this, algorithms, verificationRate).run();
+    }
+
+    /**
+     * Stops the fleet workers, interrupting running operations.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Submits one task per device under the concurrency limits.
+     */
+    private <T> FleetExecution<T> submit(Collection<String> deviceIds, DeviceTask<T> deviceTask) {
+        List<String> targets = List.copyOf(deviceIds);
+        FleetExecution<T> execution = new FleetExecution<>(targets.size());
+        for (String deviceId : targets) {
+            FleetExecution<T>.Task task = execution.addTask(deviceId);
+            task.setFuture(workers.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    T value = limiter.call(deviceId, () -> deviceTask.run(deviceId));
+                    task.deliver(new FleetResult<>(deviceId, value, null, Duration.ofNanos(System.nanoTime() - start)));
+                } catch (Throwable e) {
+                    fleetLogger.fine("Fleet operation failed on " + deviceId + ": " + e);
+                    task.deliver(new FleetResult<>(deviceId, null, e, Duration.ofNanos(System.nanoTime() - start)));
+                }
+            }));
+        }
+        return execution;
+    }
+
+    @FunctionalInterface
+    private interface DeviceTask<T> {
+        T run(String deviceId) throws Exception;
+    }
+}
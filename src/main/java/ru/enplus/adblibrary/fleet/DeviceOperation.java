@@ -0,0 +1,21 @@
+package ru.enplus.adblibrary.fleet;
+
+import ru.enplus.adblibrary.device.AndroidDevice;
+
+/**
+ * Operation run by a {@link DeviceFleet} on each of its devices.
+ *
+ * @param <T> the result type of the operation
+ */
+@FunctionalInterface
+public interface DeviceOperation<T> {
+
+    /**
+     * Runs the operation on a single device.
+     *
+     * @param device the device
+     * @return the result for the device
+     * @throws Exception if the operation failed on the device
+     */
+    T execute(AndroidDevice device) throws Exception;
+}
@@ -0,0 +1,190 @@
+package ru.enplus.adblibrary.fleet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Running fleet operation whose per-device results are handed out in completion order,
+ * so that a slow device never holds back the results of the others.
+ *
+ * @param <T> the result type of the operation
+ */
+public class FleetExecution<T> implements Iterable<FleetResult<T>> {
+
+    private final int total;
+    private final BlockingQueue<FleetResult<T>> completed = new LinkedBlockingQueue<>();
+    private final List<Task> tasks = new ArrayList<>();
+    private final AtomicInteger taken = new AtomicInteger();
+
+    FleetExecution(int total) {
+        this.total = total;
+    }
+
+    /**
+     * Retrieves the amount of devices the operation runs on.
+     *
+     * @return the amount of devices
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Checks if every device delivered its result.
+     *
+     * @return true if all results are available, false otherwise
+     */
+    public boolean isDone() {
+        synchronized (tasks) {
+            return tasks.stream().allMatch(task -> task.delivered.get());
+        }
+    }
+
+    /**
+     * Waits for the next device to complete.
+     *
+     * @return the next result, or null once all results were taken
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    public FleetResult<T> next() throws InterruptedException {
+        if (taken.get() >= total) {
+            return null;
+        }
+        FleetResult<T> result = completed.take();
+        taken.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Waits a bounded time for the next device to complete.
+     *
+     * @param timeout the time to wait
+     * @return the next result, or null if all results were taken or none arrived in time
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    public FleetResult<T> next(Duration timeout) throws InterruptedException {
+        if (taken.get() >= total) {
+            return null;
+        }
+        FleetResult<T> result = completed.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        if (result != null) {
+            taken.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Waits for all remaining results.
+     *
+     * @return the remaining results in completion order
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    public List<FleetResult<T>> awaitAll() throws InterruptedException {
+        List<FleetResult<T>> results = new ArrayList<>();
+        FleetResult<T> result;
+        while ((result = next()) != null) {
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Cancels the operation on every device that did not complete yet; those devices report a CancellationException.
+     */
+    public void cancel() {
+        synchronized (tasks) {
+            for (Task task : tasks) {
+                Future<?> future = task.future;
+                if (future != null) {
+                    future.cancel(true);
+                }
+                task.deliver(new FleetResult<>(task.deviceId, null, new CancellationException("Fleet operation was cancelled"), Duration.ZERO));
+            }
+        }
+    }
+
+    /**
+     * Iterates the results in completion order, blocking until each one is available.
+     * An interrupt while waiting ends the iteration and keeps the interrupt flag set.
+     *
+     * @return the blocking iterator of results
+     */
+    @Override
+    public Iterator<FleetResult<T>> iterator() {
+        return new Iterator<>() {
+            private FleetResult<T> upcoming;
+
+            @Override
+            public boolean hasNext() {
+                if (upcoming == null) {
+                    try {
+                        upcoming = FleetExecution.this.next();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+                return upcoming != null;
+            }
+
+            @Override
+            public FleetResult<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FleetResult<T> result = upcoming;
+                upcoming = null;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Registers the task of a device, created before it is submitted.
+     */
+    Task addTask(String deviceId) {
+        Task task = new Task(deviceId);
+        synchronized (tasks) {
+            tasks.add(task);
+        }
+        return task;
+    }
+
+    /**
+     * Work of a single device; its result is delivered exactly once, even if it races a cancellation.
+     */
+    class Task {
+
+        private final String deviceId;
+        private final AtomicBoolean delivered = new AtomicBoolean();
+        private volatile Future<?> future;
+
+        Task(String deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        String getDeviceId() {
+            return deviceId;
+        }
+
+        void setFuture(Future<?> future) {
+            this.future = future;
+        }
+
+        void deliver(FleetResult<T> result) {
+            if (delivered.compareAndSet(false, true)) {
+                completed.add(result);
+            }
+        }
+    }
+}
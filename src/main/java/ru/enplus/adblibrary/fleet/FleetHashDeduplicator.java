@@ -0,0 +1,235 @@
+package ru.enplus.adblibrary.fleet;
+
+import ru.enplus.adblibrary.application.AndroidApplication;
+import ru.enplus.adblibrary.connection.SyncFileEntry;
+import ru.enplus.adblibrary.device.AndroidDevice;
+import ru.enplus.adblibrary.enums.EHashAlgorithm;
+import ru.enplus.adblibrary.exceptions.ADBException;
+import ru.enplus.adblibrary.properties.AndroidDeviceProperties;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * Fleet-wide hash collection hashing identical APK copies only once. Devices with the same build fingerprint ship
+ * byte-identical system images, so copies with the same fingerprint, path and size are grouped; one representative
+ * per group is hashed, a sample of the other copies is hashed to verify it, and the hashes are fanned out to every
+ * copy of the group. Groups whose samples disagree with the representative are hashed copy by copy.
+ */
+class FleetHashDeduplicator {
+
+    private final DeviceFleet fleet;
+    private final Set<EHashAlgorithm> algorithms;
+    private final double verificationRate;
+    private final Logger deduplicatorLogger = Logger.getLogger("FleetHashDeduplicatorLogger");
+
+    private final Map<String, Throwable> failures = new LinkedHashMap<>();
+    private int hashed;
+    private int fannedOut;
+    private int verified;
+    private int mismatchedGroups;
+
+    /**
+     * @param fleet            the fleet to hash the applications of
+     * @param algorithms       the hash algorithms to compute
+     * @param verificationRate the share of the duplicate copies of a group hashed to verify its representative,
+     *                         from 0 (trust the representative) to 1 (hash every copy)
+     */
+    FleetHashDeduplicator(DeviceFleet fleet, Set<EHashAlgorithm> algorithms, double verificationRate) {
+        this.fleet = fleet;
+        this.algorithms = algorithms;
+        this.verificationRate = Math.max(0, Math.min(1, verificationRate));
+    }
+
+    /**
+     * Identity of an APK copy shared by the copies of a system image.
+     */
+    private record CopyKey(String fingerprint, String path, long size) {
+    }
+
+    /**
+     * An application on a device of the fleet.
+     */
+    private record Copy(String deviceId, AndroidApplication application) {
+    }
+
+    FleetHashReport run() throws InterruptedException {
+        long start = System.nanoTime();
+        Map<CopyKey, List<Copy>> groups = new LinkedHashMap<>();
+        List<Copy> unidentified = new ArrayList<>();
+        int applications = identifyCopies(groups, unidentified);
+
+        Map<String, List<AndroidApplication>> work = new HashMap<>();
+        Map<CopyKey, Copy> representatives = new HashMap<>();
+        Map<CopyKey, List<Copy>> samples = new HashMap<>();
+        int duplicateGroups = 0;
+        for (Copy copy : unidentified) {
+            assign(work, copy);
+        }
+        for (Map.Entry<CopyKey, List<Copy>> group : groups.entrySet()) {
+            List<Copy> copies = new ArrayList<>(group.getValue());
+            if (copies.size() == 1) {
+                assign(work, copies.get(0));
+                continue;
+            }
+            duplicateGroups++;
+            Collections.shuffle(copies, ThreadLocalRandom.current());
+            Copy representative = copies.get(0);
+            for (Copy copy : copies) {
+                if (load(work, copy) < load(work, representative)) {
+                    representative = copy;
+                }
+            }
+            copies.remove(representative);
+            representatives.put(group.getKey(), representative);
+            assign(work, representative);
+            int sampleSize = (int) Math.ceil(verificationRate * copies.size());
+            List<Copy> sample = new ArrayList<>(copies.subList(0, sampleSize));
+            samples.put(group.getKey(), sample);
+            for (Copy copy : sample) {
+                assign(work, copy);
+            }
+        }
+        hash(work);
+
+        Map<String, List<AndroidApplication>> remaining = new HashMap<>();
+        for (Map.Entry<CopyKey, Copy> entry : representatives.entrySet()) {
+            Copy representative = entry.getValue();
+            List<Copy> sample = samples.get(entry.getKey());
+            List<Copy> others = new ArrayList<>(groups.get(entry.getKey()));
+            others.remove(representative);
+            others.removeAll(sample);
+            boolean trusted = !failures.containsKey(representative.deviceId());
+            for (Copy copy : sample) {
+                if (failures.containsKey(copy.deviceId())) {
+                    continue;
+                }
+                verified++;
+                if (!sameHashes(representative.application(), copy.application())) {
+                    deduplicatorLogger.warning("Copies of " + entry.getKey().path() + " on " + representative.deviceId() + " and " + copy.deviceId()
+                            + " have different hashes despite the same build fingerprint, hashing every copy");
+                    trusted = false;
+                }
+            }
+            if (!trusted) {
+                mismatchedGroups += failures.containsKey(representative.deviceId()) ? 0 : 1;
+                for (Copy copy : others) {
+                    assign(remaining, copy);
+                }
+                continue;
+            }
+            for (Copy copy : others) {
+                copyHashes(representative.application(), copy.application());
+                fannedOut++;
+            }
+        }
+        hash(remaining);
+        return new FleetHashReport(applications, duplicateGroups, hashed, fannedOut, verified, mismatchedGroups, failures,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Lists the applications of every device, reads the build fingerprint and the APK file sizes and groups the
+     * identical copies. Devices whose applications can not be listed are recorded as failed; applications of devices
+     * whose copies can not be identified are hashed copy by copy.
+     *
+     * @return the amount of applications across all devices
+     */
+    private int identifyCopies(Map<CopyKey, List<Copy>> groups, List<Copy> unidentified) throws InterruptedException {
+        record Identity(List<AndroidApplication> applications, String fingerprint, Map<String, SyncFileEntry> files) {
+        }
+        int applications = 0;
+        for (FleetResult<Identity> result : fleet.execute(device -> {
+            List<AndroidApplication> deviceApplications = device.getApplications();
+            try {
+                return new Identity(deviceApplications, device.getRawPropertyValue(AndroidDeviceProperties.ANDROID_BUILD_FINGERPRINT),
+                        device.statApplicationFiles());
+            } catch (IOException | ADBException e) {
+                deduplicatorLogger.info("Unable to identify the apk files of " + device.getDeviceId() + ", hashing every copy: " + e.getMessage());
+                return new Identity(deviceApplications, "", Map.of());
+            }
+        }).awaitAll()) {
+            if (!result.isSuccessful()) {
+                failures.put(result.getDeviceId(), result.getError());
+                continue;
+            }
+            Identity identity = result.getValue();
+            applications += identity.applications().size();
+            for (AndroidApplication application : identity.applications()) {
+                Copy copy = new Copy(result.getDeviceId(), application);
+                SyncFileEntry file = identity.files().get(application.getPath());
+                if (file == null || identity.fingerprint().isEmpty()) {
+                    unidentified.add(copy);
+                    continue;
+                }
+                groups.computeIfAbsent(new CopyKey(identity.fingerprint(), application.getPath(), file.getSize()), key -> new ArrayList<>()).add(copy);
+            }
+        }
+        return applications;
+    }
+
+    /**
+     * Hashes the assigned applications of every device, one batched collection per device, all devices in parallel.
+     */
+    private void hash(Map<String, List<AndroidApplication>> work) throws InterruptedException {
+        if (work.isEmpty()) {
+            return;
+        }
+        for (FleetResult<Void> result : fleet.<Void>execute(work.keySet(), device -> {
+            device.collectApplicationHashes(work.get(device.getDeviceId()), algorithms);
+            return null;
+        }).awaitAll()) {
+            if (result.isSuccessful()) {
+                hashed += work.get(result.getDeviceId()).size();
+            } else {
+                failures.putIfAbsent(result.getDeviceId(), result.getError());
+            }
+        }
+    }
+
+    private static void assign(Map<String, List<AndroidApplication>> work, Copy copy) {
+        work.computeIfAbsent(copy.deviceId(), id -> new ArrayList<>()).add(copy.application());
+    }
+
+    private static int load(Map<String, List<AndroidApplication>> work, Copy copy) {
+        List<AndroidApplication> assigned = work.get(copy.deviceId());
+        return assigned != null ? assigned.size() : 0;
+    }
+
+    private boolean sameHashes(AndroidApplication expected, AndroidApplication actual) {
+        for (EHashAlgorithm algorithm : algorithms) {
+            if (!Objects.equals(getHash(expected, algorithm), getHash(actual, algorithm))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void copyHashes(AndroidApplication source, AndroidApplication target) {
+        for (EHashAlgorithm algorithm : algorithms) {
+            switch (algorithm) {
+                case SHA1 -> target.setSha1(source.getSha1());
+                case SHA256 -> target.setSha256(source.getSha256());
+                case SHA512 -> target.setSha512(source.getSha512());
+            }
+        }
+    }
+
+    private static String getHash(AndroidApplication application, EHashAlgorithm algorithm) {
+        return switch (algorithm) {
+            case SHA1 -> application.getSha1();
+            case SHA256 -> application.getSha256();
+            case SHA512 -> application.getSha512();
+        };
+    }
+}
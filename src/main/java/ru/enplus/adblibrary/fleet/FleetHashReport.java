@@ -0,0 +1,70 @@
+package ru.enplus.adblibrary.fleet;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a deduplicated fleet-wide hash collection: how many APK copies were hashed on the devices
+ * and how many got the hashes of an identical copy instead.
+ */
+@Getter
+public class FleetHashReport {
+
+    /**
+     * The amount of applications across all devices.
+     */
+    private final int applications;
+
+    /**
+     * The amount of groups of identical APK copies (same build fingerprint, path and size) with more than one copy.
+     */
+    private final int duplicateGroups;
+
+    /**
+     * The amount of APK copies hashed on their device, including representatives and verification samples.
+     */
+    private final int hashed;
+
+    /**
+     * The amount of APK copies that got the hashes of their group representative without being hashed.
+     */
+    private final int fannedOut;
+
+    /**
+     * The amount of duplicate copies hashed to verify their group representative.
+     */
+    private final int verified;
+
+    /**
+     * The amount of groups whose verification samples did not match the representative; their copies were hashed one by one.
+     */
+    private final int mismatchedGroups;
+
+    /**
+     * The IDs of the devices hashing failed on, with the errors they failed with.
+     */
+    private final Map<String, Throwable> failures;
+    private final Duration elapsed;
+
+    FleetHashReport(int applications, int duplicateGroups, int hashed, int fannedOut, int verified, int mismatchedGroups,
+                    Map<String, Throwable> failures, Duration elapsed) {
+        this.applications = applications;
+        this.duplicateGroups = duplicateGroups;
+        this.hashed = hashed;
+        this.fannedOut = fannedOut;
+        this.verified = verified;
+        this.mismatchedGroups = mismatchedGroups;
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        this.elapsed = elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return "Hashed " + hashed + " of " + applications + " applications in " + elapsed.toMillis() + " ms, " + fannedOut + " fanned out from "
+                + duplicateGroups + " duplicate groups, " + verified + " verified, " + mismatchedGroups + " mismatched, " + failures.size() + " devices failed";
+    }
+}
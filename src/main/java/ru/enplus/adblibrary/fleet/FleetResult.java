@@ -0,0 +1,40 @@
+package ru.enplus.adblibrary.fleet;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a fleet operation on a single device: either a value or the error the device failed with.
+ *
+ * @param <T> the result type of the operation
+ */
+@Getter
+public class FleetResult<T> {
+
+    private final String deviceId;
+    private final T value;
+    private final Throwable error;
+    private final Duration elapsed;
+
+    FleetResult(String deviceId, T value, Throwable error, Duration elapsed) {
+        this.deviceId = deviceId;
+        this.value = value;
+        this.error = error;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Checks if the operation succeeded on the device.
+     *
+     * @return true if the operation produced a value, false if it failed
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return deviceId + (isSuccessful() ? ": " + value : " failed: " + error) + " (" + elapsed.toMillis() + " ms)";
+    }
+}
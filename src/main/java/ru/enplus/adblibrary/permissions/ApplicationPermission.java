@@ -1,7 +1,7 @@
 package ru.enplus.adblibrary.permissions;
 
 import lombok.Data;
-import ru.enplus.adblibrary.properties.AndroidAppPermissions;
+import ru.enplus.adblibrary.enums.EProtectionLevel;
 
 /**
  * Represents a permission granted or requested by an Android application.
@@ -22,9 +22,18 @@ public class ApplicationPermission {
     /**
      * Checks if the permission is categorized as dangerous.
      *
-     * @return {@code true} if the permission is considered dangerous according to AndroidAppPermissions.DANGEROUS_PERMISSIONS; {@code false} otherwise.
+     * @return {@code true} if the permission is registered as dangerous in the {@link PermissionRegistry}; {@code false} otherwise.
      */
     public boolean isDangerous() {
-        return AndroidAppPermissions.DANGEROUS_PERMISSIONS.contains(permissionName);
+        return PermissionRegistry.getDefault().isDangerous(permissionName);
+    }
+
+    /**
+     * Retrieves the protection level of the permission.
+     *
+     * @return the protection level registered in the {@link PermissionRegistry}, or {@link EProtectionLevel#UNKNOWN}
+     */
+    public EProtectionLevel getProtectionLevel() {
+        return PermissionRegistry.getDefault().getProtectionLevel(permissionName);
     }
 }
@@ -0,0 +1,158 @@
+package ru.enplus.adblibrary.permissions;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import ru.enplus.adblibrary.enums.EPermissionSet;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * The permissions of an Android application, kept as one bit set over the ids of a {@link PermissionDictionary}
+ * per {@link EPermissionSet}. Permissions added as requested, install or runtime ones are marked dangerous if the
+ * dictionary classifies them so; a permission is stored once no matter in how many sets it is.
+ */
+@EqualsAndHashCode
+public class ApplicationPermissionSet {
+
+    @Getter
+    @EqualsAndHashCode.Exclude
+    private final PermissionDictionary dictionary;
+    private final BitSet[] sets = new BitSet[EPermissionSet.values().length];
+
+    /**
+     * Constructs an empty permission set over the default dictionary.
+     */
+    public ApplicationPermissionSet() {
+        this(PermissionDictionary.getDefault());
+    }
+
+    /**
+     * Constructs an empty permission set over the specified dictionary.
+     *
+     * @param dictionary the dictionary of the permission ids
+     */
+    public ApplicationPermissionSet(PermissionDictionary dictionary) {
+        this.dictionary = dictionary;
+        for (int i = 0; i < sets.length; i++) {
+            sets[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Adds a permission to a set. Install and runtime permissions are added to {@link EPermissionSet#GRANTED} as well
+     * if they are granted; adding to {@link EPermissionSet#GRANTED} directly marks the permission granted.
+     *
+     * @param set            the set to add to
+     * @param permissionName the name of the permission
+     * @param granted        whether the permission is granted
+     */
+    public void add(EPermissionSet set, String permissionName, boolean granted) {
+        add(set, dictionary.intern(permissionName), granted);
+    }
+
+    /**
+     * Adds a permission to a set by its dictionary id; see {@link #add(EPermissionSet, String, boolean)}.
+     *
+     * @param set     the set to add to
+     * @param id      the dictionary id of the permission
+     * @param granted whether the permission is granted
+     */
+    public void add(EPermissionSet set, int id, boolean granted) {
+        sets[set.ordinal()].set(id);
+        if (set == EPermissionSet.INSTALL || set == EPermissionSet.RUNTIME) {
+            sets[EPermissionSet.GRANTED.ordinal()].set(id, granted);
+        }
+        if (set != EPermissionSet.GRANTED && set != EPermissionSet.DANGEROUS && dictionary.isDangerous(id)) {
+            sets[EPermissionSet.DANGEROUS.ordinal()].set(id);
+        }
+    }
+
+    /**
+     * Replaces the permissions of a set with the specified ones.
+     *
+     * @param set         the set to replace
+     * @param permissions the new permissions of the set
+     */
+    public void replace(EPermissionSet set, Collection<ApplicationPermission> permissions) {
+        BitSet replaced = sets[set.ordinal()];
+        if (set == EPermissionSet.INSTALL || set == EPermissionSet.RUNTIME) {
+            BitSet other = sets[(set == EPermissionSet.INSTALL ? EPermissionSet.RUNTIME : EPermissionSet.INSTALL).ordinal()];
+            for (int id = replaced.nextSetBit(0); id >= 0; id = replaced.nextSetBit(id + 1)) {
+                if (!other.get(id)) {
+                    sets[EPermissionSet.GRANTED.ordinal()].clear(id);
+                }
+            }
+        }
+        replaced.clear();
+        for (ApplicationPermission permission : permissions) {
+            add(set, permission.getPermissionName(), permission.isGranted());
+        }
+    }
+
+    /**
+     * Checks if a permission is in a set.
+     *
+     * @param set            the set to look in
+     * @param permissionName the name of the permission
+     * @return true if the permission is in the set, false otherwise
+     */
+    public boolean contains(EPermissionSet set, String permissionName) {
+        int id = dictionary.getId(permissionName);
+        return id >= 0 && sets[set.ordinal()].get(id);
+    }
+
+    /**
+     * Retrieves the dictionary ids of the permissions of a set.
+     *
+     * @param set the set
+     * @return a copy of the bit set of the ids
+     */
+    public BitSet getIds(EPermissionSet set) {
+        return (BitSet) sets[set.ordinal()].clone();
+    }
+
+    /**
+     * Retrieves the amount of permissions in a set.
+     *
+     * @param set the set
+     * @return the amount of permissions
+     */
+    public int size(EPermissionSet set) {
+        return sets[set.ordinal()].cardinality();
+    }
+
+    /**
+     * Materializes the permissions of a set, in dictionary id order. Install and runtime permissions carry their
+     * granted state; requested permissions, and dangerous ones that are only requested, are reported granted.
+     *
+     * @param set the set
+     * @return a new list of the permissions of the set
+     */
+    public ArrayList<ApplicationPermission> toList(EPermissionSet set) {
+        BitSet ids = sets[set.ordinal()];
+        BitSet granted = sets[EPermissionSet.GRANTED.ordinal()];
+        BitSet install = sets[EPermissionSet.INSTALL.ordinal()];
+        BitSet runtime = sets[EPermissionSet.RUNTIME.ordinal()];
+        ArrayList<ApplicationPermission> permissions = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            ApplicationPermission permission = new ApplicationPermission();
+            permission.setPermissionName(dictionary.getName(id));
+            switch (set) {
+                case REQUESTED -> permission.setGranted(true);
+                case INSTALL, RUNTIME, GRANTED -> permission.setGranted(granted.get(id));
+                case DANGEROUS -> permission.setGranted(granted.get(id) || !install.get(id) && !runtime.get(id));
+            }
+            permissions.add(permission);
+        }
+        return permissions;
+    }
+
+    @Override
+    public String toString() {
+        return "ApplicationPermissionSet(requested=" + size(EPermissionSet.REQUESTED) + ", install=" + size(EPermissionSet.INSTALL)
+                + ", runtime=" + size(EPermissionSet.RUNTIME) + ", granted=" + size(EPermissionSet.GRANTED)
+                + ", dangerous=" + size(EPermissionSet.DANGEROUS) + ")";
+    }
+}
@@ -0,0 +1,131 @@
+package ru.enplus.adblibrary.permissions;
+
+import ru.enplus.adblibrary.enums.EProtectionLevel;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary assigning dense integer ids to permission names, so that the permissions of an application can be kept
+ * as bit sets over the ids and every name is stored once. The dictionary is seeded with the permissions of
+ * the {@link PermissionRegistry}; other names get the next free id when they are first interned.
+ */
+public final class PermissionDictionary {
+
+    private static final PermissionDictionary DEFAULT = new PermissionDictionary();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final BitSet dangerous = new BitSet();
+    private volatile Names names = new Names(new String[64], 0);
+
+    /**
+     * Constructs a dictionary seeded with the permissions of the {@link PermissionRegistry}.
+     */
+    public PermissionDictionary() {
+        for (PermissionInfo info : PermissionRegistry.getDefault().getAll()) {
+            int id = intern(info.getName());
+            if (info.getProtectionLevel() == EProtectionLevel.DANGEROUS) {
+                dangerous.set(id);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the dictionary shared by all applications.
+     *
+     * @return the default dictionary
+     */
+    public static PermissionDictionary getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Retrieves the id of a permission, assigning the next free one to a name seen for the first time.
+     *
+     * @param permissionName the name of the permission
+     * @return the id of the permission
+     */
+    public int intern(String permissionName) {
+        Integer id = ids.get(permissionName);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(permissionName);
+            if (id == null) {
+                Names current = names;
+                String[] array = current.array;
+                if (current.size == array.length) {
+                    array = Arrays.copyOf(array, array.length * 2);
+                }
+                id = current.size;
+                array[id] = permissionName;
+                names = new Names(array, id + 1);
+                ids.put(permissionName, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Retrieves the id of a permission without assigning one.
+     *
+     * @param permissionName the name of the permission
+     * @return the id of the permission, or -1 if the name was never interned
+     */
+    public int getId(String permissionName) {
+        Integer id = ids.get(permissionName);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Retrieves the name of a permission.
+     *
+     * @param id the id of the permission
+     * @return the name of the permission
+     * @throws IndexOutOfBoundsException if no permission has the id
+     */
+    public String getName(int id) {
+        Names current = names;
+        if (id < 0 || id >= current.size) {
+            throw new IndexOutOfBoundsException("No permission has the id " + id);
+        }
+        return current.array[id];
+    }
+
+    /**
+     * Checks if a permission is registered as dangerous in the {@link PermissionRegistry}.
+     *
+     * @param id the id of the permission
+     * @return true if the permission is dangerous, false otherwise
+     */
+    public boolean isDangerous(int id) {
+        return dangerous.get(id);
+    }
+
+    /**
+     * Retrieves the amount of interned permissions.
+     *
+     * @return the dictionary size
+     */
+    public int size() {
+        return names.size;
+    }
+
+    /**
+     * The interned names, grown geometrically. Slots past the size are only written under the dictionary lock and
+     * are published by the volatile write of the next instance, so readers never see a partially interned name.
+     */
+    private static final class Names {
+
+        private final String[] array;
+        private final int size;
+
+        private Names(String[] array, int size) {
+            this.array = array;
+            this.size = size;
+        }
+    }
+}
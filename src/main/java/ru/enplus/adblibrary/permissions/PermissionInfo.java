@@ -0,0 +1,36 @@
+package ru.enplus.adblibrary.permissions;
+
+import lombok.Data;
+import ru.enplus.adblibrary.enums.EPermissionGroup;
+import ru.enplus.adblibrary.enums.EProtectionLevel;
+
+/**
+ * Represents the metadata of an Android permission known to the {@link PermissionRegistry}.
+ */
+@Data
+public class PermissionInfo {
+
+    /**
+     * Marks a permission that is not granted at runtime.
+     */
+    public static final int NOT_RUNTIME = 0;
+
+    private final String name;
+    private final EProtectionLevel protectionLevel;
+    private final EPermissionGroup group;
+
+    /**
+     * The SDK level since which the permission is granted by the user at runtime, or {@link #NOT_RUNTIME}.
+     */
+    private final int runtimeSinceSdk;
+
+    /**
+     * Checks if the permission is granted by the user at runtime on a device.
+     *
+     * @param sdk the SDK level of the device
+     * @return true if the permission is a runtime one on the device, false otherwise
+     */
+    public boolean isRuntime(int sdk) {
+        return runtimeSinceSdk != NOT_RUNTIME && sdk >= runtimeSinceSdk;
+    }
+}
@@ -0,0 +1,274 @@
+package ru.enplus.adblibrary.permissions;
+
+import ru.enplus.adblibrary.enums.EPermissionGroup;
+import ru.enplus.adblibrary.enums.EProtectionLevel;
+import ru.enplus.adblibrary.properties.AndroidAppPermissions;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registry of the permissions of {@link AndroidAppPermissions} indexed by name, carrying the protection level,
+ * the group and the SDK level since which each permission is granted at runtime.
+ * <p>
+ * Dangerous permissions are classified by a table of their groups and runtime SDK levels, a known set of
+ * platform permissions is normal and every other platform permission is classified as a signature one;
+ * removed platform permissions, superuser permissions and permissions defined by applications are unknown.
+ * The registry is immutable, lookups are hash table ones.
+ */
+public final class PermissionRegistry {
+
+    private static final String PLATFORM_PREFIX = "android.permission.";
+    private static final int RUNTIME_PERMISSIONS_SDK = 23;
+
+    private static final Set<String> NORMAL_PERMISSIONS = new HashSet<>(Arrays.asList(
+            AndroidAppPermissions.PERMISSION_ACCESS_LOCATION_EXTRA_COMMANDS, AndroidAppPermissions.PERMISSION_ACCESS_NETWORK_STATE,
+            AndroidAppPermissions.PERMISSION_ACCESS_NOTIFICATION_POLICY, AndroidAppPermissions.PERMISSION_ACCESS_WIFI_STATE,
+            AndroidAppPermissions.PERMISSION_ACCESS_WIMAX_STATE, AndroidAppPermissions.PERMISSION_BLUETOOTH,
+            AndroidAppPermissions.PERMISSION_BLUETOOTH_ADMIN, AndroidAppPermissions.PERMISSION_BROADCAST_STICKY,
+            AndroidAppPermissions.PERMISSION_CHANGE_NETWORK_STATE, AndroidAppPermissions.PERMISSION_CHANGE_WIFI_MULTICAST_STATE,
+            AndroidAppPermissions.PERMISSION_CHANGE_WIFI_STATE, AndroidAppPermissions.PERMISSION_CHANGE_WIMAX_STATE,
+            AndroidAppPermissions.PERMISSION_DISABLE_KEYGUARD, AndroidAppPermissions.PERMISSION_EXPAND_STATUS_BAR,
+            AndroidAppPermissions.PERMISSION_FLASHLIGHT, AndroidAppPermissions.PERMISSION_GET_PACKAGE_SIZE,
+            AndroidAppPermissions.PERMISSION_GET_TASKS, AndroidAppPermissions.PERMISSION_INTERNET,
+            AndroidAppPermissions.PERMISSION_KILL_BACKGROUND_PROCESSES, AndroidAppPermissions.PERMISSION_MODIFY_AUDIO_SETTINGS,
+            AndroidAppPermissions.PERMISSION_NFC, AndroidAppPermissions.PERMISSION_PERSISTENT_ACTIVITY,
+            AndroidAppPermissions.PERMISSION_READ_SYNC_SETTINGS, AndroidAppPermissions.PERMISSION_READ_SYNC_STATS,
+            AndroidAppPermissions.PERMISSION_RECEIVE_BOOT_COMPLETED, AndroidAppPermissions.PERMISSION_REORDER_TASKS,
+            AndroidAppPermissions.PERMISSION_REQUEST_IGNORE_BATTERY_OPTIMIZATIONS, AndroidAppPermissions.PERMISSION_RESTART_PACKAGES,
+            AndroidAppPermissions.PERMISSION_SET_WALLPAPER, AndroidAppPermissions.PERMISSION_SET_WALLPAPER_HINTS,
+            AndroidAppPermissions.PERMISSION_TRANSMIT_IR, AndroidAppPermissions.PERMISSION_VIBRATE,
+            AndroidAppPermissions.PERMISSION_WAKE_LOCK, AndroidAppPermissions.PERMISSION_WRITE_SYNC_SETTINGS,
+            "com.android.alarm.permission.SET_ALARM", "com.android.launcher.permission.INSTALL_SHORTCUT",
+            "com.android.launcher.permission.UNINSTALL_SHORTCUT"));
+
+    /**
+     * Platform permissions removed in Android 6.0, which no longer have a protection level.
+     */
+    private static final Set<String> REMOVED_PERMISSIONS = new HashSet<>(Arrays.asList(
+            AndroidAppPermissions.PERMISSION_AUTHENTICATE_ACCOUNTS, AndroidAppPermissions.PERMISSION_MANAGE_ACCOUNTS,
+            AndroidAppPermissions.PERMISSION_USE_CREDENTIALS, AndroidAppPermissions.PERMISSION_READ_PROFILE,
+            AndroidAppPermissions.PERMISSION_WRITE_PROFILE, AndroidAppPermissions.PERMISSION_READ_SOCIAL_STREAM,
+            AndroidAppPermissions.PERMISSION_WRITE_SOCIAL_STREAM, AndroidAppPermissions.PERMISSION_SUBSCRIBED_FEEDS_READ,
+            AndroidAppPermissions.PERMISSION_SUBSCRIBED_FEEDS_WRITE, AndroidAppPermissions.PERMISSION_WRITE_SMS,
+            AndroidAppPermissions.PERMISSION_READ_USER_DICTIONARY, AndroidAppPermissions.PERMISSION_WRITE_USER_DICTIONARY));
+
+    /**
+     * Permissions of superuser managers, which use the platform namespace without being defined by the platform.
+     */
+    private static final Set<String> SUPERUSER_PERMISSIONS = new HashSet<>(Arrays.asList(
+            AndroidAppPermissions.PERMISSION_ACCESS_SUPERUSER, AndroidAppPermissions.PERMISSION_REQUEST_SUPERUSER,
+            AndroidAppPermissions.PERMISSION_REPORT_SUPERUSER));
+
+    /**
+     * The dangerous permissions with their groups and runtime SDK levels, the only list of them:
+     * {@link AndroidAppPermissions#DANGEROUS_PERMISSIONS} is derived from it. It is initialized before
+     * {@link #DEFAULT}, whose reflection over {@link AndroidAppPermissions} may run that derivation.
+     */
+    private static final Map<String, PermissionInfo> DANGEROUS_PERMISSIONS = createDangerousPermissions();
+
+    private static final PermissionRegistry DEFAULT = new PermissionRegistry();
+
+    private final Map<String, PermissionInfo> permissions = new LinkedHashMap<>();
+    private final Map<EProtectionLevel, List<PermissionInfo>> byProtectionLevel = new EnumMap<>(EProtectionLevel.class);
+    private final Map<EPermissionGroup, List<PermissionInfo>> byGroup = new EnumMap<>(EPermissionGroup.class);
+
+    private PermissionRegistry() {
+        for (Field field : AndroidAppPermissions.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                try {
+                    String name = (String) field.get(null);
+                    register(DANGEROUS_PERMISSIONS.containsKey(name) ? DANGEROUS_PERMISSIONS.get(name) : classify(name));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Unable to read " + field.getName(), e);
+                }
+            }
+        }
+        for (PermissionInfo info : DANGEROUS_PERMISSIONS.values()) {
+            register(info);
+        }
+    }
+
+    /**
+     * Retrieves the registry of the permissions of {@link AndroidAppPermissions}.
+     *
+     * @return the default registry
+     */
+    public static PermissionRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Retrieves the names of the dangerous permissions.
+     *
+     * @return an unmodifiable list of the names
+     */
+    public static List<String> getDangerousPermissionNames() {
+        return Collections.unmodifiableList(new ArrayList<>(DANGEROUS_PERMISSIONS.keySet()));
+    }
+
+    /**
+     * Retrieves the metadata of a permission.
+     *
+     * @param permissionName the name of the permission
+     * @return the metadata of the permission, or null if the permission is not registered
+     */
+    public PermissionInfo get(String permissionName) {
+        return permissions.get(permissionName);
+    }
+
+    /**
+     * Retrieves the protection level of a permission.
+     *
+     * @param permissionName the name of the permission
+     * @return the protection level, or {@link EProtectionLevel#UNKNOWN} if the permission is not registered
+     */
+    public EProtectionLevel getProtectionLevel(String permissionName) {
+        PermissionInfo info = permissions.get(permissionName);
+        return info != null ? info.getProtectionLevel() : EProtectionLevel.UNKNOWN;
+    }
+
+    /**
+     * Checks if a permission is dangerous.
+     *
+     * @param permissionName the name of the permission
+     * @return true if the permission is registered as dangerous, false otherwise
+     */
+    public boolean isDangerous(String permissionName) {
+        return getProtectionLevel(permissionName) == EProtectionLevel.DANGEROUS;
+    }
+
+    /**
+     * Retrieves the registered permissions of a protection level.
+     *
+     * @param protectionLevel the protection level
+     * @return an unmodifiable list of the permissions
+     */
+    public List<PermissionInfo> getByProtectionLevel(EProtectionLevel protectionLevel) {
+        return Collections.unmodifiableList(byProtectionLevel.getOrDefault(protectionLevel, Collections.emptyList()));
+    }
+
+    /**
+     * Retrieves the registered permissions of a group.
+     *
+     * @param group the permission group
+     * @return an unmodifiable list of the permissions
+     */
+    public List<PermissionInfo> getByGroup(EPermissionGroup group) {
+        return Collections.unmodifiableList(byGroup.getOrDefault(group, Collections.emptyList()));
+    }
+
+    /**
+     * Retrieves the registered permissions granted by the user at runtime on a device.
+     *
+     * @param sdk the SDK level of the device
+     * @return a new list of the runtime permissions
+     */
+    public List<PermissionInfo> getRuntimePermissions(int sdk) {
+        List<PermissionInfo> runtime = new ArrayList<>();
+        for (PermissionInfo info : byProtectionLevel.getOrDefault(EProtectionLevel.DANGEROUS, Collections.emptyList())) {
+            if (info.isRuntime(sdk)) {
+                runtime.add(info);
+            }
+        }
+        return runtime;
+    }
+
+    /**
+     * Retrieves all registered permissions, constants of {@link AndroidAppPermissions} first in declaration order.
+     *
+     * @return an unmodifiable collection of the permissions
+     */
+    public Collection<PermissionInfo> getAll() {
+        return Collections.unmodifiableCollection(permissions.values());
+    }
+
+    /**
+     * Retrieves the amount of registered permissions.
+     *
+     * @return the registry size
+     */
+    public int size() {
+        return permissions.size();
+    }
+
+    private void register(PermissionInfo info) {
+        if (permissions.putIfAbsent(info.getName(), info) == null) {
+            byProtectionLevel.computeIfAbsent(info.getProtectionLevel(), level -> new ArrayList<>()).add(info);
+            byGroup.computeIfAbsent(info.getGroup(), group -> new ArrayList<>()).add(info);
+        }
+    }
+
+    private static Map<String, PermissionInfo> createDangerousPermissions() {
+        Map<String, PermissionInfo> dangerous = new LinkedHashMap<>();
+        addDangerous(dangerous, EPermissionGroup.CALENDAR, RUNTIME_PERMISSIONS_SDK,
+                AndroidAppPermissions.PERMISSION_READ_CALENDAR, AndroidAppPermissions.PERMISSION_WRITE_CALENDAR);
+        addDangerous(dangerous, EPermissionGroup.CALL_LOG, RUNTIME_PERMISSIONS_SDK,
+                AndroidAppPermissions.PERMISSION_READ_CALL_LOG, AndroidAppPermissions.PERMISSION_WRITE_CALL_LOG,
+                AndroidAppPermissions.PERMISSION_PROCESS_OUTGOING_CALLS);
+        addDangerous(dangerous, EPermissionGroup.CAMERA, RUNTIME_PERMISSIONS_SDK, AndroidAppPermissions.PERMISSION_CAMERA);
+        addDangerous(dangerous, EPermissionGroup.CONTACTS, RUNTIME_PERMISSIONS_SDK,
+                AndroidAppPermissions.PERMISSION_READ_CONTACTS, AndroidAppPermissions.PERMISSION_WRITE_CONTACTS,
+                AndroidAppPermissions.PERMISSION_GET_ACCOUNTS);
+        addDangerous(dangerous, EPermissionGroup.LOCATION, RUNTIME_PERMISSIONS_SDK,
+                AndroidAppPermissions.PERMISSION_ACCESS_FINE_LOCATION, AndroidAppPermissions.PERMISSION_ACCESS_COARSE_LOCATION);
+        addDangerous(dangerous, EPermissionGroup.LOCATION, 29, AndroidAppPermissions.PERMISSION_ACCESS_BACKGROUND_LOCATION);
+        addDangerous(dangerous, EPermissionGroup.MICROPHONE, RUNTIME_PERMISSIONS_SDK, AndroidAppPermissions.PERMISSION_RECORD_AUDIO);
+        addDangerous(dangerous, EPermissionGroup.PHONE, RUNTIME_PERMISSIONS_SDK,
+                AndroidAppPermissions.PERMISSION_READ_PHONE_STATE, AndroidAppPermissions.PERMISSION_CALL_PHONE,
+                AndroidAppPermissions.PERMISSION_USE_SIP, "com.android.voicemail.permission.ADD_VOICEMAIL");
+        addDangerous(dangerous, EPermissionGroup.PHONE, 26,
+                AndroidAppPermissions.PERMISSION_ANSWER_PHONE_CALLS, AndroidAppPermissions.PERMISSION_READ_PHONE_NUMBERS);
+        addDangerous(dangerous, EPermissionGroup.PHONE, 28, AndroidAppPermissions.PERMISSION_ACCEPT_HANDOVER);
+        addDangerous(dangerous, EPermissionGroup.SENSORS, RUNTIME_PERMISSIONS_SDK, AndroidAppPermissions.PERMISSION_BODY_SENSORS);
+        addDangerous(dangerous, EPermissionGroup.SENSORS, 33, AndroidAppPermissions.PERMISSION_BODY_SENSORS_BACKGROUND);
+        addDangerous(dangerous, EPermissionGroup.SMS, RUNTIME_PERMISSIONS_SDK,
+                AndroidAppPermissions.PERMISSION_READ_SMS, AndroidAppPermissions.PERMISSION_SEND_SMS,
+                AndroidAppPermissions.PERMISSION_RECEIVE_SMS, AndroidAppPermissions.PERMISSION_RECEIVE_MMS,
+                AndroidAppPermissions.PERMISSION_RECEIVE_WAP_PUSH, AndroidAppPermissions.PERMISSION_READ_CELL_BROADCASTS);
+        addDangerous(dangerous, EPermissionGroup.STORAGE, RUNTIME_PERMISSIONS_SDK,
+                AndroidAppPermissions.PERMISSION_READ_EXTERNAL_STORAGE, AndroidAppPermissions.PERMISSION_WRITE_EXTERNAL_STORAGE);
+        addDangerous(dangerous, EPermissionGroup.STORAGE, 29, AndroidAppPermissions.PERMISSION_ACCESS_MEDIA_LOCATION);
+        addDangerous(dangerous, EPermissionGroup.STORAGE, 33,
+                AndroidAppPermissions.PERMISSION_READ_MEDIA_AUDIO, AndroidAppPermissions.PERMISSION_READ_MEDIA_IMAGES,
+                AndroidAppPermissions.PERMISSION_READ_MEDIA_VIDEO);
+        addDangerous(dangerous, EPermissionGroup.ACTIVITY_RECOGNITION, 29, AndroidAppPermissions.PERMISSION_ACTIVITY_RECOGNITION);
+        addDangerous(dangerous, EPermissionGroup.NEARBY_DEVICES, 31,
+                AndroidAppPermissions.PERMISSION_BLUETOOTH_ADVERTISE, AndroidAppPermissions.PERMISSION_BLUETOOTH_CONNECT,
+                AndroidAppPermissions.PERMISSION_BLUETOOTH_SCAN, AndroidAppPermissions.PERMISSION_UWB_RANGING);
+        addDangerous(dangerous, EPermissionGroup.NEARBY_DEVICES, 33, AndroidAppPermissions.PERMISSION_NEARBY_WIFI_DEVICES);
+        addDangerous(dangerous, EPermissionGroup.NOTIFICATIONS, 33, AndroidAppPermissions.PERMISSION_POST_NOTIFICATIONS);
+        addDangerous(dangerous, EPermissionGroup.CAR_INFORMATION, RUNTIME_PERMISSIONS_SDK,
+                "com.google.android.gms.permission.CAR_VENDOR_EXTENSION", "com.google.android.gms.permission.CAR_MILEAGE",
+                "com.google.android.gms.permission.CAR_FUEL", "com.google.android.gms.permission.CAR_SPEED");
+        return Collections.unmodifiableMap(dangerous);
+    }
+
+    private static void addDangerous(Map<String, PermissionInfo> dangerous, EPermissionGroup group, int runtimeSinceSdk, String... names) {
+        for (String name : names) {
+            dangerous.put(name, new PermissionInfo(name, EProtectionLevel.DANGEROUS, group, runtimeSinceSdk));
+        }
+    }
+
+    private static PermissionInfo classify(String name) {
+        EProtectionLevel level;
+        if (NORMAL_PERMISSIONS.contains(name)) {
+            level = EProtectionLevel.NORMAL;
+        } else if (name.startsWith(PLATFORM_PREFIX) && !REMOVED_PERMISSIONS.contains(name) && !SUPERUSER_PERMISSIONS.contains(name)) {
+            level = EProtectionLevel.SIGNATURE;
+        } else {
+            level = EProtectionLevel.UNKNOWN;
+        }
+        return new PermissionInfo(name, level, EPermissionGroup.UNDEFINED, PermissionInfo.NOT_RUNTIME);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.enplus.adblibrary.properties;
 
-import java.util.Arrays;
+import ru.enplus.adblibrary.permissions.PermissionRegistry;
+
 import java.util.List;
 
 /**
@@ -385,6 +386,26 @@ public class AndroidAppPermissions {
     public static final String PERMISSION_UPDATE_CONFIG = "android.permission.UPDATE_CONFIG";
     public static final String PERMISSION_UPDATE_LOCK_TASK_PACKAGES = "android.permission.UPDATE_LOCK_TASK_PACKAGES";
     public static final String PERMISSION_WRITE_BLOCKED_NUMBERS = "android.permission.WRITE_BLOCKED_NUMBERS";
+    public static final String PERMISSION_ANSWER_PHONE_CALLS = "android.permission.ANSWER_PHONE_CALLS";
+    public static final String PERMISSION_READ_PHONE_NUMBERS = "android.permission.READ_PHONE_NUMBERS";
+    public static final String PERMISSION_ACCEPT_HANDOVER = "android.permission.ACCEPT_HANDOVER";
+    public static final String PERMISSION_ACCESS_BACKGROUND_LOCATION = "android.permission.ACCESS_BACKGROUND_LOCATION";
+    public static final String PERMISSION_ACCESS_MEDIA_LOCATION = "android.permission.ACCESS_MEDIA_LOCATION";
+    public static final String PERMISSION_ACTIVITY_RECOGNITION = "android.permission.ACTIVITY_RECOGNITION";
+    public static final String PERMISSION_BLUETOOTH_ADVERTISE = "android.permission.BLUETOOTH_ADVERTISE";
+    public static final String PERMISSION_BLUETOOTH_CONNECT = "android.permission.BLUETOOTH_CONNECT";
+    public static final String PERMISSION_BLUETOOTH_SCAN = "android.permission.BLUETOOTH_SCAN";
+    public static final String PERMISSION_UWB_RANGING = "android.permission.UWB_RANGING";
+    public static final String PERMISSION_BODY_SENSORS_BACKGROUND = "android.permission.BODY_SENSORS_BACKGROUND";
+    public static final String PERMISSION_NEARBY_WIFI_DEVICES = "android.permission.NEARBY_WIFI_DEVICES";
+    public static final String PERMISSION_POST_NOTIFICATIONS = "android.permission.POST_NOTIFICATIONS";
+    public static final String PERMISSION_READ_MEDIA_AUDIO = "android.permission.READ_MEDIA_AUDIO";
+    public static final String PERMISSION_READ_MEDIA_IMAGES = "android.permission.READ_MEDIA_IMAGES";
+    public static final String PERMISSION_READ_MEDIA_VIDEO = "android.permission.READ_MEDIA_VIDEO";
 
-    public static final List<String> DANGEROUS_PERMISSIONS = Arrays.asList("com.google.android.gms.permission.CAR_VENDOR_EXTENSION","com.google.android.gms.permission.CAR_MILEAGE","com.google.android.gms.permission.CAR_FUEL","android.permission.WRITE_CONTACTS","android.permission.GET_ACCOUNTS","android.permission.READ_CONTACTS","android.permission.READ_CALL_LOG","android.permission.READ_PHONE_STATE","android.permission.CALL_PHONE","android.permission.WRITE_CALL_LOG","android.permission.USE_SIP","android.permission.PROCESS_OUTGOING_CALLS","com.android.voicemail.permission.ADD_VOICEMAIL","android.permission.READ_CALENDAR","android.permission.WRITE_CALENDAR","android.permission.CAMERA","android.permission.BODY_SENSORS","android.permission.ACCESS_FINE_LOCATION","com.google.android.gms.permission.CAR_SPEED","android.permission.ACCESS_COARSE_LOCATION","android.permission.READ_EXTERNAL_STORAGE","android.permission.WRITE_EXTERNAL_STORAGE","android.permission.RECORD_AUDIO","android.permission.READ_SMS","android.permission.RECEIVE_WAP_PUSH","android.permission.RECEIVE_MMS","android.permission.RECEIVE_SMS","android.permission.SEND_SMS","android.permission.READ_CELL_BROADCASTS");
+    /**
+     * Names of the dangerous permissions, derived from {@link PermissionRegistry} which also carries their groups
+     * and runtime SDK levels.
+     */
+    public static final List<String> DANGEROUS_PERMISSIONS = PermissionRegistry.getDangerousPermissionNames();
 }
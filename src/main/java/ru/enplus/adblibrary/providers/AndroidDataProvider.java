@@ -4,6 +4,15 @@ import lombok.Getter;
 import lombok.Setter;
 import ru.enplus.adblibrary.connection.ADBService;
 import ru.enplus.adblibrary.shell.CommandGenerator;
+import ru.enplus.adblibrary.shell.CommandResult;
+import ru.enplus.adblibrary.transport.CommandTransport;
+import ru.enplus.adblibrary.util.ByteLineConsumer;
+import ru.enplus.adblibrary.util.LineConsumer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Provides data and command generation capabilities for an Android device using ADB (Android Debug Bridge).
@@ -40,4 +49,73 @@ public class AndroidDataProvider {
         this.deviceId = deviceId;
         this.commandGenerator = new CommandGenerator(adbService, deviceId);
     }
+
+    /**
+     * Retrieves the transport the commands of this provider go through, which is the one of the ADB service.
+     *
+     * @return the command transport
+     */
+    public CommandTransport getCommandTransport() {
+        return adbService.getCommandTransport();
+    }
+
+    /**
+     * Executes a shell command on the device of this provider through the command transport.
+     *
+     * @param command the shell command to execute
+     * @return an ArrayList of strings containing each line of the command output
+     * @throws IOException if the command could not be executed
+     */
+    protected ArrayList<String> executeShellCommand(String command) throws IOException {
+        return getCommandTransport().executeShell(deviceId, command).getOutput();
+    }
+
+    /**
+     * Executes a shell command on the device of this provider through the command transport,
+     * keeping its stderr output and exit code.
+     *
+     * @param command the shell command to execute
+     * @return the result of the command
+     * @throws IOException if the command could not be executed
+     */
+    protected CommandResult executeShell(String command) throws IOException {
+        return getCommandTransport().executeShell(deviceId, command);
+    }
+
+    /**
+     * Executes a shell command on the device of this provider and feeds its output to the consumer line by line.
+     *
+     * @param command  the shell command to execute
+     * @param consumer the callback receiving each line; returning false stops the command
+     * @return true if the whole output was consumed, false if the consumer stopped early
+     * @throws IOException if the command could not be executed
+     */
+    protected boolean streamShellCommand(String command, LineConsumer consumer) throws IOException {
+        return getCommandTransport().streamShell(deviceId, command, consumer);
+    }
+
+    /**
+     * Runs a task of this provider asynchronously on the executor of the ADB service,
+     * under its per-device concurrency limit.
+     *
+     * @param task the task to run
+     * @param <T>  the result type of the task
+     * @return the future completed with the result of the task
+     */
+    protected <T> CompletableFuture<T> runAsync(Callable<T> task) {
+        return adbService.getAsyncExecutor().submit(deviceId, task);
+    }
+
+    /**
+     * Executes a shell command on the device of this provider and feeds its output to the consumer
+     * line by line as undecoded bytes.
+     *
+     * @param command  the shell command to execute
+     * @param consumer the callback receiving each line; returning false stops the command
+     * @return true if the whole output was consumed, false if the consumer stopped early
+     * @throws IOException if the command could not be executed
+     */
+    protected boolean streamShellBytes(String command, ByteLineConsumer consumer) throws IOException {
+        return getCommandTransport().streamShellBytes(deviceId, command, consumer);
+    }
 }
@@ -1,19 +1,39 @@
 package ru.enplus.adblibrary.providers;
 
 import ru.enplus.adblibrary.application.AndroidApplication;
-import ru.enplus.adblibrary.util.HashCalc;
+import ru.enplus.adblibrary.application.InstalledPackage;
+import ru.enplus.adblibrary.util.DigestSet;
+import ru.enplus.adblibrary.util.DigestingChannel;
+import ru.enplus.adblibrary.util.HashCache;
 import ru.enplus.adblibrary.connection.ADBService;
-import ru.enplus.adblibrary.enums.EPermissionsStage;
+import ru.enplus.adblibrary.connection.SyncFileEntry;
+import ru.enplus.adblibrary.enums.EHashAlgorithm;
 import ru.enplus.adblibrary.exceptions.*;
 import ru.enplus.adblibrary.permissions.ApplicationPermission;
+import ru.enplus.adblibrary.permissions.ApplicationPermissionSet;
+import ru.enplus.adblibrary.util.ByteLine;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-
-import static ru.enplus.adblibrary.enums.EPermissionsStage.*;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Provides application-specific data and functionalities for an Android device using ADB (Android Debug Bridge).
@@ -22,6 +42,16 @@ import static ru.enplus.adblibrary.enums.EPermissionsStage.*;
  */
 public class ApplicationDataProvider extends AndroidDataProvider {
 
+    private static final byte[] PACKAGE_PREFIX = ByteLine.ascii("package:");
+    private static final byte[] APK_SEPARATOR = ByteLine.ascii(".apk=");
+    private static final byte[] VERSION_CODE_FIELD = ByteLine.ascii(" versionCode:");
+    private static final byte[] UID_FIELD = ByteLine.ascii(" uid:");
+
+    /**
+     * Upper bound of the length of a batched hash command, kept below the 4 KiB payload limit of older adb daemons.
+     */
+    private static final int MAX_BATCH_COMMAND_LENGTH = 4000;
+
     /**
      * Constructs an ApplicationDataProvider with the specified ADB service and device ID.
      *
@@ -40,30 +70,108 @@ public class ApplicationDataProvider extends AndroidDataProvider {
      * @throws ADBShellExecutionException if there is an error executing the ADB command
      */
     public ArrayList<AndroidApplication> getApplicationsList(int restriction) throws ADBShellExecutionException {
-        String command = getCommandGenerator().generateApplicationCollectionCommand();
+        String command = getCommandGenerator().generateApplicationCollectionShellCommand();
         ArrayList<AndroidApplication> applications = new ArrayList<>();
-        final String fileFormat = ".apk";
         getAdbService().logInfo("Getting applications list with command: " + command);
         try {
-            Process process = Runtime.getRuntime().exec(command);
-            ArrayList<String> result = super.getAdbService().getProcessOutputHandler().getProcessOutput(process);
-            int appCounter = 0;
-            for (var application : result) {
-                String currentApp = application.replace("package:/", "/");
-                String[] params = currentApp.split(fileFormat + "=");
+            streamShellBytes(command, row -> {
+                int pathStart = row.startsWith(PACKAGE_PREFIX) ? PACKAGE_PREFIX.length : 0;
+                int separator = row.indexOf(APK_SEPARATOR, pathStart);
+                if (separator < 0) {
+                    return true;
+                }
                 AndroidApplication app = new AndroidApplication();
-                app.setPath(params[0] + fileFormat);
-                app.setPackageName(params[1]);
+                app.setPath(row.decode(pathStart, separator + 4));
+                app.setPackageName(row.decode(separator + APK_SEPARATOR.length, row.length()));
                 applications.add(app);
-                appCounter++;
-                if (restriction > 0 && appCounter == restriction) break;
-            }
+                return restriction <= 0 || applications.size() < restriction;
+            });
             return applications;
         } catch (IOException e) {
             throw new ADBShellExecutionException("Unable to get the applications list! Check if the device is available!");
         }
     }
 
+    /**
+     * Lists the installed packages with the paths of their APK files, their version codes and uids.
+     * Devices whose package manager does not know the {@code -U} and {@code --show-versioncode} options
+     * (before Android 9) are listed with paths only; their version codes and uids are {@link InstalledPackage#UNKNOWN}.
+     *
+     * @return the installed packages in list order
+     * @throws ADBShellExecutionException if the package list could not be read or is empty
+     */
+    public List<InstalledPackage> getInstalledPackages() throws ADBShellExecutionException {
+        List<InstalledPackage> packages;
+        try {
+            packages = listInstalledPackages(getCommandGenerator().generateInstalledPackagesShellCommand());
+        } catch (IOException e) {
+            packages = List.of();
+        }
+        try {
+            if (packages.isEmpty()) {
+                getAdbService().logInfo("Package list of " + getDeviceId() + " has no version codes, listing paths only");
+                packages = listInstalledPackages(getCommandGenerator().generateApplicationCollectionShellCommand());
+            }
+        } catch (IOException e) {
+            throw new ADBShellExecutionException("Unable to get the package list! Check if the device is available!");
+        }
+        if (packages.isEmpty()) {
+            throw new ADBShellExecutionException("The package list of " + getDeviceId() + " is empty! Check if the package manager is running!");
+        }
+        return packages;
+    }
+
+    /**
+     * Streams a {@code pm list packages -f} style command and parses its
+     * {@code package:<path>=<name> versionCode:<code> uid:<uid>} rows; the version code and uid fields are optional.
+     *
+     * @param command the package list command
+     * @return the listed packages
+     * @throws IOException if the command could not be executed
+     */
+    private List<InstalledPackage> listInstalledPackages(String command) throws IOException {
+        List<InstalledPackage> packages = new ArrayList<>();
+        getAdbService().logInfo("Getting package list with command: " + command);
+        streamShellBytes(command, row -> {
+            if (!row.startsWith(PACKAGE_PREFIX)) {
+                return true;
+            }
+            int separator = row.indexOf(APK_SEPARATOR, PACKAGE_PREFIX.length);
+            if (separator < 0) {
+                return true;
+            }
+            int nameStart = separator + APK_SEPARATOR.length;
+            int nameEnd = row.indexOf((byte) ' ', nameStart);
+            if (nameEnd < 0) {
+                nameEnd = row.length();
+            }
+            packages.add(new InstalledPackage(row.decode(nameStart, nameEnd), row.decode(PACKAGE_PREFIX.length, separator + 4),
+                    parseNumericField(row, VERSION_CODE_FIELD, nameEnd), (int) parseNumericField(row, UID_FIELD, nameEnd)));
+            return true;
+        });
+        return packages;
+    }
+
+    /**
+     * Parses the digits following a field marker of a row.
+     *
+     * @return the field value, or {@link InstalledPackage#UNKNOWN} if the row has no such field
+     */
+    private static long parseNumericField(ByteLine row, byte[] field, int fromIndex) {
+        int start = row.indexOf(field, fromIndex);
+        if (start < 0) {
+            return InstalledPackage.UNKNOWN;
+        }
+        start += field.length;
+        long value = 0;
+        int end = start;
+        while (end < row.length() && row.byteAt(end) >= '0' && row.byteAt(end) <= '9') {
+            value = value * 10 + (row.byteAt(end) - '0');
+            end++;
+        }
+        return end > start ? value : InstalledPackage.UNKNOWN;
+    }
+
     /**
      * Collects the hash of an application automatically using the specified hash function and application path.
      *
@@ -73,7 +181,7 @@ public class ApplicationDataProvider extends AndroidDataProvider {
      * @throws IOException if there is an error executing the hash command
      */
     private String collectApplicationHashAuto(String hashFunction, String applicationPath) throws IOException {
-        return getAdbService().getProcessOutputHandler().getProcessOutput(Runtime.getRuntime().exec(getCommandGenerator().generateHashCollectCommand(hashFunction, applicationPath))).get(0).split(" ")[0];
+        return executeShellCommand(getCommandGenerator().generateHashCollectShellCommand(hashFunction, applicationPath)).get(0).split(" ")[0];
     }
 
     /**
@@ -89,28 +197,395 @@ public class ApplicationDataProvider extends AndroidDataProvider {
         String sha1 = "";
         String sha256 = "";
         String sha512 = "";
-        String tempApkName = "temp.apk";
         if (versionNumeric >= 8.0) {
             sha1 = collectApplicationHashAuto("sha1sum", applicationPath);
             sha256 = collectApplicationHashAuto("sha256sum", applicationPath);
             sha512 = collectApplicationHashAuto("sha512sum", applicationPath);
         }
-        if (versionNumeric >= 6.0) {
+        else if (versionNumeric >= 6.0) {
             sha1 = collectApplicationHashAuto("sha1sum", applicationPath);
         }
         if (versionNumeric < 6.0 || sha256.isEmpty()) {
-            String command = getCommandGenerator().generatePullApplicationCommand(applicationPath, tempApkName);
-            getAdbService().logInfo("Grabbing apk file using command: " + command);
-            getAdbService().getProcessOutputHandler().getProcessOutput(Runtime.getRuntime().exec(command));
-            sha256 = HashCalc.calculateSha256Hash(tempApkName);
-            sha512 = HashCalc.calculateSha512Hash(tempApkName);
+            Set<EHashAlgorithm> algorithms = sha1.isEmpty() ? EnumSet.allOf(EHashAlgorithm.class) : EnumSet.of(EHashAlgorithm.SHA256, EHashAlgorithm.SHA512);
+            DigestSet digests = pullAndHash(applicationPath, algorithms);
+            sha256 = digests.getHex(EHashAlgorithm.SHA256);
+            sha512 = digests.getHex(EHashAlgorithm.SHA512);
             if (sha1.isEmpty()) {
-                sha1 = HashCalc.calculateSha1Hash(tempApkName);
+                sha1 = digests.getHex(EHashAlgorithm.SHA1);
             }
         }
         return new String[]{sha1, sha256, sha512};
     }
 
+    /**
+     * Computes the hashes of several files on the device with one invocation of the hash tool per chunk of paths.
+     * The paths are chunked so that every command stays below {@link #MAX_BATCH_COMMAND_LENGTH}.
+     *
+     * @param algorithm        the hash algorithm to compute
+     * @param applicationPaths the paths of the files to hash
+     * @return the hashes by path; files the tool could not read are missing
+     * @throws IOException if there is an error executing the hash command
+     */
+    public Map<String, String> getApplicationHashes(EHashAlgorithm algorithm, Collection<String> applicationPaths) throws IOException {
+        Map<String, String> hashes = new HashMap<>();
+        forEachPathChunk(algorithm.getShellCommand(), applicationPaths, chunk -> collectApplicationHashesBatch(algorithm, chunk, hashes));
+        return hashes;
+    }
+
+    /**
+     * Splits paths into chunks whose command, made of the tool and the paths, stays below
+     * {@link #MAX_BATCH_COMMAND_LENGTH}, and runs the action on every chunk.
+     *
+     * @param tool   the tool the paths are passed to, counted in the command length
+     * @param paths  the paths to split
+     * @param action the action running the command of a chunk
+     * @throws IOException if the action failed
+     */
+    private static void forEachPathChunk(String tool, Collection<String> paths, PathChunkAction action) throws IOException {
+        List<String> chunk = new ArrayList<>();
+        int chunkLength = tool.length();
+        for (String path : paths) {
+            if (!chunk.isEmpty() && chunkLength + 1 + path.length() > MAX_BATCH_COMMAND_LENGTH) {
+                action.run(chunk);
+                chunk.clear();
+                chunkLength = tool.length();
+            }
+            chunk.add(path);
+            chunkLength += 1 + path.length();
+        }
+        if (!chunk.isEmpty()) {
+            action.run(chunk);
+        }
+    }
+
+    /**
+     * Runs the command of a chunk of paths.
+     */
+    private interface PathChunkAction {
+        void run(List<String> chunk) throws IOException;
+    }
+
+    /**
+     * Reads the mode, size and modification time of several files with one stat invocation per chunk of paths.
+     *
+     * @param paths the paths of the files
+     * @return the file entries by path; files stat could not read are missing
+     * @throws IOException if there is an error executing the stat command
+     */
+    public Map<String, SyncFileEntry> statFiles(Collection<String> paths) throws IOException {
+        Map<String, SyncFileEntry> entries = new HashMap<>();
+        String tool = getCommandGenerator().generateBatchStatShellCommand(List.of());
+        forEachPathChunk(tool, paths, chunk -> streamShellBytes(getCommandGenerator().generateBatchStatShellCommand(chunk), row -> {
+            int modeEnd = row.indexOf((byte) ' ', 0);
+            int sizeEnd = modeEnd < 0 ? -1 : row.indexOf((byte) ' ', modeEnd + 1);
+            int timeEnd = sizeEnd < 0 ? -1 : row.indexOf((byte) ' ', sizeEnd + 1);
+            if (timeEnd < 0) {
+                return true;
+            }
+            try {
+                String path = row.decode(timeEnd + 1, row.length());
+                int mode = Integer.parseInt(row.decode(0, modeEnd), 16);
+                long size = Long.parseLong(row.decode(modeEnd + 1, sizeEnd));
+                long modificationTime = Long.parseLong(row.decode(sizeEnd + 1, timeEnd));
+                entries.put(path, new SyncFileEntry(path, mode, size, modificationTime));
+            } catch (NumberFormatException e) {
+                // an error row of stat, e.g. for a missing file
+            }
+            return true;
+        }));
+        return entries;
+    }
+
+    /**
+     * Serves the selected hashes of the applications from the hash cache of the ADB service. Every APK file is
+     * identified by the device key, its path, size and modification time, read with a batched stat.
+     * Without a hash cache, or if the files can not be identified, every application misses.
+     *
+     * @param deviceKey    the build fingerprint of the device, or its serial if the fingerprint is unknown
+     * @param applications the Android applications to fill hashes for
+     * @param algorithms   the hash algorithms to serve
+     * @return the applications that still have to be hashed, with the keys to store their hashes under
+     */
+    public ApplicationHashLookup lookupApplicationHashes(String deviceKey, Collection<AndroidApplication> applications, Set<EHashAlgorithm> algorithms) {
+        ApplicationHashLookup lookup = new ApplicationHashLookup();
+        HashCache hashCache = getAdbService().getHashCache();
+        Map<String, SyncFileEntry> files = Map.of();
+        if (hashCache != null) {
+            try {
+                List<String> applicationPaths = new ArrayList<>();
+                for (AndroidApplication application : applications) {
+                    applicationPaths.add(application.getPath());
+                }
+                files = statFiles(applicationPaths);
+            } catch (IOException e) {
+                getAdbService().logInfo("Unable to identify the apk files of " + getDeviceId() + ", hashing all of them: " + e.getMessage());
+            }
+        }
+        for (AndroidApplication application : applications) {
+            SyncFileEntry file = files.get(application.getPath());
+            if (file == null) {
+                lookup.addMiss(application, null);
+                continue;
+            }
+            String key = HashCache.key(deviceKey, application.getPath(), file.getSize(), file.getModificationTime());
+            Map<EHashAlgorithm, String> hashes = hashCache.get(key);
+            if (!hashes.keySet().containsAll(algorithms)) {
+                lookup.addMiss(application, key);
+                continue;
+            }
+            for (EHashAlgorithm algorithm : algorithms) {
+                setApplicationHash(application, algorithm, hashes.get(algorithm));
+            }
+            lookup.addHit();
+        }
+        return lookup;
+    }
+
+    /**
+     * Stores the selected hashes of the applications missed by a lookup in the hash cache of the ADB service
+     * and writes the cache to disk. Applications whose hashes are incomplete are skipped.
+     *
+     * @param lookup     the lookup the applications were hashed after
+     * @param algorithms the hash algorithms to store
+     * @throws IOException if the cache could not be written
+     */
+    public void storeApplicationHashes(ApplicationHashLookup lookup, Set<EHashAlgorithm> algorithms) throws IOException {
+        HashCache hashCache = getAdbService().getHashCache();
+        if (hashCache == null) {
+            return;
+        }
+        for (Map.Entry<AndroidApplication, String> entry : lookup.getKeys().entrySet()) {
+            Map<EHashAlgorithm, String> hashes = new EnumMap<>(EHashAlgorithm.class);
+            for (EHashAlgorithm algorithm : algorithms) {
+                String hash = getApplicationHash(entry.getKey(), algorithm);
+                if (hash != null && !hash.isEmpty()) {
+                    hashes.put(algorithm, hash);
+                }
+            }
+            if (hashes.size() == algorithms.size()) {
+                hashCache.put(entry.getValue(), hashes);
+            }
+        }
+        hashCache.flush();
+    }
+
+    /**
+     * Runs the hash tool over a chunk of paths and maps its "hash  path" output rows back to the paths.
+     *
+     * @param algorithm        the hash algorithm to compute
+     * @param applicationPaths the paths of the chunk
+     * @param hashes           the map collecting the hashes by path
+     * @throws IOException if there is an error executing the hash command
+     */
+    private void collectApplicationHashesBatch(EHashAlgorithm algorithm, List<String> applicationPaths, Map<String, String> hashes) throws IOException {
+        String command = getCommandGenerator().generateBatchHashCollectShellCommand(algorithm.getShellCommand(), applicationPaths);
+        streamShellBytes(command, row -> {
+            int hashEnd = row.indexOf((byte) ' ', 0);
+            if (hashEnd <= 0) {
+                return true;
+            }
+            int pathStart = hashEnd;
+            while (pathStart < row.length() && (row.byteAt(pathStart) == ' ' || row.byteAt(pathStart) == '*')) {
+                pathStart++;
+            }
+            hashes.put(row.decode(pathStart, row.length()), row.decode(0, hashEnd));
+            return true;
+        });
+    }
+
+    /**
+     * Fills the selected hashes of the specified applications, computing them on the device with one invocation
+     * of every hash tool instead of one per application. Hashes the device cannot compute, and hashes of files
+     * the device tool could not read, are computed locally from the pulled APK files. With a hash cache set on the
+     * ADB service, unchanged APK files are not hashed again.
+     *
+     * @param deviceKey      the build fingerprint of the device, or its serial if the fingerprint is unknown
+     * @param applications   the Android applications to fill hashes for
+     * @param algorithms     the hash algorithms to compute
+     * @param versionNumeric the numeric Android version of the device
+     * @throws IOException              if there is an error executing the hash command or pulling an APK file
+     * @throws NoSuchAlgorithmException if the specified hash algorithm is not available
+     */
+    public void fillApplicationHashes(String deviceKey, Collection<AndroidApplication> applications, Set<EHashAlgorithm> algorithms, Float versionNumeric) throws IOException, NoSuchAlgorithmException {
+        ApplicationHashLookup lookup = lookupApplicationHashes(deviceKey, applications, algorithms);
+        fillApplicationHashesFromApks(fillApplicationHashesOnDevice(lookup.getMisses(), algorithms, versionNumeric), algorithms);
+        storeApplicationHashes(lookup, algorithms);
+    }
+
+    /**
+     * Fills the selected hashes of the specified applications on the device, with one invocation of every
+     * hash tool per chunk of paths. If the device lacks the tool of one of the algorithms, nothing is computed
+     * on the device, since every APK file has to be pulled anyway.
+     *
+     * @param applications   the Android applications to fill hashes for
+     * @param algorithms     the hash algorithms to compute
+     * @param versionNumeric the numeric Android version of the device
+     * @return the applications that still miss one of the selected hashes
+     * @throws IOException if there is an error executing the hash command
+     */
+    public List<AndroidApplication> fillApplicationHashesOnDevice(Collection<AndroidApplication> applications, Set<EHashAlgorithm> algorithms, Float versionNumeric) throws IOException {
+        List<String> applicationPaths = new ArrayList<>();
+        for (AndroidApplication application : applications) {
+            applicationPaths.add(application.getPath());
+        }
+        for (EHashAlgorithm algorithm : algorithms) {
+            if (!algorithm.isAvailableOnDevice(versionNumeric)) {
+                // every APK is pulled anyway, so all hashes are computed locally
+                return new ArrayList<>(applications);
+            }
+        }
+        Set<AndroidApplication> incomplete = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (EHashAlgorithm algorithm : algorithms) {
+            Map<String, String> hashes = getApplicationHashes(algorithm, applicationPaths);
+            for (AndroidApplication application : applications) {
+                String hash = hashes.get(application.getPath());
+                setApplicationHash(application, algorithm, hash);
+                if (hash == null) {
+                    incomplete.add(application);
+                }
+            }
+        }
+        List<AndroidApplication> result = new ArrayList<>();
+        for (AndroidApplication application : applications) {
+            if (incomplete.contains(application)) {
+                result.add(application);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pulls the APK files of the applications concurrently, up to the per-device limit of the async executor,
+     * and computes the selected hashes from the pull streams. The calling thread pulls as well, and helper tasks
+     * still queued once it runs out of files are skipped, so the call completes even when it runs on the executor
+     * itself. After the first failure no further file is pulled.
+     *
+     * @param applications the Android applications to fill hashes for
+     * @param algorithms   the hash algorithms to compute
+     * @throws IOException              if there is an error pulling an APK file
+     * @throws NoSuchAlgorithmException if the specified hash algorithm is not available
+     */
+    public void fillApplicationHashesFromApks(Collection<AndroidApplication> applications, Set<EHashAlgorithm> algorithms) throws IOException, NoSuchAlgorithmException {
+        Queue<AndroidApplication> pending = new ConcurrentLinkedQueue<>(applications);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        int helperCount = Math.min(getAdbService().getAsyncExecutor().getMaxConcurrencyPerDevice(), applications.size()) - 1;
+        List<AtomicBoolean> claims = new ArrayList<>();
+        List<CompletableFuture<Void>> helpers = new ArrayList<>();
+        for (int i = 0; i < helperCount; i++) {
+            AtomicBoolean claimed = new AtomicBoolean();
+            claims.add(claimed);
+            helpers.add(runAsync(() -> {
+                if (claimed.compareAndSet(false, true)) {
+                    fillApplicationHashesFromApks(pending, algorithms, failure);
+                }
+                return null;
+            }));
+        }
+        fillApplicationHashesFromApks(pending, algorithms, failure);
+        for (int i = 0; i < helpers.size(); i++) {
+            if (!claims.get(i).compareAndSet(false, true)) {
+                helpers.get(i).join();
+            }
+        }
+        Exception error = failure.get();
+        if (error instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (error instanceof NoSuchAlgorithmException algorithmException) {
+            throw algorithmException;
+        }
+        if (error != null) {
+            throw (RuntimeException) error;
+        }
+    }
+
+    private void fillApplicationHashesFromApks(Queue<AndroidApplication> pending, Set<EHashAlgorithm> algorithms, AtomicReference<Exception> failure) {
+        AndroidApplication application;
+        while (failure.get() == null && (application = pending.poll()) != null) {
+            try {
+                fillApplicationHashesFromApk(application, algorithms);
+            } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * Pulls the APK file of the application and computes the selected hashes from the pull stream,
+     * without storing the file.
+     *
+     * @param application the Android application to fill hashes for
+     * @param algorithms  the hash algorithms to compute
+     * @throws IOException              if there is an error pulling the APK file
+     * @throws NoSuchAlgorithmException if the specified hash algorithm is not available
+     */
+    public void fillApplicationHashesFromApk(AndroidApplication application, Set<EHashAlgorithm> algorithms) throws IOException, NoSuchAlgorithmException {
+        DigestSet digests = pullAndHash(application.getPath(), algorithms);
+        for (EHashAlgorithm algorithm : algorithms) {
+            setApplicationHash(application, algorithm, digests.getHex(algorithm));
+        }
+    }
+
+    /**
+     * Pulls a file from the device and feeds the incoming bytes straight into the digests; nothing is written to disk.
+     *
+     * @param remotePath the path of the file on the device
+     * @param algorithms the hash algorithms to compute
+     * @return the computed digests
+     * @throws IOException              if there is an error pulling the file
+     * @throws NoSuchAlgorithmException if the specified hash algorithm is not available
+     */
+    public DigestSet pullAndHash(String remotePath, Set<EHashAlgorithm> algorithms) throws IOException, NoSuchAlgorithmException {
+        return pullAndHash(remotePath, algorithms, null);
+    }
+
+    /**
+     * Pulls a file from the device and feeds the incoming bytes straight into the digests,
+     * copying them into a local file as well if one is specified.
+     *
+     * @param remotePath the path of the file on the device
+     * @param algorithms the hash algorithms to compute
+     * @param keepAs     the local file to keep the pulled copy in, replaced if it exists; null to keep nothing
+     * @return the computed digests
+     * @throws IOException              if there is an error pulling the file; a partial copy is deleted
+     * @throws NoSuchAlgorithmException if the specified hash algorithm is not available
+     */
+    public DigestSet pullAndHash(String remotePath, Set<EHashAlgorithm> algorithms, Path keepAs) throws IOException, NoSuchAlgorithmException {
+        getAdbService().logInfo("Hashing apk file " + remotePath + " while pulling it");
+        if (keepAs == null) {
+            DigestingChannel digestingChannel = new DigestingChannel(algorithms);
+            getCommandTransport().pull(getDeviceId(), remotePath, digestingChannel);
+            return digestingChannel.finish();
+        }
+        boolean kept = false;
+        try (FileChannel copy = FileChannel.open(keepAs, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DigestingChannel digestingChannel = new DigestingChannel(algorithms, copy);
+            getCommandTransport().pull(getDeviceId(), remotePath, digestingChannel);
+            kept = true;
+            return digestingChannel.finish();
+        } finally {
+            if (!kept) {
+                Files.deleteIfExists(keepAs);
+            }
+        }
+    }
+
+    private static String getApplicationHash(AndroidApplication application, EHashAlgorithm algorithm) {
+        return switch (algorithm) {
+            case SHA1 -> application.getSha1();
+            case SHA256 -> application.getSha256();
+            case SHA512 -> application.getSha512();
+        };
+    }
+
+    private static void setApplicationHash(AndroidApplication application, EHashAlgorithm algorithm, String hash) {
+        switch (algorithm) {
+            case SHA1 -> application.setSha1(hash);
+            case SHA256 -> application.setSha256(hash);
+            case SHA512 -> application.setSha512(hash);
+        }
+    }
+
     /**
      * Fills the permissions of the specified Android application.
      *
@@ -118,11 +593,7 @@ public class ApplicationDataProvider extends AndroidDataProvider {
      * @throws ADBException if there is an error collecting the permissions
      */
     public void fillApplicationPermissions(AndroidApplication application) throws ADBException {
-        List<ArrayList<ApplicationPermission>> permissions = getApplicationPermissions(application);
-        application.setDangerousPermissions(permissions.get(0));
-        application.setInstallPermissions(permissions.get(1));
-        application.setRuntimePermissions(permissions.get(2));
-        application.setRequestedPermissions(permissions.get(3));
+        application.setPermissions(getApplicationPermissionSet(application));
     }
 
     /**
@@ -148,50 +619,142 @@ public class ApplicationDataProvider extends AndroidDataProvider {
      * @throws ADBException if there is an error collecting the permissions
      */
     public List<ArrayList<ApplicationPermission>> getApplicationPermissions(AndroidApplication application) throws ADBException {
-        String command = getCommandGenerator().generateGetApplicationPermissionsCommand(application.getPackageName());
-        try {
-            ArrayList<String> collectedStrings = super.getAdbService().getProcessOutputHandler().getProcessOutput(Runtime.getRuntime().exec(command));
-            EPermissionsStage currentState = AWAITING;
-
-            ArrayList<ApplicationPermission> dangerousPermissions = new ArrayList<>();
-            ArrayList<ApplicationPermission> installPermissions = new ArrayList<>();
-            ArrayList<ApplicationPermission> runtimePermissions = new ArrayList<>();
-            ArrayList<ApplicationPermission> requestedPermissions = new ArrayList<>();
-
-            for (var row : collectedStrings) {
-                if (row.contains("requested permissions")) {
-                    currentState = COLLECT_REQUESTED_PERMISSIONS;
-                    continue;
-                }
-                else  if (row.contains("install permissions")) {
-                    currentState = COLLECT_INSTALL_PERMISSIONS;
-                    continue;
-                }
-                else if (row.contains("runtime permissions")) {
-                    currentState = COLLECT_RUNTIME_PERMISSIONS;
-                }
+        return PackagePermissionsParser.toLists(getApplicationPermissionSet(application));
+    }
 
-                if (currentState != AWAITING && row.contains("android.permission")) {
-                    String currentRow = row.strip();
-                    ApplicationPermission currentPermission = new ApplicationPermission();
-                    currentPermission.setGranted(currentRow.contains("true"));
-                    currentPermission.setPermissionName(currentRow.split(":")[0]);
-                    if (currentPermission.isDangerous()) {
-                        dangerousPermissions.add(currentPermission);
-                    }
-                    switch (currentState) {
-                        case COLLECT_REQUESTED_PERMISSIONS -> {
-                            currentPermission.setGranted(true);
-                            requestedPermissions.add(currentPermission);
-                        }
-                        case COLLECT_INSTALL_PERMISSIONS -> installPermissions.add(currentPermission);
-                        case COLLECT_RUNTIME_PERMISSIONS -> runtimePermissions.add(currentPermission);
-                    }
-                }
-            }
-            return Arrays.asList(dangerousPermissions, installPermissions, runtimePermissions, requestedPermissions);
+    /**
+     * Retrieves the permissions of the specified Android application as a compact permission set.
+     *
+     * @param application the Android application to retrieve permissions for
+     * @return the permission set of the application
+     * @throws ADBException if there is an error collecting the permissions
+     */
+    public ApplicationPermissionSet getApplicationPermissionSet(AndroidApplication application) throws ADBException {
+        String command = getCommandGenerator().generateGetApplicationPermissionsShellCommand(application.getPackageName());
+        try {
+            PackagePermissionsParser parser = new PackagePermissionsParser();
+            streamShellBytes(command, row -> {
+                parser.accept(row);
+                return true;
+            });
+            return parser.getPermissionSet();
         } catch (IOException e) {
             throw new ADBPermissionCollectingException("Something went wrong during package " + application.getPackageName() + " permissions collecting! Check if the device is available!");
         }
     }
+
+    /**
+     * Retrieves the permissions of all installed packages with a single {@code dumpsys package packages} call.
+     *
+     * @return the permission lists (dangerous, install, runtime, requested) by package name
+     * @throws ADBException if there is an error collecting the permissions
+     */
+    public Map<String, List<ArrayList<ApplicationPermission>>> getAllApplicationPermissions() throws ADBException {
+        Map<String, List<ArrayList<ApplicationPermission>>> permissions = new HashMap<>();
+        getAllApplicationPermissionSets().forEach((packageName, permissionSet) -> permissions.put(packageName, PackagePermissionsParser.toLists(permissionSet)));
+        return permissions;
+    }
+
+    /**
+     * Retrieves the permissions of all installed packages as compact permission sets with a single
+     * {@code dumpsys package packages} call.
+     *
+     * @return the permission sets by package name
+     * @throws ADBException if there is an error collecting the permissions
+     */
+    public Map<String, ApplicationPermissionSet> getAllApplicationPermissionSets() throws ADBException {
+        String command = getCommandGenerator().generateGetAllApplicationPermissionsShellCommand();
+        getAdbService().logInfo("Collecting permissions of all packages with command: " + command);
+        try {
+            BulkPermissionsParser parser = new BulkPermissionsParser();
+            streamShellBytes(command, parser);
+            return parser.getPermissions();
+        } catch (IOException e) {
+            throw new ADBPermissionCollectingException("Something went wrong during permissions collecting! Check if the device is available!");
+        }
+    }
+
+    /**
+     * Fills the permissions of the specified applications with a single {@code dumpsys package packages} call.
+     *
+     * @param applications the applications to fill permissions for
+     * @return the applications missing from the dumpsys output, whose permissions were left untouched
+     * @throws ADBException if there is an error collecting the permissions
+     */
+    public List<AndroidApplication> fillApplicationPermissions(Collection<AndroidApplication> applications) throws ADBException {
+        Map<String, ApplicationPermissionSet> allPermissions = getAllApplicationPermissionSets();
+        List<AndroidApplication> missing = new ArrayList<>();
+        for (AndroidApplication application : applications) {
+            ApplicationPermissionSet permissions = allPermissions.get(application.getPackageName());
+            if (permissions == null) {
+                missing.add(application);
+                continue;
+            }
+            application.setPermissions(permissions);
+        }
+        return missing;
+    }
+
+    /**
+     * Asynchronously retrieves a list of installed applications on the Android device.
+     *
+     * @param restriction the maximum number of applications to retrieve; if zero, retrieves all applications
+     * @return the future completed with the installed applications
+     * @see #getApplicationsList(int)
+     */
+    public CompletableFuture<ArrayList<AndroidApplication>> getApplicationsListAsync(int restriction) {
+        return runAsync(() -> getApplicationsList(restriction));
+    }
+
+    /**
+     * Asynchronously retrieves the SHA-1, SHA-256, and SHA-512 hashes of an application.
+     *
+     * @param applicationPath the path of the application
+     * @param versionNumeric  the numeric version of the application
+     * @return the future completed with the SHA-1, SHA-256, and SHA-512 hashes
+     * @see #getApplicationHashes(String, Float)
+     */
+    public CompletableFuture<String[]> getApplicationHashesAsync(String applicationPath, Float versionNumeric) {
+        return runAsync(() -> getApplicationHashes(applicationPath, versionNumeric));
+    }
+
+    /**
+     * Asynchronously fills the permissions of the specified Android application.
+     *
+     * @param application the Android application to fill permissions for
+     * @return the future completed once the permissions are filled
+     * @see #fillApplicationPermissions(AndroidApplication)
+     */
+    public CompletableFuture<Void> fillApplicationPermissionsAsync(AndroidApplication application) {
+        return runAsync(() -> {
+            fillApplicationPermissions(application);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronously fills the hashes (SHA-1, SHA-256, SHA-512) of the specified Android application.
+     *
+     * @param application    the Android application to fill hashes for
+     * @param versionNumeric the numeric version of the application
+     * @return the future completed once the hashes are filled
+     * @see #fillApplicationHashes(AndroidApplication, Float)
+     */
+    public CompletableFuture<Void> fillApplicationHashesAsync(AndroidApplication application, Float versionNumeric) {
+        return runAsync(() -> {
+            fillApplicationHashes(application, versionNumeric);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronously retrieves the permissions of the specified Android application.
+     *
+     * @param application the Android application to retrieve permissions for
+     * @return the future completed with the dangerous, install, runtime and requested permissions
+     * @see #getApplicationPermissions(AndroidApplication)
+     */
+    public CompletableFuture<List<ArrayList<ApplicationPermission>>> getApplicationPermissionsAsync(AndroidApplication application) {
+        return runAsync(() -> getApplicationPermissions(application));
+    }
 }
@@ -0,0 +1,51 @@
+package ru.enplus.adblibrary.providers;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.application.AndroidApplication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of looking the hashes of applications up in the {@link ru.enplus.adblibrary.util.HashCache}:
+ * the applications that still have to be hashed, and the cache keys their hashes are stored under afterwards.
+ */
+public class ApplicationHashLookup {
+
+    /**
+     * The applications whose hashes were not served from the cache.
+     */
+    @Getter
+    private final List<AndroidApplication> misses = new ArrayList<>();
+
+    /**
+     * The cache keys of the missed applications whose files could be identified.
+     */
+    private final Map<AndroidApplication, String> keys = new IdentityHashMap<>();
+
+    @Getter
+    private int hits;
+
+    void addHit() {
+        hits++;
+    }
+
+    void addMiss(AndroidApplication application, String key) {
+        misses.add(application);
+        if (key != null) {
+            keys.put(application, key);
+        }
+    }
+
+    /**
+     * Retrieves the cache keys of the missed applications whose files could be identified.
+     *
+     * @return an unmodifiable map of the cache keys by application
+     */
+    public Map<AndroidApplication, String> getKeys() {
+        return Collections.unmodifiableMap(keys);
+    }
+}
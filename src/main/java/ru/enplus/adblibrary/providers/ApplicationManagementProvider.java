@@ -8,7 +8,9 @@ import ru.enplus.adblibrary.exceptions.InvalidPackageNameException;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Provides application management functionalities for an Android device using ADB (Android Debug Bridge).
@@ -36,11 +38,9 @@ public class ApplicationManagementProvider extends AndroidDataProvider {
         if (!packageName.contains(".")) {
             throw new InvalidPackageNameException("Invalid package name: " + packageName);
         }
-        String command = getCommandGenerator().generateUninstallApplicationCommand(packageName);
         getAdbService().logInfo("Uninstalling App: " + packageName);
         try {
-            Process process = Runtime.getRuntime().exec(command);
-            super.getAdbService().getProcessOutputHandler().getProcessOutput(process);
+            getCommandTransport().uninstall(getDeviceId(), packageName);
         } catch (IOException e) {
             throw new ADBShellExecutionException("Unable to uninstall app " + packageName + "! Check if the device is available!");
         }
@@ -57,11 +57,9 @@ public class ApplicationManagementProvider extends AndroidDataProvider {
         if (apkPath.isEmpty() || !new File(apkPath).exists()) {
             throw new ADBIncorrectPathException("APK file " + apkPath + " does not exist!");
         }
-        String command = getCommandGenerator().generateInstallApplicationCommand(apkPath);
-        getAdbService().logInfo("Installing apk " + apkPath + " with command " + command);
+        getAdbService().logInfo("Installing apk " + apkPath);
         try {
-            Process process = Runtime.getRuntime().exec(command);
-            ArrayList<String> rows = super.getAdbService().getProcessOutputHandler().getProcessOutput(process);
+            ArrayList<String> rows = getCommandTransport().install(getDeviceId(), Path.of(apkPath));
             for (var i : rows) {
                 if (i.contains("Success")) {
                     return true;
@@ -72,4 +70,29 @@ public class ApplicationManagementProvider extends AndroidDataProvider {
             throw new ADBShellExecutionException("Device not available!");
         }
     }
+
+    /**
+     * Asynchronously uninstalls the application with the specified package name.
+     *
+     * @param packageName the package name of the application to uninstall
+     * @return the future completed once the application is uninstalled
+     * @see #uninstallApp(String)
+     */
+    public CompletableFuture<Void> uninstallAppAsync(String packageName) {
+        return runAsync(() -> {
+            uninstallApp(packageName);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronously installs an application from the specified APK file path.
+     *
+     * @param apkPath the path to the APK file
+     * @return the future completed with true if the installation was successful, false otherwise
+     * @see #installAppFromApk(String)
+     */
+    public CompletableFuture<Boolean> installAppFromApkAsync(String apkPath) {
+        return runAsync(() -> installAppFromApk(apkPath));
+    }
 }
@@ -7,9 +7,12 @@ import ru.enplus.adblibrary.exceptions.ADBShellExecutionException;
 import ru.enplus.adblibrary.exceptions.OperationNotAllowedException;
 import ru.enplus.adblibrary.exceptions.UnknownPackageException;
 import ru.enplus.adblibrary.exceptions.UnknownPermissionException;
+import ru.enplus.adblibrary.shell.CommandResult;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Provides methods for managing application permissions on an Android device using ADB (Android Debug Bridge).
@@ -35,24 +38,8 @@ public class ApplicationPermissionManagementProvider extends AndroidDataProvider
      * @throws ADBException if there is an error during the command execution or if the package/permission is unknown
      */
     public void grantPermissionShellOnly(String applicationPackage, String permission) throws ADBException {
-        String command = getAdbService().getCommandBase(getDeviceId()) + "pm grant " + applicationPackage + " " + permission;
-        try {
-            Process process = Runtime.getRuntime().exec(command);
-            ArrayList<String> output = getAdbService().getProcessOutputHandler().getProcessOutput(process);
-            String initRow = output.get(0);
-            if (initRow.contains("Unknown package")) {
-                throw new UnknownPackageException("Unknown package: " + applicationPackage);
-            }
-            if (initRow.contains("Unknown permission")) {
-                throw new UnknownPermissionException("Unknown permission: " + permission);
-            }
-            if (initRow.contains("Operation not allowed")) {
-                throw new OperationNotAllowedException(initRow);
-            }
-            getAdbService().getAdbServiceLogger().fine("Permission " + permission + " was granted to " + applicationPackage);
-        } catch (IOException e) {
-            throw new ADBShellExecutionException("Something went wrong during ADB Shell command execution");
-        }
+        changePermission("grant", applicationPackage, permission);
+        getAdbService().getAdbServiceLogger().fine("Permission " + permission + " was granted to " + applicationPackage);
     }
 
     /**
@@ -74,26 +61,8 @@ public class ApplicationPermissionManagementProvider extends AndroidDataProvider
      * @throws ADBException if there is an error during the command execution or if the package/permission is unknown
      */
     public void revokePermissionShellOnly(String applicationPackage, String permission) throws ADBException {
-        String command = getAdbService().getCommandBase(getDeviceId()) + "pm revoke " + applicationPackage + " " + permission;
-        System.out.println(command);
-        try {
-            Process process = Runtime.getRuntime().exec(command);
-            ArrayList<String> output = getAdbService().getProcessOutputHandler().getProcessOutput(process);
-            String initRow = output.get(0);
-            if (initRow.contains("Unknown package")) {
-                throw new UnknownPackageException("Unknown package: " + applicationPackage);
-            }
-            if (initRow.contains("Unknown permission")) {
-                throw new UnknownPermissionException("Unknown permission: " + permission);
-            }
-            System.out.println(initRow);
-            if (initRow.contains("Operation not allowed")) {
-                throw new OperationNotAllowedException(initRow);
-            }
-            getAdbService().getAdbServiceLogger().fine("Permission " + permission + " was revoked from " + applicationPackage);
-        } catch (IOException e) {
-            throw new ADBShellExecutionException("Something went wrong during ADB Shell command execution");
-        }
+        changePermission("revoke", applicationPackage, permission);
+        getAdbService().getAdbServiceLogger().fine("Permission " + permission + " was revoked from " + applicationPackage);
     }
 
     /**
@@ -106,4 +75,95 @@ public class ApplicationPermissionManagementProvider extends AndroidDataProvider
     public void revokePermissionShellOnly(AndroidApplication app, String permission) throws ADBException {
         revokePermissionShellOnly(app.getPackageName(), permission);
     }
+
+    /**
+     * Asynchronously grants a permission to an application using its package name.
+     *
+     * @param applicationPackage the package name of the application
+     * @param permission         the permission to grant
+     * @return the future completed once the permission is granted
+     * @see #grantPermissionShellOnly(String, String)
+     */
+    public CompletableFuture<Void> grantPermissionShellOnlyAsync(String applicationPackage, String permission) {
+        return runAsync(() -> {
+            grantPermissionShellOnly(applicationPackage, permission);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronously grants a permission to the specified application.
+     *
+     * @param app        the application to grant the permission to
+     * @param permission the permission to grant
+     * @return the future completed once the permission is granted
+     * @see #grantPermissionShellOnly(AndroidApplication, String)
+     */
+    public CompletableFuture<Void> grantPermissionShellOnlyAsync(AndroidApplication app, String permission) {
+        return grantPermissionShellOnlyAsync(app.getPackageName(), permission);
+    }
+
+    /**
+     * Asynchronously revokes a permission from an application using its package name.
+     *
+     * @param applicationPackage the package name of the application
+     * @param permission         the permission to revoke
+     * @return the future completed once the permission is revoked
+     * @see #revokePermissionShellOnly(String, String)
+     */
+    public CompletableFuture<Void> revokePermissionShellOnlyAsync(String applicationPackage, String permission) {
+        return runAsync(() -> {
+            revokePermissionShellOnly(applicationPackage, permission);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronously revokes a permission from the specified application.
+     *
+     * @param app        the application to revoke the permission from
+     * @param permission the permission to revoke
+     * @return the future completed once the permission is revoked
+     * @see #revokePermissionShellOnly(AndroidApplication, String)
+     */
+    public CompletableFuture<Void> revokePermissionShellOnlyAsync(AndroidApplication app, String permission) {
+        return revokePermissionShellOnlyAsync(app.getPackageName(), permission);
+    }
+
+    /**
+     * Runs {@code pm grant} or {@code pm revoke} and checks its result. The package manager reports
+     * a failure as a stack trace whose cause line names the problem, on stderr or on stdout
+     * depending on the transport, so every line of both streams is checked.
+     *
+     * @param action             either "grant" or "revoke"
+     * @param applicationPackage the package name of the application
+     * @param permission         the permission to change
+     * @throws ADBException if the command failed or the package/permission is unknown
+     */
+    private void changePermission(String action, String applicationPackage, String permission) throws ADBException {
+        String command = getCommandGenerator().generatePermissionChangeShellCommand(action, applicationPackage, permission);
+        CommandResult result;
+        try {
+            result = executeShell(command);
+        } catch (IOException e) {
+            throw new ADBShellExecutionException("Something went wrong during ADB Shell command execution");
+        }
+        List<String> rows = new ArrayList<>(result.getErrorOutput());
+        rows.addAll(result.getOutput());
+        for (String row : rows) {
+            if (row.contains("Unknown package")) {
+                throw new UnknownPackageException("Unknown package: " + applicationPackage);
+            }
+            if (row.contains("Unknown permission")) {
+                throw new UnknownPermissionException("Unknown permission: " + permission);
+            }
+            if (row.contains("Operation not allowed")) {
+                throw new OperationNotAllowedException(row.strip());
+            }
+        }
+        if (result.getExitCode() != 0 && result.getExitCode() != CommandResult.UNKNOWN_EXIT_CODE) {
+            throw new ADBShellExecutionException("Unable to " + action + " " + permission + " for " + applicationPackage
+                    + ": " + (rows.isEmpty() ? "exit code " + result.getExitCode() : String.join(" ", rows)));
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package ru.enplus.adblibrary.providers;
+
+import ru.enplus.adblibrary.permissions.ApplicationPermissionSet;
+import ru.enplus.adblibrary.util.ByteLine;
+import ru.enplus.adblibrary.util.ByteLineConsumer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming state machine splitting the output of {@code dumpsys package packages} into per-package sections.
+ * Rows before the "Packages:" header are skipped; every "  Package [name] (...):" row starts the section of a
+ * package, whose rows go to its own {@link PackagePermissionsParser}. The first unindented row after the
+ * package list (e.g. "Hidden system packages:") ends the parse and stops the command.
+ */
+class BulkPermissionsParser implements ByteLineConsumer {
+
+    private static final byte[] PACKAGES_HEADER = ByteLine.ascii("Packages:");
+    private static final byte[] PACKAGE_HEADER = ByteLine.ascii("  Package [");
+
+    private final Map<String, PackagePermissionsParser> packages = new HashMap<>();
+    private boolean inPackages;
+    private PackagePermissionsParser currentPackage;
+
+    @Override
+    public boolean accept(ByteLine row) {
+        if (!inPackages) {
+            inPackages = row.startsWith(PACKAGES_HEADER);
+            return true;
+        }
+        if (row.length() > 0 && row.byteAt(0) != ' ') {
+            return false;
+        }
+        if (row.startsWith(PACKAGE_HEADER)) {
+            int nameEnd = row.indexOf((byte) ']', PACKAGE_HEADER.length);
+            if (nameEnd > 0) {
+                currentPackage = new PackagePermissionsParser();
+                packages.put(row.decode(PACKAGE_HEADER.length, nameEnd), currentPackage);
+                return true;
+            }
+        }
+        if (currentPackage != null) {
+            currentPackage.accept(row);
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the permissions of every parsed package.
+     *
+     * @return the permission sets by package name
+     */
+    Map<String, ApplicationPermissionSet> getPermissions() {
+        Map<String, ApplicationPermissionSet> permissions = new HashMap<>();
+        packages.forEach((packageName, parser) -> permissions.put(packageName, parser.getPermissionSet()));
+        return permissions;
+    }
+}
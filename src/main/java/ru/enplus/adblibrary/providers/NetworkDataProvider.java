@@ -4,12 +4,14 @@ import ru.enplus.adblibrary.connection.ADBService;
 import ru.enplus.adblibrary.exceptions.ADBException;
 import ru.enplus.adblibrary.exceptions.ADBShellExecutionException;
 import ru.enplus.adblibrary.exceptions.NetworkInterfaceNotFoundException;
+import ru.enplus.adblibrary.util.ByteLine;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -19,6 +21,8 @@ import java.util.regex.Pattern;
  */
 public class NetworkDataProvider extends AndroidDataProvider {
 
+    private static final byte[] ENCAPSULATION = ByteLine.ascii("encap");
+
     private final List<String> supportedIpVersions = Arrays.asList(new String[]{"ipv4", "ipv6"});
     private final Pattern ipv4Pattern;
     private final Pattern ipv6Pattern;
@@ -44,17 +48,17 @@ public class NetworkDataProvider extends AndroidDataProvider {
      * @throws ADBException if there is an error during the command execution
      */
     public ArrayList<String> getNetworkInterfaces() throws ADBException {
-        String command = getCommandGenerator().generateGetNetworkInterfacesCommand();
+        String command = getCommandGenerator().generateGetNetworkInterfacesShellCommand();
         ArrayList<String> networkInterfaces = new ArrayList<>();
         getAdbService().logInfo("Collecting network interfaces");
         try {
-            Process process = Runtime.getRuntime().exec(command);
-            ArrayList<String> ifconfigRows = super.getAdbService().getProcessOutputHandler().getProcessOutput(process);
-            for (var row : ifconfigRows) {
-                if (row.contains("encap")) {
-                    networkInterfaces.add(row.split(" ")[0]);
+            streamShellBytes(command, row -> {
+                if (row.contains(ENCAPSULATION)) {
+                    int nameEnd = row.indexOf((byte) ' ', 0);
+                    networkInterfaces.add(row.decode(0, nameEnd < 0 ? row.length() : nameEnd));
                 }
-            }
+                return true;
+            });
             return networkInterfaces;
         } catch (IOException e) {
             throw new ADBShellExecutionException("Device not available!");
@@ -73,11 +77,10 @@ public class NetworkDataProvider extends AndroidDataProvider {
         if (!getNetworkInterfaces().contains(interfaceName)) {
             throw new NetworkInterfaceNotFoundException("Interface " + interfaceName + " not found!");
         }
-        String command = getCommandGenerator().generateNetworkInterfaceIpAddressCommand(interfaceName);
+        String command = getCommandGenerator().generateNetworkInterfaceIpAddressShellCommand(interfaceName);
         getAdbService().logInfo("Getting IP for interface " + interfaceName + " with " + command);
         try {
-            Process process = Runtime.getRuntime().exec(command);
-            ArrayList<String> rows = super.getAdbService().getProcessOutputHandler().getProcessOutput(process);
+            ArrayList<String> rows = executeShellCommand(command);
             for (var row : rows) {
                 if (Objects.equals(ipVersion, supportedIpVersions.get(0)) && row.contains("inet")) {
                     Matcher matcher = ipv4Pattern.matcher(row);
@@ -96,4 +99,26 @@ public class NetworkDataProvider extends AndroidDataProvider {
         }
         return "";
     }
+
+    /**
+     * Asynchronously retrieves a list of network interfaces on the Android device.
+     *
+     * @return the future completed with the network interfaces
+     * @see #getNetworkInterfaces()
+     */
+    public CompletableFuture<ArrayList<String>> getNetworkInterfacesAsync() {
+        return runAsync(this::getNetworkInterfaces);
+    }
+
+    /**
+     * Asynchronously retrieves the IP address of the specified network interface.
+     *
+     * @param interfaceName the name of the network interface
+     * @param ipVersion     the IP version ("ipv4" or "ipv6")
+     * @return the future completed with the IP address of the network interface
+     * @see #getInterfaceIpAddress(String, String)
+     */
+    public CompletableFuture<String> getInterfaceIpAddressAsync(String interfaceName, String ipVersion) {
+        return runAsync(() -> getInterfaceIpAddress(interfaceName, ipVersion));
+    }
 }
@@ -0,0 +1,90 @@
+package ru.enplus.adblibrary.providers;
+
+import ru.enplus.adblibrary.enums.EPermissionSet;
+import ru.enplus.adblibrary.enums.EPermissionsStage;
+import ru.enplus.adblibrary.permissions.ApplicationPermission;
+import ru.enplus.adblibrary.permissions.ApplicationPermissionSet;
+import ru.enplus.adblibrary.util.ByteLine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static ru.enplus.adblibrary.enums.EPermissionsStage.*;
+
+/**
+ * Collects the permissions of a single package from the rows of its dumpsys section.
+ * The section headers switch the {@link EPermissionsStage}; every "android.permission" row below a header
+ * is added to the permission set of that stage, which marks dangerous ones as well.
+ */
+class PackagePermissionsParser {
+
+    private static final byte[] REQUESTED_PERMISSIONS_HEADER = ByteLine.ascii("requested permissions");
+    private static final byte[] INSTALL_PERMISSIONS_HEADER = ByteLine.ascii("install permissions");
+    private static final byte[] RUNTIME_PERMISSIONS_HEADER = ByteLine.ascii("runtime permissions");
+    private static final byte[] ANDROID_PERMISSION = ByteLine.ascii("android.permission");
+    private static final byte[] GRANTED_TRUE = ByteLine.ascii("true");
+
+    private final ApplicationPermissionSet permissions = new ApplicationPermissionSet();
+    private EPermissionsStage currentStage = AWAITING;
+
+    /**
+     * Handles the next row of the package section.
+     *
+     * @param row the dumpsys row
+     */
+    void accept(ByteLine row) {
+        if (row.contains(REQUESTED_PERMISSIONS_HEADER)) {
+            currentStage = COLLECT_REQUESTED_PERMISSIONS;
+            return;
+        }
+        else  if (row.contains(INSTALL_PERMISSIONS_HEADER)) {
+            currentStage = COLLECT_INSTALL_PERMISSIONS;
+            return;
+        }
+        else if (row.contains(RUNTIME_PERMISSIONS_HEADER)) {
+            currentStage = COLLECT_RUNTIME_PERMISSIONS;
+        }
+
+        if (currentStage != AWAITING && row.contains(ANDROID_PERMISSION)) {
+            int nameStart = row.firstNonWhitespace();
+            int nameEnd = row.indexOf((byte) ':', nameStart);
+            String permissionName = row.decode(nameStart, nameEnd < 0 ? row.length() : nameEnd).strip();
+            boolean granted = row.contains(GRANTED_TRUE);
+            switch (currentStage) {
+                case COLLECT_REQUESTED_PERMISSIONS -> permissions.add(EPermissionSet.REQUESTED, permissionName, true);
+                case COLLECT_INSTALL_PERMISSIONS -> permissions.add(EPermissionSet.INSTALL, permissionName, granted);
+                case COLLECT_RUNTIME_PERMISSIONS -> permissions.add(EPermissionSet.RUNTIME, permissionName, granted);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the collected permissions.
+     *
+     * @return the permission set of the package
+     */
+    ApplicationPermissionSet getPermissionSet() {
+        return permissions;
+    }
+
+    /**
+     * Retrieves the collected permissions as lists.
+     *
+     * @return a list containing lists of different types of permissions (dangerous, install, runtime, requested)
+     */
+    List<ArrayList<ApplicationPermission>> getPermissions() {
+        return toLists(permissions);
+    }
+
+    /**
+     * Materializes a permission set as the lists of different types of permissions.
+     *
+     * @param permissions the permission set
+     * @return a list containing lists of different types of permissions (dangerous, install, runtime, requested)
+     */
+    static List<ArrayList<ApplicationPermission>> toLists(ApplicationPermissionSet permissions) {
+        return Arrays.asList(permissions.toList(EPermissionSet.DANGEROUS), permissions.toList(EPermissionSet.INSTALL),
+                permissions.toList(EPermissionSet.RUNTIME), permissions.toList(EPermissionSet.REQUESTED));
+    }
+}
@@ -0,0 +1,466 @@
+package ru.enplus.adblibrary.providers;
+
+import com.sun.management.ThreadMXBean;
+import ru.enplus.adblibrary.application.AndroidApplication;
+import ru.enplus.adblibrary.connection.ADBService;
+import ru.enplus.adblibrary.enums.EPermissionsStage;
+import ru.enplus.adblibrary.enums.EProtectionLevel;
+import ru.enplus.adblibrary.permissions.ApplicationPermission;
+import ru.enplus.adblibrary.permissions.PermissionInfo;
+import ru.enplus.adblibrary.permissions.PermissionRegistry;
+import ru.enplus.adblibrary.shell.CommandResult;
+import ru.enplus.adblibrary.transport.CommandTransport;
+import ru.enplus.adblibrary.util.ByteLineConsumer;
+import ru.enplus.adblibrary.util.ByteLineTokenizer;
+import ru.enplus.adblibrary.util.LineConsumer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+
+import static ru.enplus.adblibrary.enums.EPermissionsStage.*;
+
+/**
+ * Parsing benchmark of the provider parsers: runs the String parsers replaced by the {@code ByteLine} ones
+ * (readLine, then replace/split/contains/strip per row) and the current parsers over generated captures of
+ * {@code pm list packages -f}, a multi-megabyte {@code dumpsys package packages} and {@code ifconfig}, checks that
+ * both produce the same result and prints the time and the bytes allocated per parse. The captures are served from
+ * memory: through a BufferedReader for the String parsers, through a reused buffer and a {@link ByteLineTokenizer}
+ * for the current ones, like the process transport does. Allocations are counted by the HotSpot thread MXBean. Run it with
+ * {@code java -cp target/classes ru.enplus.adblibrary.providers.ParserBenchmark [iterations] [packages]}.
+ */
+public final class ParserBenchmark {
+
+    private static final String DEVICE_ID = "emulator-5554";
+    private static final int INTERFACES = 64;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    /**
+     * Index of the dangerous permissions in the permission lists, compared by name only: the String parser listed
+     * a dangerous permission once per section it appeared in.
+     */
+    private static final int DANGEROUS_LIST = 0;
+
+    private ParserBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the average parse time and allocation of both parser generations.
+     *
+     * @param args the amount of measured iterations, 20 by default, and the amount of generated packages, 2000 by default
+     * @throws Exception if a capture could not be parsed
+     */
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int packages = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        CaptureTransport transport = new CaptureTransport();
+        ADBService adbService = new ADBService(transport);
+        adbService.getAdbServiceLogger().setLevel(Level.WARNING);
+        ApplicationDataProvider applicationProvider = new ApplicationDataProvider(adbService, DEVICE_ID);
+        NetworkDataProvider networkProvider = new NetworkDataProvider(adbService, DEVICE_ID);
+
+        String packagesCommand = applicationProvider.getCommandGenerator().generateApplicationCollectionShellCommand();
+        String dumpsysCommand = applicationProvider.getCommandGenerator().generateGetAllApplicationPermissionsShellCommand();
+        String ifconfigCommand = networkProvider.getCommandGenerator().generateGetNetworkInterfacesShellCommand();
+        transport.setCapture(packagesCommand, generatePackageList(packages));
+        transport.setCapture(dumpsysCommand, generateDumpsys(packages));
+        transport.setCapture(ifconfigCommand, generateIfconfig());
+
+        Callable<ArrayList<AndroidApplication>> oldPackages = () -> parseApplicationsList(transport, packagesCommand);
+        Callable<ArrayList<AndroidApplication>> newPackages = () -> applicationProvider.getApplicationsList(0);
+        Callable<Map<String, List<ArrayList<ApplicationPermission>>>> oldDumpsys = () -> parseAllApplicationPermissions(transport, dumpsysCommand);
+        Callable<Map<String, List<ArrayList<ApplicationPermission>>>> newDumpsys = applicationProvider::getAllApplicationPermissions;
+        Callable<ArrayList<String>> oldIfconfig = () -> parseNetworkInterfaces(transport, ifconfigCommand);
+        Callable<ArrayList<String>> newIfconfig = networkProvider::getNetworkInterfaces;
+
+        check("pm list", describeApplications(oldPackages.call()), describeApplications(newPackages.call()));
+        check("dumpsys", describePermissions(oldDumpsys.call()), describePermissions(newDumpsys.call()));
+        check("ifconfig", oldIfconfig.call(), newIfconfig.call());
+
+        System.out.printf("%d packages, %d iterations, times and allocations per parse%n", packages, iterations);
+        measure("pm list", transport.getCaptureSize(packagesCommand), oldPackages, newPackages, iterations);
+        measure("dumpsys", transport.getCaptureSize(dumpsysCommand), oldDumpsys, newDumpsys, iterations);
+        measure("ifconfig", transport.getCaptureSize(ifconfigCommand), oldIfconfig, newIfconfig, iterations);
+    }
+
+    private static void check(String name, Object expected, Object actual) {
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("The " + name + " parsers disagree");
+        }
+    }
+
+    private static void measure(String name, int captureSize, Callable<?> oldParser, Callable<?> newParser, int iterations) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            oldParser.call();
+            newParser.call();
+        }
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] times = new long[2];
+        long[] allocations = new long[2];
+        List<Callable<?>> parsers = Arrays.asList(oldParser, newParser);
+        for (int p = 0; p < parsers.size(); p++) {
+            long allocated = threadBean.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                parsers.get(p).call();
+            }
+            times[p] = System.nanoTime() - start;
+            allocations[p] = threadBean.getCurrentThreadAllocatedBytes() - allocated;
+        }
+        System.out.printf("%-8s %7.2f MB capture | String: %7.2f ms %8.2f MB | ByteLine: %7.2f ms %8.2f MB%n",
+                name, captureSize / 1e6, times[0] / (iterations * 1e6), allocations[0] / (iterations * 1e6),
+                times[1] / (iterations * 1e6), allocations[1] / (iterations * 1e6));
+    }
+
+    private static List<String> describeApplications(List<AndroidApplication> applications) {
+        List<String> described = new ArrayList<>();
+        for (AndroidApplication application : applications) {
+            described.add(application.getPath() + "=" + application.getPackageName());
+        }
+        return described;
+    }
+
+    private static Map<String, List<Set<String>>> describePermissions(Map<String, List<ArrayList<ApplicationPermission>>> permissions) {
+        Map<String, List<Set<String>>> described = new TreeMap<>();
+        permissions.forEach((packageName, lists) -> {
+            List<Set<String>> sets = new ArrayList<>();
+            for (int i = 0; i < lists.size(); i++) {
+                Set<String> set = new TreeSet<>();
+                for (ApplicationPermission permission : lists.get(i)) {
+                    set.add(i == DANGEROUS_LIST ? permission.getPermissionName() : permission.getPermissionName() + "=" + permission.isGranted());
+                }
+                sets.add(set);
+            }
+            described.put(packageName, sets);
+        });
+        return described;
+    }
+
+    /**
+     * The {@code pm list packages -f} parser replaced by the ByteLine one.
+     */
+    private static ArrayList<AndroidApplication> parseApplicationsList(CommandTransport transport, String command) throws IOException {
+        ArrayList<AndroidApplication> applications = new ArrayList<>();
+        final String fileFormat = ".apk";
+        transport.streamShell(DEVICE_ID, command, application -> {
+            String currentApp = application.replace("package:/", "/");
+            String[] params = currentApp.split(fileFormat + "=");
+            AndroidApplication app = new AndroidApplication();
+            app.setPath(params[0] + fileFormat);
+            app.setPackageName(params[1]);
+            applications.add(app);
+            return true;
+        });
+        return applications;
+    }
+
+    /**
+     * The per-package permission parser replaced by the ByteLine one, applied to every section of
+     * {@code dumpsys package packages} the way {@link BulkPermissionsParser} splits them.
+     */
+    private static Map<String, List<ArrayList<ApplicationPermission>>> parseAllApplicationPermissions(CommandTransport transport, String command) throws IOException {
+        Map<String, List<ArrayList<ApplicationPermission>>> permissions = new HashMap<>();
+        boolean[] inPackages = {false};
+        StringPermissionsParser[] currentPackage = {null};
+        transport.streamShell(DEVICE_ID, command, row -> {
+            if (!inPackages[0]) {
+                inPackages[0] = row.startsWith("Packages:");
+                return true;
+            }
+            if (!row.isEmpty() && row.charAt(0) != ' ') {
+                return false;
+            }
+            if (row.startsWith("  Package [")) {
+                currentPackage[0] = new StringPermissionsParser();
+                permissions.put(row.substring("  Package [".length(), row.indexOf(']')), currentPackage[0].getPermissions());
+                return true;
+            }
+            if (currentPackage[0] != null) {
+                currentPackage[0].accept(row);
+            }
+            return true;
+        });
+        return permissions;
+    }
+
+    /**
+     * The {@code ifconfig} parser replaced by the ByteLine one.
+     */
+    private static ArrayList<String> parseNetworkInterfaces(CommandTransport transport, String command) throws IOException {
+        ArrayList<String> networkInterfaces = new ArrayList<>();
+        transport.streamShell(DEVICE_ID, command, row -> {
+            if (row.contains("encap")) {
+                networkInterfaces.add(row.split(" ")[0]);
+            }
+            return true;
+        });
+        return networkInterfaces;
+    }
+
+    private static byte[] generatePackageList(int packages) {
+        Random random = new Random(7);
+        StringBuilder capture = new StringBuilder();
+        for (int i = 0; i < packages; i++) {
+            if (i % 10 == 0) {
+                capture.append("package:/system/priv-app/SystemApp").append(i).append("/SystemApp").append(i).append(".apk=com.android.system").append(i).append('\n');
+            } else {
+                capture.append("package:/data/app/~~").append(randomToken(random, 22)).append("==/com.example.app").append(i).append('-')
+                        .append(randomToken(random, 22)).append("==/base.apk=com.example.app").append(i).append('\n');
+            }
+        }
+        return capture.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] generateDumpsys(int packages) {
+        List<String> normalPermissions = platformPermissions(EProtectionLevel.NORMAL);
+        List<String> dangerousPermissions = platformPermissions(EProtectionLevel.DANGEROUS);
+        Random random = new Random(7);
+        StringBuilder capture = new StringBuilder();
+        capture.append("Database versions:\n  Internal:\n    sdkVersion=33 databaseVersion=3\n\n")
+                .append("Verifiers:\n  Required: com.android.vending (uid=10040)\n\n")
+                .append("Packages:\n");
+        for (int i = 0; i < packages; i++) {
+            String packageName = "com.example.app" + i;
+            String hash = randomToken(random, 7).toLowerCase();
+            String codePath = "/data/app/~~" + randomToken(random, 22) + "==/" + packageName + "-" + randomToken(random, 22) + "==";
+            capture.append("  Package [").append(packageName).append("] (").append(hash).append("):\n")
+                    .append("    userId=").append(10100 + i).append('\n')
+                    .append("    pkg=Package{").append(hash).append(' ').append(packageName).append("}\n")
+                    .append("    codePath=").append(codePath).append('\n')
+                    .append("    resourcePath=").append(codePath).append('\n')
+                    .append("    legacyNativeLibraryDir=").append(codePath).append("/lib\n")
+                    .append("    primaryCpuAbi=arm64-v8a\n    secondaryCpuAbi=null\n")
+                    .append("    versionCode=").append(random.nextInt(100000)).append(" minSdk=24 targetSdk=33\n")
+                    .append("    versionName=").append(random.nextInt(10)).append('.').append(random.nextInt(10)).append('.').append(random.nextInt(100)).append('\n')
+                    .append("    splits=[base]\n    apkSigningVersion=3\n")
+                    .append("    applicationInfo=PackageImpl{").append(hash).append(' ').append(packageName).append("}\n")
+                    .append("    flags=[ HAS_CODE ALLOW_CLEAR_USER_DATA ALLOW_BACKUP ]\n")
+                    .append("    privateFlags=[ PRIVATE_FLAG_ACTIVITIES_RESIZE_MODE_RESIZEABLE_VIA_SDK_VERSION ALLOW_AUDIO_PLAYBACK_CAPTURE ]\n")
+                    .append("    timeStamp=2023-05-14 10:21:07\n    firstInstallTime=2023-05-14 10:21:08\n    lastUpdateTime=2023-05-14 10:21:08\n")
+                    .append("    installerPackageName=com.android.vending\n")
+                    .append("    signatures=PackageSignatures{").append(randomToken(random, 7).toLowerCase()).append(" version:3, signatures:[")
+                    .append(randomToken(random, 8).toLowerCase()).append("], past signatures:[]}\n");
+            List<String> install = pick(normalPermissions, 4 + random.nextInt(8), random);
+            List<String> runtime = pick(dangerousPermissions, random.nextInt(7), random);
+            capture.append("    requested permissions:\n");
+            for (String permission : install) {
+                capture.append("      ").append(permission).append('\n');
+            }
+            for (String permission : runtime) {
+                capture.append("      ").append(permission).append('\n');
+            }
+            capture.append("    install permissions:\n");
+            for (String permission : install) {
+                capture.append("      ").append(permission).append(": granted=true\n");
+            }
+            capture.append("    User 0: ceDataInode=").append(random.nextInt(1000000))
+                    .append(" installed=true hidden=false suspended=false distractionFlags=0 stopped=false notLaunched=false enabled=0 instant=false virtual=false\n")
+                    .append("      gids=[3003]\n");
+            if (!runtime.isEmpty()) {
+                capture.append("      runtime permissions:\n");
+                for (String permission : runtime) {
+                    capture.append("        ").append(permission).append(": granted=").append(random.nextBoolean())
+                            .append(", flags=[ USER_SENSITIVE_WHEN_GRANTED|USER_SENSITIVE_WHEN_DENIED]\n");
+                }
+            }
+            capture.append("      enabledComponents:\n        ").append(packageName).append(".MainActivity\n");
+        }
+        capture.append("\nHidden system packages:\n  Package [com.android.hidden] (0000000):\n    userId=1000\n");
+        return capture.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] generateIfconfig() {
+        Random random = new Random(7);
+        StringBuilder capture = new StringBuilder();
+        for (int i = 0; i < INTERFACES; i++) {
+            String name = i == 0 ? "lo" : (i % 2 == 0 ? "rmnet_data" : "wlan") + i;
+            capture.append(String.format("%-10s", name)).append(i == 0 ? "Link encap:Local Loopback\n" : "Link encap:Ethernet  HWaddr 02:00:00:00:00:" + String.format("%02x", i) + "  Driver icnss\n")
+                    .append("          inet addr:10.0.").append(i).append('.').append(random.nextInt(255)).append("  Mask:255.255.255.0 \n")
+                    .append("          inet6 addr: fe80::").append(Integer.toHexString(random.nextInt(65536))).append("/64 Scope: Link\n")
+                    .append("          UP BROADCAST RUNNING MULTICAST  MTU:1500  Metric:1\n")
+                    .append("          RX packets:").append(random.nextInt(1000000)).append(" errors:0 dropped:0 overruns:0 frame:0 \n")
+                    .append("          TX packets:").append(random.nextInt(1000000)).append(" errors:0 dropped:0 overruns:0 carrier:0 \n")
+                    .append("          collisions:0 txqueuelen:3000 \n")
+                    .append("          RX bytes:").append(random.nextInt(Integer.MAX_VALUE)).append(" TX bytes:").append(random.nextInt(Integer.MAX_VALUE)).append(" \n\n");
+        }
+        return capture.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> platformPermissions(EProtectionLevel protectionLevel) {
+        List<String> permissions = new ArrayList<>();
+        for (PermissionInfo info : PermissionRegistry.getDefault().getByProtectionLevel(protectionLevel)) {
+            if (info.getName().startsWith("android.permission.")) {
+                permissions.add(info.getName());
+            }
+        }
+        return permissions;
+    }
+
+    private static List<String> pick(List<String> permissions, int count, Random random) {
+        List<String> picked = new ArrayList<>();
+        while (picked.size() < Math.min(count, permissions.size())) {
+            String permission = permissions.get(random.nextInt(permissions.size()));
+            if (!picked.contains(permission)) {
+                picked.add(permission);
+            }
+        }
+        return picked;
+    }
+
+    private static String randomToken(Random random, int length) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        StringBuilder token = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            token.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return token.toString();
+    }
+
+    /**
+     * The per-package permission parser replaced by {@link PackagePermissionsParser}.
+     */
+    private static final class StringPermissionsParser {
+
+        private final ArrayList<ApplicationPermission> dangerousPermissions = new ArrayList<>();
+        private final ArrayList<ApplicationPermission> installPermissions = new ArrayList<>();
+        private final ArrayList<ApplicationPermission> runtimePermissions = new ArrayList<>();
+        private final ArrayList<ApplicationPermission> requestedPermissions = new ArrayList<>();
+        private EPermissionsStage currentStage = AWAITING;
+
+        private void accept(String row) {
+            if (row.contains("requested permissions")) {
+                currentStage = COLLECT_REQUESTED_PERMISSIONS;
+                return;
+            }
+            else  if (row.contains("install permissions")) {
+                currentStage = COLLECT_INSTALL_PERMISSIONS;
+                return;
+            }
+            else if (row.contains("runtime permissions")) {
+                currentStage = COLLECT_RUNTIME_PERMISSIONS;
+            }
+
+            if (currentStage != AWAITING && row.contains("android.permission")) {
+                String currentRow = row.strip();
+                ApplicationPermission currentPermission = new ApplicationPermission();
+                currentPermission.setGranted(currentRow.contains("true"));
+                currentPermission.setPermissionName(currentRow.split(":")[0]);
+                if (currentPermission.isDangerous()) {
+                    dangerousPermissions.add(currentPermission);
+                }
+                switch (currentStage) {
+                    case COLLECT_REQUESTED_PERMISSIONS -> {
+                        currentPermission.setGranted(true);
+                        requestedPermissions.add(currentPermission);
+                    }
+                    case COLLECT_INSTALL_PERMISSIONS -> installPermissions.add(currentPermission);
+                    case COLLECT_RUNTIME_PERMISSIONS -> runtimePermissions.add(currentPermission);
+                }
+            }
+        }
+
+        private List<ArrayList<ApplicationPermission>> getPermissions() {
+            return Arrays.asList(dangerousPermissions, installPermissions, runtimePermissions, requestedPermissions);
+        }
+    }
+
+    /**
+     * Serves shell commands from in-memory captures, read line by line into Strings for {@link LineConsumer}s and
+     * through a reused buffer for {@link ByteLineConsumer}s.
+     */
+    private static final class CaptureTransport implements CommandTransport {
+
+        private final Map<String, byte[]> captures = new HashMap<>();
+
+        private void setCapture(String command, byte[] capture) {
+            captures.put(command, capture);
+        }
+
+        private int getCaptureSize(String command) {
+            return captures.get(command).length;
+        }
+
+        @Override
+        public ArrayList<String> listDevices() {
+            ArrayList<String> rows = new ArrayList<>();
+            rows.add(DEVICE_ID + "\tdevice");
+            return rows;
+        }
+
+        @Override
+        public CommandResult executeShell(String deviceId, String command, Duration timeout) throws IOException {
+            ArrayList<String> output = new ArrayList<>();
+            streamShell(deviceId, command, output::add, timeout);
+            return new CommandResult(output, 0);
+        }
+
+        @Override
+        public boolean streamShell(String deviceId, String command, LineConsumer consumer, Duration timeout) throws IOException {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(command), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!consumer.accept(line)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+
+        @Override
+        public boolean streamShellBytes(String deviceId, String command, ByteLineConsumer consumer, Duration timeout) throws IOException {
+            try (InputStream input = open(command)) {
+                ByteLineTokenizer tokenizer = new ByteLineTokenizer(consumer);
+                byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) >= 0) {
+                    if (!tokenizer.feed(buffer, 0, read)) {
+                        return false;
+                    }
+                }
+                return tokenizer.finish();
+            }
+        }
+
+        @Override
+        public void pull(String deviceId, String remotePath, Path localPath) throws IOException {
+            throw new IOException("The capture transport serves shell commands only");
+        }
+
+        @Override
+        public ArrayList<String> install(String deviceId, Path apkPath) throws IOException {
+            throw new IOException("The capture transport serves shell commands only");
+        }
+
+        @Override
+        public ArrayList<String> uninstall(String deviceId, String packageName) throws IOException {
+            throw new IOException("The capture transport serves shell commands only");
+        }
+
+        private InputStream open(String command) throws IOException {
+            byte[] capture = captures.get(command);
+            if (capture == null) {
+                throw new IOException("No capture for " + command);
+            }
+            return new ByteArrayInputStream(capture);
+        }
+    }
+}
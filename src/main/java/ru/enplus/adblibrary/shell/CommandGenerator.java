@@ -1,6 +1,8 @@
 package ru.enplus.adblibrary.shell;
 import ru.enplus.adblibrary.connection.ADBService;
 
+import java.util.List;
+
 public class CommandGenerator {
 
     private final StringBuilder commandBuilder;
@@ -16,10 +18,18 @@ public class CommandGenerator {
     public String generateApplicationCollectionCommand(){
         cleanContext();
         commandBuilder.append(adbService.getCommandBase(deviceId));
-        commandBuilder.append(" pm list packages -f ");
+        commandBuilder.append(generateApplicationCollectionShellCommand());
         return commandBuilder.toString();
     }
 
+    public String generateApplicationCollectionShellCommand(){
+        return "pm list packages -f";
+    }
+
+    public String generateInstalledPackagesShellCommand(){
+        return "pm list packages -f -U --show-versioncode";
+    }
+
     public String generateUninstallApplicationCommand(String packageName){
         cleanContext();
         commandBuilder.append(adbService.getCommandBaseNoShell(deviceId));
@@ -39,19 +49,26 @@ public class CommandGenerator {
     public String generateGetNetworkInterfacesCommand(){
         cleanContext();
         commandBuilder.append(adbService.getCommandBase(deviceId));
-        commandBuilder.append("ifconfig");
+        commandBuilder.append(generateGetNetworkInterfacesShellCommand());
         return commandBuilder.toString();
     }
 
+    public String generateGetNetworkInterfacesShellCommand(){
+        return "ifconfig";
+    }
+
 
     public String generateNetworkInterfaceIpAddressCommand(String interfaceName){
         cleanContext();
         commandBuilder.append(adbService.getCommandBase(deviceId));
-        commandBuilder.append(" ip addr show ");
-        commandBuilder.append(interfaceName);
+        commandBuilder.append(generateNetworkInterfaceIpAddressShellCommand(interfaceName));
         return commandBuilder.toString();
     }
 
+    public String generateNetworkInterfaceIpAddressShellCommand(String interfaceName){
+        return "ip addr show " + interfaceName;
+    }
+
 
 
     public String generatePullApplicationCommand(String applicationPath, String tempApkName){
@@ -68,21 +85,41 @@ public class CommandGenerator {
     public String generateGetApplicationPermissionsCommand(String applicationPackageName){
         cleanContext();
         commandBuilder.append(adbService.getCommandBase(deviceId));
-        commandBuilder.append(" dumpsys package ");
-        commandBuilder.append(applicationPackageName);
+        commandBuilder.append(generateGetApplicationPermissionsShellCommand(applicationPackageName));
         return commandBuilder.toString();
     }
 
+    public String generateGetApplicationPermissionsShellCommand(String applicationPackageName){
+        return "dumpsys package " + applicationPackageName;
+    }
+
+    public String generateGetAllApplicationPermissionsShellCommand(){
+        return "dumpsys package packages";
+    }
+
     public String generateHashCollectCommand(String hashName, String applicationPath){
         cleanContext();
         commandBuilder.append(adbService.getCommandBase(deviceId));
-        commandBuilder.append(' ');
-        commandBuilder.append(hashName);
-        commandBuilder.append(' ');
-        commandBuilder.append(applicationPath);
+        commandBuilder.append(generateHashCollectShellCommand(hashName, applicationPath));
         return commandBuilder.toString();
     }
 
+    public String generateHashCollectShellCommand(String hashName, String applicationPath){
+        return hashName + " " + applicationPath;
+    }
+
+    public String generateBatchHashCollectShellCommand(String hashName, List<String> applicationPaths){
+        return hashName + " " + String.join(" ", applicationPaths);
+    }
+
+    public String generateBatchStatShellCommand(List<String> paths){
+        return "stat -c '%f %s %Y %n'" + (paths.isEmpty() ? "" : " " + String.join(" ", paths));
+    }
+
+    public String generatePermissionChangeShellCommand(String action, String applicationPackage, String permission){
+        return "pm " + action + " " + applicationPackage + " " + permission;
+    }
+
 
     private void cleanContext(){
         this.commandBuilder.setLength(0);
@@ -0,0 +1,64 @@
+package ru.enplus.adblibrary.shell;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+
+/**
+ * Represents the result of a command executed on an Android device: its output lines and exit code.
+ */
+@Getter
+public class CommandResult {
+
+    /**
+     * Exit code used when the backend can not report the real one.
+     */
+    public static final int UNKNOWN_EXIT_CODE = Integer.MIN_VALUE;
+
+    /**
+     * The lines printed by the command.
+     */
+    private final ArrayList<String> output;
+
+    /**
+     * The exit code of the command, or {@link #UNKNOWN_EXIT_CODE} if it is not known.
+     */
+    private final int exitCode;
+
+    /**
+     * The lines the command printed to stderr, empty if the backend merges stderr into the output.
+     */
+    private final ArrayList<String> errorOutput;
+
+    /**
+     * Constructs a CommandResult with the specified output and exit code.
+     *
+     * @param output   the lines printed by the command
+     * @param exitCode the exit code of the command
+     */
+    public CommandResult(ArrayList<String> output, int exitCode) {
+        this(output, new ArrayList<>(), exitCode);
+    }
+
+    /**
+     * Constructs a CommandResult with the specified output, stderr output and exit code.
+     *
+     * @param output      the lines printed by the command
+     * @param errorOutput the lines the command printed to stderr
+     * @param exitCode    the exit code of the command
+     */
+    public CommandResult(ArrayList<String> output, ArrayList<String> errorOutput, int exitCode) {
+        this.output = output;
+        this.errorOutput = errorOutput;
+        this.exitCode = exitCode;
+    }
+
+    /**
+     * Checks if the command exited with code 0.
+     *
+     * @return true if the command succeeded, false otherwise
+     */
+    public boolean isSuccessful() {
+        return exitCode == 0;
+    }
+}
@@ -0,0 +1,279 @@
+package ru.enplus.adblibrary.shell;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.connection.ADBSocketClient;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived shell on an Android device. Commands are written to the stdin of a single shell,
+ * each one framed with a unique sentinel carrying its exit code, and the output is routed back to the caller.
+ * Callers may submit commands from any thread; the shell runs them in submission order.
+ */
+public class ShellSession implements Closeable {
+
+    private static final String SENTINEL_PREFIX = "__ADBLIB_";
+    private static final AtomicLong SESSION_COUNTER = new AtomicLong();
+
+    @Getter
+    private final String deviceId;
+    private final WritableByteChannel shellInput;
+    private final Closeable connection;
+    private final Queue<PendingCommand> pendingCommands = new ConcurrentLinkedQueue<>();
+    private final Object writeLock = new Object();
+    private final String sessionTag;
+    private long commandCounter;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a ShellSession over an already started shell.
+     *
+     * @param deviceId    the ID of the device the shell runs on
+     * @param shellOutput the merged stdout and stderr of the shell
+     * @param shellInput  the stdin of the shell
+     * @param connection  the resource to close together with the session (process or socket)
+     */
+    public ShellSession(String deviceId, InputStream shellOutput, WritableByteChannel shellInput, Closeable connection) {
+        this.deviceId = deviceId;
+        this.shellInput = shellInput;
+        this.connection = connection;
+        this.sessionTag = SENTINEL_PREFIX + SESSION_COUNTER.incrementAndGet() + "_";
+        Thread reader = new Thread(() -> readOutput(shellOutput), "adb-shell-session-" + deviceId);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Opens a shell session on the device as a {@code shell:sh} stream of the ADB server.
+     *
+     * @param socketClient the client of the ADB server
+     * @param deviceId     the ID of the device
+     * @return the opened session
+     * @throws IOException if the shell could not be started
+     */
+    public static ShellSession open(ADBSocketClient socketClient, String deviceId) throws IOException {
+        SocketChannel channel = socketClient.openService(deviceId, "shell:sh");
+        return new ShellSession(deviceId, Channels.newInputStream(channel), channel, channel);
+    }
+
+    /**
+     * Opens a shell session on the device as a single {@code adb shell} process.
+     *
+     * @param adbPath  the path to the ADB executable
+     * @param deviceId the ID of the device
+     * @return the opened session
+     * @throws IOException if the shell could not be started
+     */
+    public static ShellSession open(String adbPath, String deviceId) throws IOException {
+        Process process = new ProcessBuilder(adbPath, "-s", deviceId, "shell")
+                .redirectErrorStream(true)
+                .start();
+        return new ShellSession(deviceId, process.getInputStream(), Channels.newChannel(process.getOutputStream()), process::destroy);
+    }
+
+    /**
+     * Executes a command in the session and waits for its result.
+     *
+     * @param command the shell command to execute
+     * @return the output and exit code of the command
+     * @throws IOException if the session is closed or broke while the command was running
+     */
+    public CommandResult execute(String command) throws IOException {
+        return execute(command, Duration.ZERO);
+    }
+
+    /**
+     * Executes a command in the session and waits for its result at most until the deadline.
+     * A command outliving its deadline, or whose caller is interrupted, can not be told apart from the output
+     * of the following commands any more, so the whole session is killed and the pipelined commands fail too.
+     *
+     * @param command the shell command to execute
+     * @param timeout the time the command is allowed to run; zero disables the deadline
+     * @return the output and exit code of the command
+     * @throws InterruptedIOException if the command timed out or the calling thread was interrupted
+     * @throws IOException            if the session is closed or broke while the command was running
+     */
+    public CommandResult execute(String command, Duration timeout) throws IOException {
+        CompletableFuture<CommandResult> result = submit(command);
+        try {
+            if (timeout.isZero() || timeout.isNegative()) {
+                return result.get();
+            }
+            return result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            close();
+            throw new InterruptedIOException("Command " + command + " timed out after " + timeout.toMillis() + " ms in shell session of " + deviceId);
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Command " + command + " was cancelled in shell session of " + deviceId);
+        } catch (ExecutionException e) {
+            throw new IOException("Command " + command + " failed in shell session of " + deviceId, e.getCause());
+        }
+    }
+
+    /**
+     * Submits a command to the session without waiting for it.
+     *
+     * @param command the shell command to execute
+     * @return a future completed with the output and exit code of the command
+     */
+    public CompletableFuture<CommandResult> submit(String command) {
+        CompletableFuture<CommandResult> future = new CompletableFuture<>();
+        synchronized (writeLock) {
+            if (closed) {
+                future.completeExceptionally(new IOException("Shell session of " + deviceId + " is closed"));
+                return future;
+            }
+            String sentinel = sessionTag + (++commandCounter) + "__";
+            PendingCommand pending = new PendingCommand(sentinel, future);
+            pendingCommands.add(pending);
+            try {
+                ByteBuffer framed = ByteBuffer.wrap(frame(command, sentinel).getBytes(StandardCharsets.UTF_8));
+                while (framed.hasRemaining()) {
+                    shellInput.write(framed);
+                }
+            } catch (IOException e) {
+                pendingCommands.remove(pending);
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Checks if the session still accepts commands.
+     *
+     * @return true if the session is open, false otherwise
+     */
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Closes the shell and fails all commands that did not finish yet.
+     *
+     * @throws IOException if the underlying connection could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            shellInput.close();
+        } finally {
+            connection.close();
+            failPending(new IOException("Shell session of " + deviceId + " is closed"));
+        }
+    }
+
+    /**
+     * Wraps a command so that its stdin is detached, stderr is merged into stdout,
+     * and the sentinel with the exit code is printed after it.
+     *
+     * @param command  the shell command
+     * @param sentinel the unique sentinel of the command
+     * @return the framed command line
+     */
+    static String frame(String command, String sentinel) {
+        return "{ " + command + "; } < /dev/null 2>&1; echo \"" + sentinel + ":$?\"\n";
+    }
+
+    /**
+     * Reads the shell output and routes each line to the command at the head of the queue.
+     *
+     * @param shellOutput the merged stdout and stderr of the shell
+     */
+    private void readOutput(InputStream shellOutput) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(shellOutput, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                PendingCommand current = pendingCommands.peek();
+                if (current == null) {
+                    continue;
+                }
+                int sentinelIndex = line.indexOf(current.sentinel);
+                if (sentinelIndex < 0) {
+                    current.output.add(line);
+                    continue;
+                }
+                if (sentinelIndex > 0) {
+                    current.output.add(line.substring(0, sentinelIndex));
+                }
+                pendingCommands.poll();
+                current.future.complete(new CommandResult(current.output, parseExitCode(line, sentinelIndex + current.sentinel.length())));
+            }
+        } catch (IOException e) {
+            failPending(e);
+            return;
+        }
+        failPending(new IOException("Shell session of " + deviceId + " was terminated"));
+    }
+
+    /**
+     * Parses the exit code printed after the sentinel.
+     *
+     * @param line  the sentinel line
+     * @param index the index of the ':' separator following the sentinel
+     * @return the exit code, or {@link CommandResult#UNKNOWN_EXIT_CODE} if it is malformed
+     */
+    private int parseExitCode(String line, int index) {
+        try {
+            return Integer.parseInt(line.substring(index + 1).strip());
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return CommandResult.UNKNOWN_EXIT_CODE;
+        }
+    }
+
+    /**
+     * Fails every command still waiting for output.
+     *
+     * @param cause the reason of the failure
+     */
+    private void failPending(IOException cause) {
+        synchronized (writeLock) {
+            closed = true;
+            PendingCommand pending;
+            while ((pending = pendingCommands.poll()) != null) {
+                pending.future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    /**
+     * Command written to the shell and waiting for its sentinel.
+     */
+    private static class PendingCommand {
+        private final String sentinel;
+        private final CompletableFuture<CommandResult> future;
+        private final ArrayList<String> output = new ArrayList<>();
+
+        PendingCommand(String sentinel, CompletableFuture<CommandResult> future) {
+            this.sentinel = sentinel;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package ru.enplus.adblibrary.transport;
+
+import ru.enplus.adblibrary.shell.CommandResult;
+import ru.enplus.adblibrary.shell.ShellSession;
+import ru.enplus.adblibrary.util.ByteLine;
+import ru.enplus.adblibrary.util.ByteLineConsumer;
+import ru.enplus.adblibrary.util.LineConsumer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+
+/**
+ * Execution path of the commands the library sends to Android devices.
+ * Implementations decide how a command reaches the device: an adb process per command ({@link ProcessCommandTransport}),
+ * the ADB server socket ({@link SocketCommandTransport}), a persistent shell ({@link ShellSessionCommandTransport})
+ * or an in-memory script ({@link ScriptedCommandTransport}).
+ */
+public interface CommandTransport extends Closeable {
+
+    /**
+     * Deadline applied to commands executed without an explicit one.
+     */
+    Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
+
+    /**
+     * Retrieves the devices known to the transport.
+     *
+     * @return a list of rows in the format "serial state [key:value...]"
+     * @throws IOException if the device list could not be retrieved
+     */
+    ArrayList<String> listDevices() throws IOException;
+
+    /**
+     * Executes a shell command on the device with the default deadline.
+     *
+     * @param deviceId the ID of the device
+     * @param command  the shell command to execute
+     * @return the output and exit code of the command
+     * @throws IOException if the command could not be executed or timed out
+     */
+    default CommandResult executeShell(String deviceId, String command) throws IOException {
+        return executeShell(deviceId, command, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Executes a shell command on the device. If the command outlives the deadline it is killed
+     * (or its connection closed) and {@link java.io.InterruptedIOException} is thrown,
+     * so a wedged device costs bounded time.
+     *
+     * @param deviceId the ID of the device
+     * @param command  the shell command to execute
+     * @param timeout  the time the command is allowed to run; zero disables the deadline
+     * @return the output and exit code of the command
+     * @throws IOException if the command could not be executed or timed out
+     */
+    CommandResult executeShell(String deviceId, String command, Duration timeout) throws IOException;
+
+    /**
+     * Executes a shell command on the device and feeds its output to the consumer line by line.
+     * If the consumer stops early, the command is terminated. Transports without a streaming path
+     * collect the output first and then feed it.
+     *
+     * @param deviceId the ID of the device
+     * @param command  the shell command to execute
+     * @param consumer the callback receiving each line; returning false stops the command
+     * @param timeout  the time the command is allowed to run; zero disables the deadline
+     * @return true if the whole output was consumed, false if the consumer stopped early
+     * @throws IOException if the command could not be executed or timed out
+     */
+    default boolean streamShell(String deviceId, String command, LineConsumer consumer, Duration timeout) throws IOException {
+        for (String line : executeShell(deviceId, command, timeout).getOutput()) {
+            if (!consumer.accept(line)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Executes a shell command on the device with the default deadline and feeds its output to the consumer line by line.
+     *
+     * @param deviceId the ID of the device
+     * @param command  the shell command to execute
+     * @param consumer the callback receiving each line; returning false stops the command
+     * @return true if the whole output was consumed, false if the consumer stopped early
+     * @throws IOException if the command could not be executed or timed out
+     */
+    default boolean streamShell(String deviceId, String command, LineConsumer consumer) throws IOException {
+        return streamShell(deviceId, command, consumer, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Executes a shell command on the device and feeds its output to the consumer line by line as undecoded bytes.
+     * Transports reading raw output hand out views of their read buffer; the others encode each collected line.
+     *
+     * @param deviceId the ID of the device
+     * @param command  the shell command to execute
+     * @param consumer the callback receiving each line; returning false stops the command
+     * @param timeout  the time the command is allowed to run; zero disables the deadline
+     * @return true if the whole output was consumed, false if the consumer stopped early
+     * @throws IOException if the command could not be executed or timed out
+     */
+    default boolean streamShellBytes(String deviceId, String command, ByteLineConsumer consumer, Duration timeout) throws IOException {
+        return streamShell(deviceId, command, line -> consumer.accept(ByteLine.wrap(line.getBytes(StandardCharsets.UTF_8))), timeout);
+    }
+
+    /**
+     * Executes a shell command on the device with the default deadline and feeds its output to the consumer
+     * line by line as undecoded bytes.
+     *
+     * @param deviceId the ID of the device
+     * @param command  the shell command to execute
+     * @param consumer the callback receiving each line; returning false stops the command
+     * @return true if the whole output was consumed, false if the consumer stopped early
+     * @throws IOException if the command could not be executed or timed out
+     */
+    default boolean streamShellBytes(String deviceId, String command, ByteLineConsumer consumer) throws IOException {
+        return streamShellBytes(deviceId, command, consumer, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Copies a file from the device to the host.
+     *
+     * @param deviceId   the ID of the device
+     * @param remotePath the path of the file on the device
+     * @param localPath  the path of the local copy
+     * @throws IOException if the file could not be copied
+     */
+    void pull(String deviceId, String remotePath, Path localPath) throws IOException;
+
+    /**
+     * Streams a file from the device into the channel as the data arrives.
+     * The default implementation pulls into a temporary file first and copies it.
+     *
+     * @param deviceId   the ID of the device
+     * @param remotePath the path of the file on the device
+     * @param target     the channel receiving the file data; it is not closed
+     * @return the amount of bytes transferred
+     * @throws IOException if the file could not be copied
+     */
+    default long pull(String deviceId, String remotePath, WritableByteChannel target) throws IOException {
+        Path tempFile = Files.createTempFile("adblib-", ".pull");
+        try {
+            pull(deviceId, remotePath, tempFile);
+            try (FileChannel source = FileChannel.open(tempFile, StandardOpenOption.READ)) {
+                long size = source.size();
+                long position = 0;
+                while (position < size) {
+                    position += source.transferTo(position, size - position, target);
+                }
+                return size;
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Installs an APK file on the device.
+     *
+     * @param deviceId the ID of the device
+     * @param apkPath  the path of the local APK file
+     * @return the output of the installer
+     * @throws IOException if the installer could not be run
+     */
+    ArrayList<String> install(String deviceId, Path apkPath) throws IOException;
+
+    /**
+     * Uninstalls an application from the device.
+     *
+     * @param deviceId    the ID of the device
+     * @param packageName the package name of the application
+     * @return the output of the uninstaller
+     * @throws IOException if the uninstaller could not be run
+     */
+    ArrayList<String> uninstall(String deviceId, String packageName) throws IOException;
+
+    /**
+     * Opens a long-lived shell on the device.
+     *
+     * @param deviceId the ID of the device
+     * @return the opened shell session
+     * @throws IOException if the transport can not open persistent shells or the shell could not be started
+     */
+    default ShellSession openShellSession(String deviceId) throws IOException {
+        throw new IOException(getClass().getSimpleName() + " does not support persistent shell sessions");
+    }
+
+    /**
+     * Releases the resources held by the transport.
+     *
+     * @throws IOException if the resources could not be released
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,168 @@
+package ru.enplus.adblibrary.transport;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.shell.CommandResult;
+import ru.enplus.adblibrary.shell.ShellSession;
+import ru.enplus.adblibrary.util.ByteLineConsumer;
+import ru.enplus.adblibrary.util.LineConsumer;
+import ru.enplus.adblibrary.util.ProcessOutputHandler;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transport spawning one adb client process per command.
+ */
+@Getter
+public class ProcessCommandTransport implements CommandTransport {
+
+    /**
+     * The error adb reports when the device does not know the exec service.
+     */
+    private static final String EXEC_OUT_UNSUPPORTED = "error: closed";
+
+    private final String adbPath;
+    private final ProcessOutputHandler processOutputHandler;
+
+    /**
+     * Constructs a ProcessCommandTransport using the specified adb executable.
+     *
+     * @param adbPath              the path to the ADB executable
+     * @param processOutputHandler the handler reading the output of the spawned processes
+     */
+    public ProcessCommandTransport(String adbPath, ProcessOutputHandler processOutputHandler) {
+        this.adbPath = adbPath;
+        this.processOutputHandler = processOutputHandler;
+    }
+
+    @Override
+    public ArrayList<String> listDevices() throws IOException {
+        return run(adbPath + " devices -l");
+    }
+
+    @Override
+    public CommandResult executeShell(String deviceId, String command) throws IOException {
+        return executeShell(deviceId, command, processOutputHandler.getDefaultTimeout());
+    }
+
+    @Override
+    public CommandResult executeShell(String deviceId, String command, Duration timeout) throws IOException {
+        Process process = Runtime.getRuntime().exec(commandBase(deviceId) + "shell " + command);
+        return processOutputHandler.getProcessResult(process, timeout);
+    }
+
+    @Override
+    public boolean streamShell(String deviceId, String command, LineConsumer consumer) throws IOException {
+        return streamShell(deviceId, command, consumer, processOutputHandler.getDefaultTimeout());
+    }
+
+    @Override
+    public boolean streamShell(String deviceId, String command, LineConsumer consumer, Duration timeout) throws IOException {
+        Process process = Runtime.getRuntime().exec(commandBase(deviceId) + "shell " + command);
+        return processOutputHandler.streamProcessOutput(process, consumer, timeout);
+    }
+
+    @Override
+    public boolean streamShellBytes(String deviceId, String command, ByteLineConsumer consumer) throws IOException {
+        return streamShellBytes(deviceId, command, consumer, processOutputHandler.getDefaultTimeout());
+    }
+
+    @Override
+    public boolean streamShellBytes(String deviceId, String command, ByteLineConsumer consumer, Duration timeout) throws IOException {
+        Process process = Runtime.getRuntime().exec(commandBase(deviceId) + "shell " + command);
+        return processOutputHandler.streamProcessBytes(process, consumer, timeout);
+    }
+
+    /**
+     * Pulls the file with {@code adb pull}, which reports a missing or unreadable file with a non-zero exit code.
+     */
+    @Override
+    public void pull(String deviceId, String remotePath, Path localPath) throws IOException {
+        Process process = new ProcessBuilder(adbPath, "-s", deviceId, "pull", remotePath, localPath.toString()).start();
+        CommandResult result = processOutputHandler.getProcessResult(process, processOutputHandler.getDefaultTimeout());
+        if (result.getExitCode() != 0) {
+            throw new IOException("Unable to pull " + remotePath + ": " + describeFailure(result));
+        }
+    }
+
+    /**
+     * Streams the file through {@code adb exec-out cat}, which passes the bytes unmodified. exec-out has no shell
+     * protocol: errors of cat arrive in the same stream and adb exits with 0, so the size of the file is read with
+     * stat first and the amount of received bytes is checked against it. If stat reports no size, because the file
+     * is missing or the device has no stat, and on devices without exec-out (before Android 5.0) the file is pulled
+     * into a temporary file instead.
+     */
+    @Override
+    public long pull(String deviceId, String remotePath, WritableByteChannel target) throws IOException {
+        long expectedSize = statSize(deviceId, remotePath);
+        if (expectedSize < 0) {
+            return CommandTransport.super.pull(deviceId, remotePath, target);
+        }
+        Process process = new ProcessBuilder(adbPath, "-s", deviceId, "exec-out", "cat", remotePath).start();
+        long transferred;
+        try {
+            transferred = processOutputHandler.copyProcessOutput(process, target, processOutputHandler.getDefaultTimeout());
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            if (e.getMessage() != null && e.getMessage().contains(EXEC_OUT_UNSUPPORTED)) {
+                return CommandTransport.super.pull(deviceId, remotePath, target);
+            }
+            throw new IOException("Unable to pull " + remotePath + ": " + e.getMessage(), e);
+        }
+        if (transferred != expectedSize) {
+            throw new IOException("Unable to pull " + remotePath + ": received " + transferred + " of " + expectedSize + " bytes");
+        }
+        return transferred;
+    }
+
+    @Override
+    public ArrayList<String> install(String deviceId, Path apkPath) throws IOException {
+        return run(commandBase(deviceId) + "install " + apkPath);
+    }
+
+    @Override
+    public ArrayList<String> uninstall(String deviceId, String packageName) throws IOException {
+        return run(commandBase(deviceId) + "uninstall " + packageName);
+    }
+
+    @Override
+    public ShellSession openShellSession(String deviceId) throws IOException {
+        return ShellSession.open(adbPath, deviceId);
+    }
+
+    /**
+     * Reads the size of a file on the device.
+     *
+     * @return the size in bytes, or -1 if stat did not report one
+     */
+    private long statSize(String deviceId, String remotePath) throws IOException {
+        CommandResult result = executeShell(deviceId, "stat -c %s " + remotePath);
+        if (result.getExitCode() == 0 && result.getOutput().size() == 1) {
+            try {
+                return Long.parseLong(result.getOutput().get(0).strip());
+            } catch (NumberFormatException e) {
+                // not a size, e.g. the usage of a toolbox without stat
+            }
+        }
+        return -1;
+    }
+
+    private static String describeFailure(CommandResult result) {
+        List<String> rows = result.getErrorOutput().isEmpty() ? result.getOutput() : result.getErrorOutput();
+        return rows.isEmpty() ? "adb exited with code " + result.getExitCode() : String.join(" ", rows);
+    }
+
+    private String commandBase(String deviceId) {
+        return adbPath + " -s " + deviceId + " ";
+    }
+
+    private ArrayList<String> run(String command) throws IOException {
+        return processOutputHandler.getProcessOutput(Runtime.getRuntime().exec(command));
+    }
+}
@@ -0,0 +1,272 @@
+package ru.enplus.adblibrary.transport;
+
+import lombok.Getter;
+import lombok.Setter;
+import ru.enplus.adblibrary.shell.CommandResult;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory transport answering commands from a script instead of a device.
+ * It lets every provider run, be benchmarked and be load-tested without hardware:
+ * <pre>
+ *     ScriptedCommandTransport transport = new ScriptedCommandTransport();
+ *     transport.addDevice("emulator-5554");
+ *     transport.setProperty("emulator-5554", "ro.build.version.release", "13");
+ *     transport.setLatency(Duration.ofMillis(20));
+ *     transport.setLatency("pm list", Duration.ofMillis(120));
+ *     ADBService adbService = new ADBService(transport);
+ * </pre>
+ */
+public class ScriptedCommandTransport implements CommandTransport {
+
+    private final Map<String, String> deviceStates = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, CommandResult>> shellResults = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, byte[]>> files = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> properties = new ConcurrentHashMap<>();
+
+    /**
+     * Every operation executed by the transport, as "deviceId: operation", in execution order.
+     */
+    @Getter
+    private final Queue<String> executedCommands = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Simulated round trip time added to every operation.
+     */
+    @Getter
+    @Setter
+    private volatile Duration latency = Duration.ZERO;
+
+    private final Map<String, Duration> operationLatencies = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> shellFailures = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the simulated round trip time of the operations starting with a prefix, e.g. {@code "getprop"},
+     * {@code "pm list"}, {@code "devices"} for the device list or {@code "pull "} for pulls. The longest matching
+     * prefix wins; other operations take the global latency.
+     *
+     * @param operationPrefix the prefix of the operations
+     * @param latency         the round trip time of the operations
+     */
+    public void setLatency(String operationPrefix, Duration latency) {
+        operationLatencies.put(operationPrefix, latency);
+    }
+
+    /**
+     * Registers an online device.
+     *
+     * @param deviceId the ID of the device
+     */
+    public void addDevice(String deviceId) {
+        addDevice(deviceId, "device");
+    }
+
+    /**
+     * Registers a device in the specified state (e.g. "device", "offline", "unauthorized").
+     *
+     * @param deviceId the ID of the device
+     * @param state    the state of the device
+     */
+    public void addDevice(String deviceId, String state) {
+        deviceStates.put(deviceId, state);
+    }
+
+    /**
+     * Removes a device together with its script.
+     *
+     * @param deviceId the ID of the device
+     */
+    public void removeDevice(String deviceId) {
+        deviceStates.remove(deviceId);
+        shellResults.remove(deviceId);
+        shellFailures.remove(deviceId);
+        files.remove(deviceId);
+        properties.remove(deviceId);
+    }
+
+    /**
+     * Sets the output the device prints for the specified shell command, with exit code 0.
+     *
+     * @param deviceId the ID of the device
+     * @param command  the exact shell command
+     * @param output   the output of the command, lines separated by '\n'
+     */
+    public void setShellOutput(String deviceId, String command, String output) {
+        ArrayList<String> lines = output.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(output.split("\n")));
+        setShellResult(deviceId, command, new CommandResult(lines, 0));
+    }
+
+    /**
+     * Sets the result the device produces for the specified shell command.
+     *
+     * @param deviceId the ID of the device
+     * @param command  the exact shell command
+     * @param result   the result of the command
+     */
+    public void setShellResult(String deviceId, String command, CommandResult result) {
+        shellResults.computeIfAbsent(deviceId, id -> new ConcurrentHashMap<>()).put(command, result);
+    }
+
+    /**
+     * Makes the specified shell command fail with an IOException after its round trip, like a lost connection.
+     *
+     * @param deviceId the ID of the device
+     * @param command  the exact shell command
+     * @param message  the message of the exception
+     */
+    public void setShellFailure(String deviceId, String command, String message) {
+        shellFailures.computeIfAbsent(deviceId, id -> new ConcurrentHashMap<>()).put(command, message);
+    }
+
+    /**
+     * Sets a system property of the device, reported by {@code getprop} and {@code getprop <key>}.
+     *
+     * @param deviceId the ID of the device
+     * @param key      the property key
+     * @param value    the property value
+     */
+    public void setProperty(String deviceId, String key, String value) {
+        properties.computeIfAbsent(deviceId, id -> new ConcurrentSkipListMap<>()).put(key, value);
+    }
+
+    /**
+     * Places a file on the device, available to {@link #pull(String, String, Path)}.
+     *
+     * @param deviceId   the ID of the device
+     * @param remotePath the path of the file on the device
+     * @param data       the content of the file
+     */
+    public void setFile(String deviceId, String remotePath, byte[] data) {
+        files.computeIfAbsent(deviceId, id -> new ConcurrentHashMap<>()).put(remotePath, data);
+    }
+
+    @Override
+    public ArrayList<String> listDevices() throws IOException {
+        simulateRoundTrip("host", "devices", DEFAULT_TIMEOUT);
+        ArrayList<String> rows = new ArrayList<>();
+        deviceStates.forEach((deviceId, state) -> rows.add(deviceId + "\t" + state));
+        return rows;
+    }
+
+    @Override
+    public CommandResult executeShell(String deviceId, String command, Duration timeout) throws IOException {
+        simulateRoundTrip(deviceId, command, timeout);
+        String failure = shellFailures.getOrDefault(deviceId, Map.of()).get(command);
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+        CommandResult result = shellResults.getOrDefault(deviceId, Map.of()).get(command);
+        if (result != null) {
+            return new CommandResult(new ArrayList<>(result.getOutput()), new ArrayList<>(result.getErrorOutput()), result.getExitCode());
+        }
+        Map<String, String> deviceProperties = properties.getOrDefault(deviceId, Map.of());
+        if (command.equals("getprop")) {
+            ArrayList<String> output = new ArrayList<>();
+            deviceProperties.forEach((key, value) -> output.add("[" + key + "]: [" + value + "]"));
+            return new CommandResult(output, 0);
+        }
+        if (command.startsWith("getprop ")) {
+            ArrayList<String> output = new ArrayList<>();
+            output.add(deviceProperties.getOrDefault(command.substring("getprop ".length()).strip(), ""));
+            return new CommandResult(output, 0);
+        }
+        ArrayList<String> output = new ArrayList<>();
+        output.add("/system/bin/sh: " + command.split("\\s+")[0] + ": inaccessible or not found");
+        return new CommandResult(output, 127);
+    }
+
+    @Override
+    public void pull(String deviceId, String remotePath, Path localPath) throws IOException {
+        simulateRoundTrip(deviceId, "pull " + remotePath, DEFAULT_TIMEOUT);
+        byte[] data = files.getOrDefault(deviceId, Map.of()).get(remotePath);
+        if (data == null) {
+            throw new IOException("remote object '" + remotePath + "' does not exist");
+        }
+        Files.write(localPath, data);
+    }
+
+    @Override
+    public long pull(String deviceId, String remotePath, WritableByteChannel target) throws IOException {
+        simulateRoundTrip(deviceId, "pull " + remotePath, DEFAULT_TIMEOUT);
+        byte[] data = files.getOrDefault(deviceId, Map.of()).get(remotePath);
+        if (data == null) {
+            throw new IOException("remote object '" + remotePath + "' does not exist");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        return data.length;
+    }
+
+    @Override
+    public ArrayList<String> install(String deviceId, Path apkPath) throws IOException {
+        simulateRoundTrip(deviceId, "install " + apkPath, DEFAULT_TIMEOUT);
+        ArrayList<String> output = new ArrayList<>();
+        output.add("Success");
+        return output;
+    }
+
+    @Override
+    public ArrayList<String> uninstall(String deviceId, String packageName) throws IOException {
+        simulateRoundTrip(deviceId, "uninstall " + packageName, DEFAULT_TIMEOUT);
+        ArrayList<String> output = new ArrayList<>();
+        output.add("Success");
+        return output;
+    }
+
+    /**
+     * Records the operation, checks that the device is online and waits for the simulated latency,
+     * timing out like a real transport if the latency exceeds the deadline.
+     */
+    private void simulateRoundTrip(String deviceId, String operation, Duration timeout) throws IOException {
+        executedCommands.add(deviceId + ": " + operation);
+        if (!deviceId.equals("host") && !"device".equals(deviceStates.get(deviceId))) {
+            throw new IOException("device '" + deviceId + "' not found");
+        }
+        Duration latency = getLatency(operation);
+        boolean timesOut = !timeout.isZero() && latency.compareTo(timeout) > 0;
+        Duration wait = timesOut ? timeout : latency;
+        if (!wait.isZero()) {
+            try {
+                Thread.sleep(wait.toMillis(), wait.toNanosPart() % 1_000_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Cancelled while executing " + operation);
+            }
+        }
+        if (timesOut) {
+            throw new InterruptedIOException(operation + " timed out after " + timeout.toMillis() + " ms");
+        }
+    }
+
+    /**
+     * Retrieves the simulated round trip time of an operation: the latency of its longest configured prefix,
+     * or the global latency.
+     */
+    private Duration getLatency(String operation) {
+        Duration matched = latency;
+        int matchedLength = -1;
+        for (Map.Entry<String, Duration> entry : operationLatencies.entrySet()) {
+            if (operation.startsWith(entry.getKey()) && entry.getKey().length() > matchedLength) {
+                matched = entry.getValue();
+                matchedLength = entry.getKey().length();
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.enplus.adblibrary.transport;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.shell.CommandResult;
+import ru.enplus.adblibrary.shell.ShellSession;
+import ru.enplus.adblibrary.util.ByteLineConsumer;
+import ru.enplus.adblibrary.util.LineConsumer;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Transport running shell commands in one persistent shell session per device.
+ * Sessions are opened through the delegate transport on first use and reopened if they break;
+ * everything besides shell commands is delegated.
+ */
+public class ShellSessionCommandTransport implements CommandTransport {
+
+    @Getter
+    private final CommandTransport delegate;
+    private final Map<String, ShellSession> shellSessions = new HashMap<>();
+    private final Logger transportLogger = Logger.getLogger("ShellSessionTransportLogger");
+
+    /**
+     * Constructs a ShellSessionCommandTransport opening its sessions through the specified transport.
+     *
+     * @param delegate the transport opening the sessions and serving the non-shell operations
+     */
+    public ShellSessionCommandTransport(CommandTransport delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ArrayList<String> listDevices() throws IOException {
+        return delegate.listDevices();
+    }
+
+    @Override
+    public CommandResult executeShell(String deviceId, String command, Duration timeout) throws IOException {
+        return getShellSession(deviceId).execute(command, timeout);
+    }
+
+    /**
+     * Streams the command through the delegate transport rather than the persistent session,
+     * so that a consumer stopping early terminates only its own command and not the shared session.
+     */
+    @Override
+    public boolean streamShell(String deviceId, String command, LineConsumer consumer, Duration timeout) throws IOException {
+        return delegate.streamShell(deviceId, command, consumer, timeout);
+    }
+
+    @Override
+    public boolean streamShellBytes(String deviceId, String command, ByteLineConsumer consumer, Duration timeout) throws IOException {
+        return delegate.streamShellBytes(deviceId, command, consumer, timeout);
+    }
+
+    @Override
+    public void pull(String deviceId, String remotePath, Path localPath) throws IOException {
+        delegate.pull(deviceId, remotePath, localPath);
+    }
+
+    @Override
+    public long pull(String deviceId, String remotePath, WritableByteChannel target) throws IOException {
+        return delegate.pull(deviceId, remotePath, target);
+    }
+
+    @Override
+    public ArrayList<String> install(String deviceId, Path apkPath) throws IOException {
+        return delegate.install(deviceId, apkPath);
+    }
+
+    @Override
+    public ArrayList<String> uninstall(String deviceId, String packageName) throws IOException {
+        return delegate.uninstall(deviceId, packageName);
+    }
+
+    @Override
+    public ShellSession openShellSession(String deviceId) throws IOException {
+        return delegate.openShellSession(deviceId);
+    }
+
+    /**
+     * Retrieves the persistent shell session of the device, opening a new one if there is none or the previous one broke.
+     *
+     * @param deviceId the ID of the device
+     * @return the open shell session of the device
+     * @throws IOException if the shell session could not be opened
+     */
+    public ShellSession getShellSession(String deviceId) throws IOException {
+        synchronized (shellSessions) {
+            ShellSession session = shellSessions.get(deviceId);
+            if (session == null || !session.isOpen()) {
+                session = delegate.openShellSession(deviceId);
+                shellSessions.put(deviceId, session);
+                transportLogger.fine("Opened persistent shell session for " + deviceId);
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Closes all persistent shell sessions opened by this transport, keeping the delegate open.
+     */
+    public void closeShellSessions() {
+        synchronized (shellSessions) {
+            for (var session : shellSessions.values()) {
+                try {
+                    session.close();
+                } catch (IOException e) {
+                    transportLogger.warning("Unable to close shell session of " + session.getDeviceId() + ": " + e.getMessage());
+                }
+            }
+            shellSessions.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeShellSessions();
+        delegate.close();
+    }
+}
@@ -0,0 +1,93 @@
+package ru.enplus.adblibrary.transport;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.connection.ADBSocketClient;
+import ru.enplus.adblibrary.connection.ADBSyncSession;
+import ru.enplus.adblibrary.shell.CommandResult;
+import ru.enplus.adblibrary.shell.ShellSession;
+import ru.enplus.adblibrary.util.ByteLineConsumer;
+import ru.enplus.adblibrary.util.LineConsumer;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+
+/**
+ * Transport talking to the ADB server over its host protocol socket, without spawning processes.
+ * Files are moved over the sync protocol; installs push the APK to a temporary directory and run pm install.
+ */
+@Getter
+public class SocketCommandTransport implements CommandTransport {
+
+    private static final String REMOTE_INSTALL_DIRECTORY = "/data/local/tmp/";
+
+    private final ADBSocketClient socketClient;
+
+    /**
+     * Constructs a SocketCommandTransport using the specified ADB server client.
+     *
+     * @param socketClient the client of the ADB server
+     */
+    public SocketCommandTransport(ADBSocketClient socketClient) {
+        this.socketClient = socketClient;
+    }
+
+    @Override
+    public ArrayList<String> listDevices() throws IOException {
+        return socketClient.getDevicesLong();
+    }
+
+    @Override
+    public CommandResult executeShell(String deviceId, String command, Duration timeout) throws IOException {
+        return new CommandResult(socketClient.executeShell(deviceId, command, timeout), CommandResult.UNKNOWN_EXIT_CODE);
+    }
+
+    @Override
+    public boolean streamShell(String deviceId, String command, LineConsumer consumer, Duration timeout) throws IOException {
+        return socketClient.streamShell(deviceId, command, consumer, timeout);
+    }
+
+    @Override
+    public boolean streamShellBytes(String deviceId, String command, ByteLineConsumer consumer, Duration timeout) throws IOException {
+        return socketClient.streamShellBytes(deviceId, command, consumer, timeout);
+    }
+
+    @Override
+    public void pull(String deviceId, String remotePath, Path localPath) throws IOException {
+        try (ADBSyncSession syncSession = ADBSyncSession.open(socketClient, deviceId)) {
+            syncSession.pull(remotePath, localPath);
+        }
+    }
+
+    @Override
+    public long pull(String deviceId, String remotePath, WritableByteChannel target) throws IOException {
+        try (ADBSyncSession syncSession = ADBSyncSession.open(socketClient, deviceId)) {
+            return syncSession.pull(remotePath, target);
+        }
+    }
+
+    @Override
+    public ArrayList<String> install(String deviceId, Path apkPath) throws IOException {
+        String remoteApk = REMOTE_INSTALL_DIRECTORY + apkPath.getFileName();
+        try (ADBSyncSession syncSession = ADBSyncSession.open(socketClient, deviceId)) {
+            syncSession.push(apkPath, remoteApk);
+        }
+        try {
+            return socketClient.executeShell(deviceId, "pm install " + remoteApk);
+        } finally {
+            socketClient.executeShell(deviceId, "rm -f " + remoteApk);
+        }
+    }
+
+    @Override
+    public ArrayList<String> uninstall(String deviceId, String packageName) throws IOException {
+        return socketClient.executeShell(deviceId, "pm uninstall " + packageName);
+    }
+
+    @Override
+    public ShellSession openShellSession(String deviceId) throws IOException {
+        return ShellSession.open(socketClient, deviceId);
+    }
+}
@@ -0,0 +1,296 @@
+package ru.enplus.adblibrary.util;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Executor behind the asynchronous device methods. Every task completes a CompletableFuture; cancelling the future
+ * removes a queued task or interrupts a running one. Tasks are queued per device and dispatched round-robin across
+ * the devices only once both a device slot and a global slot are free, so a waiting task holds no thread.
+ * On a Java 21+ runtime tasks run on virtual threads; on older runtimes a cached pool of daemon threads is used,
+ * which never grows beyond the global limit.
+ */
+public class AsyncDeviceExecutor implements Closeable {
+
+    /**
+     * Default maximum amount of asynchronous device commands in flight across all devices.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 1024;
+
+    /**
+     * Default maximum amount of asynchronous commands in flight on a single device.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY_PER_DEVICE = 4;
+
+    private static final Logger executorLogger = Logger.getLogger("AsyncDeviceExecutorLogger");
+
+    @Getter
+    private final int maxConcurrency;
+
+    @Getter
+    private final int maxConcurrencyPerDevice;
+
+    private final ExecutorService executor;
+    private final Object lock = new Object();
+    private final Map<String, DeviceQueue> queues = new HashMap<>();
+    private final ArrayDeque<DeviceQueue> ready = new ArrayDeque<>();
+    private int running;
+    private boolean closed;
+
+    /**
+     * Constructs an AsyncDeviceExecutor with the default limits.
+     */
+    public AsyncDeviceExecutor() {
+        this(DEFAULT_MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY_PER_DEVICE);
+    }
+
+    /**
+     * Constructs an AsyncDeviceExecutor with the specified limits.
+     *
+     * @param maxConcurrency          the maximum amount of commands in flight across all devices
+     * @param maxConcurrencyPerDevice the maximum amount of commands in flight on a single device
+     */
+    public AsyncDeviceExecutor(int maxConcurrency, int maxConcurrencyPerDevice) {
+        if (maxConcurrency < 1 || maxConcurrencyPerDevice < 1) {
+            throw new IllegalArgumentException("Concurrency limits must be positive");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxConcurrencyPerDevice = maxConcurrencyPerDevice;
+        this.executor = newTaskExecutor("adb-async");
+    }
+
+    /**
+     * Runs a device task asynchronously under the concurrency limits.
+     *
+     * @param deviceId the ID of the device the task runs on
+     * @param task     the task
+     * @param <T>      the result type of the task
+     * @return the future completed with the result of the task, or exceptionally with its error
+     */
+    public <T> CompletableFuture<T> submit(String deviceId, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        QueuedTask<T> queued;
+        synchronized (lock) {
+            if (closed) {
+                result.completeExceptionally(new RejectedExecutionException("The executor is closed"));
+                return result;
+            }
+            DeviceQueue queue = queues.computeIfAbsent(deviceId, DeviceQueue::new);
+            queued = new QueuedTask<>(queue, task, result);
+            queue.pending.add(queued);
+            markReady(queue);
+            dispatch();
+        }
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                queued.cancel();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Retrieves the amount of tasks waiting for a free slot.
+     *
+     * @return the amount of queued tasks
+     */
+    public int getQueuedTasks() {
+        synchronized (lock) {
+            int queued = 0;
+            for (DeviceQueue queue : queues.values()) {
+                queued += queue.pending.size();
+            }
+            return queued;
+        }
+    }
+
+    /**
+     * Retrieves the amount of tasks running right now.
+     *
+     * @return the amount of running tasks
+     */
+    public int getRunningTasks() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    /**
+     * Stops the executor, cancelling queued tasks and interrupting running ones.
+     */
+    @Override
+    public void close() {
+        List<QueuedTask<?>> cancelled = new ArrayList<>();
+        synchronized (lock) {
+            closed = true;
+            for (DeviceQueue queue : queues.values()) {
+                cancelled.addAll(queue.pending);
+                queue.pending.clear();
+            }
+            ready.clear();
+        }
+        for (QueuedTask<?> task : cancelled) {
+            task.result.cancel(false);
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts queued tasks while the global limit allows, taking one task per ready device in turn.
+     * Must be called holding the lock.
+     */
+    private void dispatch() {
+        while (running < maxConcurrency && !ready.isEmpty()) {
+            DeviceQueue queue = ready.poll();
+            queue.ready = false;
+            QueuedTask<?> next = queue.pending.poll();
+            if (next == null) {
+                removeIfIdle(queue);
+                continue;
+            }
+            queue.running++;
+            running++;
+            try {
+                executor.execute(next);
+            } catch (RejectedExecutionException e) {
+                queue.running--;
+                running--;
+                next.result.completeExceptionally(e);
+            }
+            markReady(queue);
+        }
+    }
+
+    /**
+     * Appends a device to the ready devices if it has queued tasks and a free device slot.
+     * Must be called holding the lock.
+     */
+    private void markReady(DeviceQueue queue) {
+        if (!queue.ready && !queue.pending.isEmpty() && queue.running < maxConcurrencyPerDevice) {
+            queue.ready = true;
+            ready.add(queue);
+        }
+    }
+
+    /**
+     * Forgets a device without queued or running tasks. Must be called holding the lock.
+     */
+    private void removeIfIdle(DeviceQueue queue) {
+        if (queue.running == 0 && queue.pending.isEmpty() && !queue.ready) {
+            queues.remove(queue.deviceId);
+        }
+    }
+
+    /**
+     * The queued tasks of a device and the amount of its running ones, guarded by the lock.
+     */
+    private static final class DeviceQueue {
+
+        private final String deviceId;
+        private final ArrayDeque<QueuedTask<?>> pending = new ArrayDeque<>();
+        private int running;
+        private boolean ready;
+
+        private DeviceQueue(String deviceId) {
+            this.deviceId = deviceId;
+        }
+    }
+
+    /**
+     * A submitted task. The thread running it is tracked under the lock, so that cancelling interrupts only
+     * this task and never a later one reusing the thread.
+     */
+    private final class QueuedTask<T> implements Runnable {
+
+        private final DeviceQueue queue;
+        private final Callable<T> task;
+        private final CompletableFuture<T> result;
+        private Thread runner;
+
+        private QueuedTask(DeviceQueue queue, Callable<T> task, CompletableFuture<T> result) {
+            this.queue = queue;
+            this.task = task;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (start()) {
+                    result.complete(task.call());
+                }
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                finish();
+            }
+        }
+
+        private boolean start() {
+            synchronized (lock) {
+                if (result.isDone()) {
+                    return false;
+                }
+                runner = Thread.currentThread();
+                return true;
+            }
+        }
+
+        private void finish() {
+            synchronized (lock) {
+                runner = null;
+                queue.running--;
+                running--;
+                markReady(queue);
+                removeIfIdle(queue);
+                dispatch();
+            }
+        }
+
+        private void cancel() {
+            synchronized (lock) {
+                if (runner != null) {
+                    runner.interrupt();
+                } else {
+                    queue.pending.remove(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an executor starting one thread per task: a virtual thread on Java 21+, a daemon platform thread
+     * from a cached pool otherwise.
+     *
+     * @param threadName the name prefix of the platform threads
+     * @return the executor
+     */
+    public static ExecutorService newTaskExecutor(String threadName) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            executorLogger.fine("Virtual threads are not available, using platform threads for " + threadName);
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, threadName + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
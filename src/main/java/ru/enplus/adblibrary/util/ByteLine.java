@@ -0,0 +1,168 @@
+package ru.enplus.adblibrary.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable view of a single output line inside a byte array, without its line terminator.
+ * Indices are relative to the start of the line; text is only decoded when {@link #decode(int, int)}
+ * or {@link #toString()} is called. A line handed to a {@link ByteLineConsumer} is only valid during the callback.
+ */
+public final class ByteLine {
+
+    private byte[] bytes;
+    private int start;
+    private int end;
+
+    /**
+     * Constructs an empty line, to be positioned by the tokenizer.
+     */
+    ByteLine() {
+        this.bytes = new byte[0];
+    }
+
+    /**
+     * Wraps a whole byte array as a line.
+     *
+     * @param bytes the bytes of the line
+     * @return the line viewing the bytes
+     */
+    public static ByteLine wrap(byte[] bytes) {
+        ByteLine line = new ByteLine();
+        line.set(bytes, 0, bytes.length);
+        return line;
+    }
+
+    /**
+     * Encodes an ASCII pattern once, so that it can be searched in lines without decoding them.
+     *
+     * @param text the ASCII pattern
+     * @return the pattern bytes
+     */
+    public static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    void set(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Retrieves the length of the line in bytes.
+     *
+     * @return the length of the line
+     */
+    public int length() {
+        return end - start;
+    }
+
+    /**
+     * Retrieves the byte at the specified index of the line.
+     *
+     * @param index the index inside the line
+     * @return the byte at the index
+     */
+    public byte byteAt(int index) {
+        return bytes[start + index];
+    }
+
+    /**
+     * Finds the first occurrence of a byte, starting at the specified index.
+     *
+     * @param value     the byte to look for
+     * @param fromIndex the index to start looking from
+     * @return the index of the byte, or -1 if the line does not contain it
+     */
+    public int indexOf(byte value, int fromIndex) {
+        for (int i = start + Math.max(fromIndex, 0); i < end; i++) {
+            if (bytes[i] == value) {
+                return i - start;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first occurrence of a byte pattern, starting at the specified index.
+     *
+     * @param pattern   the pattern to look for, see {@link #ascii(String)}
+     * @param fromIndex the index to start looking from
+     * @return the index of the pattern, or -1 if the line does not contain it
+     */
+    public int indexOf(byte[] pattern, int fromIndex) {
+        int last = end - pattern.length;
+        outer:
+        for (int i = start + Math.max(fromIndex, 0); i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i - start;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the line contains a byte pattern.
+     *
+     * @param pattern the pattern to look for, see {@link #ascii(String)}
+     * @return true if the line contains the pattern, false otherwise
+     */
+    public boolean contains(byte[] pattern) {
+        return indexOf(pattern, 0) >= 0;
+    }
+
+    /**
+     * Checks if the line starts with a byte pattern.
+     *
+     * @param pattern the pattern to compare with, see {@link #ascii(String)}
+     * @return true if the line starts with the pattern, false otherwise
+     */
+    public boolean startsWith(byte[] pattern) {
+        if (pattern.length > length()) {
+            return false;
+        }
+        for (int j = 0; j < pattern.length; j++) {
+            if (bytes[start + j] != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the first byte that is not an ASCII whitespace.
+     *
+     * @return the index of the first non-whitespace byte, or the length of the line if it is blank
+     */
+    public int firstNonWhitespace() {
+        int i = start;
+        while (i < end && (bytes[i] == ' ' || bytes[i] == '\t')) {
+            i++;
+        }
+        return i - start;
+    }
+
+    /**
+     * Decodes a part of the line as UTF-8.
+     *
+     * @param from the start index, inclusive
+     * @param to   the end index, exclusive
+     * @return the decoded text
+     */
+    public String decode(int from, int to) {
+        return new String(bytes, start + from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the whole line as UTF-8.
+     *
+     * @return the decoded line
+     */
+    @Override
+    public String toString() {
+        return decode(0, length());
+    }
+}
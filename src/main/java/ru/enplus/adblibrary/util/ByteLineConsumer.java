@@ -0,0 +1,17 @@
+package ru.enplus.adblibrary.util;
+
+/**
+ * Callback receiving the output of a command line by line as undecoded bytes.
+ * The line is a reused view and is only valid during the callback.
+ */
+@FunctionalInterface
+public interface ByteLineConsumer {
+
+    /**
+     * Handles the next output line.
+     *
+     * @param line the output line without its line terminator
+     * @return true to keep reading, false to stop and terminate the command
+     */
+    boolean accept(ByteLine line);
+}
@@ -0,0 +1,115 @@
+package ru.enplus.adblibrary.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits a byte stream fed in chunks into lines terminated by '\n' (an optional preceding '\r' is dropped)
+ * and hands them to a {@link ByteLineConsumer}. Lines lying entirely inside a chunk are passed as views of
+ * the chunk; only lines spanning two chunks are copied, into a buffer reused for the whole stream.
+ */
+public class ByteLineTokenizer {
+
+    private final ByteLineConsumer consumer;
+    private final ByteLine line = new ByteLine();
+    private byte[] pending = new byte[256];
+    private int pendingLength;
+    private byte[] transfer;
+    private boolean stopped;
+
+    /**
+     * Constructs a ByteLineTokenizer feeding the specified consumer.
+     *
+     * @param consumer the callback receiving each line
+     */
+    public ByteLineTokenizer(ByteLineConsumer consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Tokenizes the remaining bytes of the chunk, consuming them.
+     *
+     * @param chunk the next chunk of the stream
+     * @return true if the consumer wants more lines, false once it stopped
+     */
+    public boolean feed(ByteBuffer chunk) {
+        if (stopped) {
+            chunk.position(chunk.limit());
+            return false;
+        }
+        if (chunk.hasArray()) {
+            int offset = chunk.arrayOffset();
+            feed(chunk.array(), offset + chunk.position(), offset + chunk.limit());
+            chunk.position(chunk.limit());
+            return !stopped;
+        }
+        if (transfer == null) {
+            transfer = new byte[8192];
+        }
+        while (chunk.hasRemaining() && !stopped) {
+            int length = Math.min(chunk.remaining(), transfer.length);
+            chunk.get(transfer, 0, length);
+            feed(transfer, 0, length);
+        }
+        return !stopped;
+    }
+
+    /**
+     * Tokenizes a range of a byte array.
+     *
+     * @param bytes the chunk of the stream
+     * @param from  the start of the range, inclusive
+     * @param to    the end of the range, exclusive
+     * @return true if the consumer wants more lines, false once it stopped
+     */
+    public boolean feed(byte[] bytes, int from, int to) {
+        int lineStart = from;
+        for (int i = from; i < to && !stopped; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            if (pendingLength > 0) {
+                appendPending(bytes, lineStart, i);
+                emit(pending, 0, pendingLength);
+                pendingLength = 0;
+            } else {
+                emit(bytes, lineStart, i);
+            }
+            lineStart = i + 1;
+        }
+        if (!stopped) {
+            appendPending(bytes, lineStart, to);
+        }
+        return !stopped;
+    }
+
+    /**
+     * Hands the last line to the consumer if the stream did not end with a line terminator.
+     *
+     * @return true if the consumer did not stop, false otherwise
+     */
+    public boolean finish() {
+        if (!stopped && pendingLength > 0) {
+            emit(pending, 0, pendingLength);
+            pendingLength = 0;
+        }
+        return !stopped;
+    }
+
+    private void emit(byte[] bytes, int from, int to) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        line.set(bytes, from, to);
+        stopped = !consumer.accept(line);
+    }
+
+    private void appendPending(byte[] bytes, int from, int to) {
+        int length = to - from;
+        if (pendingLength + length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+        }
+        System.arraycopy(bytes, from, pending, pendingLength, length);
+        pendingLength += length;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.enplus.adblibrary.util;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility class enforcing command deadlines by running a cancellation action once a deadline passes.
+ */
+public class CommandWatchdog {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "adb-command-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CommandWatchdog() {
+    }
+
+    /**
+     * Schedules the cancellation action of a command.
+     *
+     * @param timeout  the time the command is allowed to run; null, zero or negative means no deadline
+     * @param onExpiry the action killing or closing the command once the deadline passed
+     * @return the deadline, to be finished by the command once it completed
+     */
+    public static Deadline schedule(Duration timeout, Runnable onExpiry) {
+        Deadline deadline = new Deadline();
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+            return deadline;
+        }
+        deadline.expiry = SCHEDULER.schedule(() -> {
+            if (deadline.state.compareAndSet(Deadline.PENDING, Deadline.EXPIRED)) {
+                onExpiry.run();
+            }
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        return deadline;
+    }
+
+    /**
+     * Deadline of a single command. Either the command finishes first, or the deadline expires first and
+     * runs its cancellation action; never both.
+     */
+    public static class Deadline {
+
+        private static final int PENDING = 0;
+        private static final int FINISHED = 1;
+        private static final int EXPIRED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private volatile ScheduledFuture<?> expiry;
+
+        /**
+         * Marks the command as finished, preventing the cancellation action from running.
+         *
+         * @return true if the command finished in time, false if the deadline had already expired
+         */
+        public boolean finish() {
+            if (state.compareAndSet(PENDING, FINISHED)) {
+                ScheduledFuture<?> scheduled = expiry;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+                return true;
+            }
+            return state.get() == FINISHED;
+        }
+
+        /**
+         * Checks if the deadline expired and the cancellation action ran.
+         *
+         * @return true if the deadline expired, false otherwise
+         */
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+}
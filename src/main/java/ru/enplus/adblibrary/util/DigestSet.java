@@ -0,0 +1,77 @@
+package ru.enplus.adblibrary.util;
+
+import ru.enplus.adblibrary.enums.EHashAlgorithm;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The digests of one piece of data computed with several hash algorithms at once.
+ * Digests are kept as raw bytes; hexadecimal strings are formatted with every leading zero.
+ */
+public final class DigestSet {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Map<EHashAlgorithm, byte[]> digests;
+
+    DigestSet(Map<EHashAlgorithm, byte[]> digests) {
+        this.digests = new EnumMap<>(digests);
+    }
+
+    /**
+     * Retrieves the algorithms this set holds digests of.
+     *
+     * @return an unmodifiable set of the algorithms
+     */
+    public Set<EHashAlgorithm> getAlgorithms() {
+        return Collections.unmodifiableSet(digests.keySet());
+    }
+
+    /**
+     * Checks if the set holds the digest of the specified algorithm.
+     *
+     * @param algorithm the hash algorithm
+     * @return true if the digest is present, false otherwise
+     */
+    public boolean contains(EHashAlgorithm algorithm) {
+        return digests.containsKey(algorithm);
+    }
+
+    /**
+     * Retrieves the raw digest of the specified algorithm.
+     *
+     * @param algorithm the hash algorithm
+     * @return a copy of the digest bytes, or null if the algorithm was not computed
+     */
+    public byte[] getDigest(EHashAlgorithm algorithm) {
+        byte[] digest = digests.get(algorithm);
+        return digest != null ? digest.clone() : null;
+    }
+
+    /**
+     * Retrieves the digest of the specified algorithm as a lowercase hexadecimal string of full length.
+     *
+     * @param algorithm the hash algorithm
+     * @return the hexadecimal digest, or null if the algorithm was not computed
+     */
+    public String getHex(EHashAlgorithm algorithm) {
+        byte[] digest = digests.get(algorithm);
+        return digest != null ? HEX.formatHex(digest) : null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("DigestSet(");
+        digests.forEach((algorithm, digest) -> {
+            if (builder.length() > "DigestSet(".length()) {
+                builder.append(", ");
+            }
+            builder.append(algorithm).append('=').append(HEX.formatHex(digest));
+        });
+        return builder.append(')').toString();
+    }
+}
@@ -0,0 +1,89 @@
+package ru.enplus.adblibrary.util;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.enums.EHashAlgorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+/**
+ * Channel feeding every written byte into the digests of several hash algorithms, so data can be hashed
+ * while it arrives, e.g. from a pull, without being stored. Optionally the bytes are copied into a tee channel
+ * as well; only the bytes the tee accepted are digested, so the digests always match the copy.
+ * Closing this channel does not close the tee.
+ */
+public class DigestingChannel implements WritableByteChannel {
+
+    private final MultiDigest digest;
+    private final WritableByteChannel tee;
+
+    /**
+     * The amount of bytes written so far.
+     */
+    @Getter
+    private long size;
+    private boolean open = true;
+
+    /**
+     * Constructs a DigestingChannel that only digests the written bytes.
+     *
+     * @param algorithms the hash algorithms to compute
+     * @throws NoSuchAlgorithmException if one of the algorithms is not available
+     */
+    public DigestingChannel(Set<EHashAlgorithm> algorithms) throws NoSuchAlgorithmException {
+        this(algorithms, null);
+    }
+
+    /**
+     * Constructs a DigestingChannel that digests the written bytes and copies them into the tee channel.
+     *
+     * @param algorithms the hash algorithms to compute
+     * @param tee        the channel receiving a copy of the bytes, or null
+     * @throws NoSuchAlgorithmException if one of the algorithms is not available
+     */
+    public DigestingChannel(Set<EHashAlgorithm> algorithms, WritableByteChannel tee) throws NoSuchAlgorithmException {
+        this.digest = new MultiDigest(algorithms);
+        this.tee = tee;
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        int start = source.position();
+        int end = source.limit();
+        if (tee != null) {
+            end = start + tee.write(source);
+        }
+        ByteBuffer written = source.duplicate();
+        written.position(start).limit(end);
+        digest.update(written);
+        source.position(end);
+        size += end - start;
+        return end - start;
+    }
+
+    /**
+     * Completes the digests of the bytes written so far.
+     *
+     * @return the computed digests
+     */
+    public DigestSet finish() {
+        return digest.finish();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
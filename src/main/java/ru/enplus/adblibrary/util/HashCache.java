@@ -0,0 +1,302 @@
+package ru.enplus.adblibrary.util;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.enums.EHashAlgorithm;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache of file hashes, keyed by a digest of the identity of the file: the device (build fingerprint
+ * or serial), the path, the size and the modification time. As long as none of them changes, the hashes are served
+ * without touching the device.
+ * <p>
+ * The cache is kept in memory and stored in a single index file of the cache directory. Writes are crash-safe:
+ * the index is written to a temporary file, forced to disk and atomically moved over the previous one, so a crash
+ * leaves either the old or the new index. The stored size is bounded; the least recently used entries are evicted
+ * once it is exceeded.
+ */
+public class HashCache implements Closeable {
+
+    /**
+     * Default maximum size of the stored entries, in bytes.
+     */
+    public static final long DEFAULT_MAX_SIZE = 16L * 1024 * 1024;
+
+    private static final String INDEX_FILE = "hashes.idx";
+    private static final String INDEX_TEMP_FILE = "hashes.idx.tmp";
+    private static final String INDEX_HEADER = "adblib-hash-cache 1";
+    private static final String MISSING = "-";
+    private static final EHashAlgorithm[] ALGORITHMS = EHashAlgorithm.values();
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final Logger cacheLogger = Logger.getLogger("HashCacheLogger");
+
+    @Getter
+    private final Path directory;
+    @Getter
+    private final long maxSize;
+    private final Map<String, Map<EHashAlgorithm, String>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private boolean dirty;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Opens the hash cache stored in the directory with the default maximum size.
+     *
+     * @param directory the cache directory, created if it does not exist
+     * @throws IOException if the directory can not be created or the index can not be read
+     */
+    public HashCache(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Opens the hash cache stored in the directory. Malformed index rows, e.g. of an index written by another
+     * version, are skipped.
+     *
+     * @param directory the cache directory, created if it does not exist
+     * @param maxSize   the maximum size of the stored entries, in bytes
+     * @throws IOException if the directory can not be created or the index can not be read
+     */
+    public HashCache(Path directory, long maxSize) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        Files.createDirectories(directory);
+        Path index = directory.resolve(INDEX_FILE);
+        if (Files.exists(index)) {
+            List<String> rows = Files.readAllLines(index, StandardCharsets.UTF_8);
+            if (!rows.isEmpty() && rows.get(0).equals(INDEX_HEADER)) {
+                for (String row : rows.subList(1, rows.size())) {
+                    String[] fields = row.split(" ");
+                    if (fields.length != ALGORITHMS.length + 1) {
+                        continue;
+                    }
+                    Map<EHashAlgorithm, String> hashes = new EnumMap<>(EHashAlgorithm.class);
+                    for (int i = 0; i < ALGORITHMS.length; i++) {
+                        if (!fields[i + 1].equals(MISSING)) {
+                            hashes.put(ALGORITHMS[i], fields[i + 1]);
+                        }
+                    }
+                    store(fields[0], hashes);
+                }
+            }
+        }
+        dirty = false;
+    }
+
+    /**
+     * Builds the cache key of a file.
+     *
+     * @param deviceKey        the build fingerprint of the device, or its serial if the fingerprint is unknown
+     * @param path             the path of the file on the device
+     * @param size             the size of the file
+     * @param modificationTime the modification time of the file
+     * @return the cache key
+     */
+    public static String key(String deviceKey, String path, long size, long modificationTime) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String identity = deviceKey + '\0' + path + '\0' + size + '\0' + modificationTime;
+            return HEX.formatHex(digest.digest(identity.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Retrieves the cached hashes of a file.
+     *
+     * @param key the cache key of the file
+     * @return the cached hexadecimal hashes by algorithm, or an empty map on a cache miss
+     */
+    public synchronized Map<EHashAlgorithm, String> get(String key) {
+        Map<EHashAlgorithm, String> hashes = entries.get(key);
+        if (hashes == null) {
+            missCount.incrementAndGet();
+            return new EnumMap<>(EHashAlgorithm.class);
+        }
+        hitCount.incrementAndGet();
+        return new EnumMap<>(hashes);
+    }
+
+    /**
+     * Caches hashes of a file, merged with the ones already cached. The change is stored by {@link #flush()}.
+     *
+     * @param key    the cache key of the file
+     * @param hashes the hexadecimal hashes by algorithm
+     */
+    public synchronized void put(String key, Map<EHashAlgorithm, String> hashes) {
+        Map<EHashAlgorithm, String> merged = new EnumMap<>(EHashAlgorithm.class);
+        Map<EHashAlgorithm, String> previous = entries.remove(key);
+        if (previous != null) {
+            size -= rowLength(key, previous);
+            merged.putAll(previous);
+        }
+        merged.putAll(hashes);
+        store(key, merged);
+        dirty = true;
+    }
+
+    /**
+     * Drops the cached hashes of a file.
+     *
+     * @param key the cache key of the file
+     */
+    public synchronized void invalidate(String key) {
+        Map<EHashAlgorithm, String> previous = entries.remove(key);
+        if (previous != null) {
+            size -= rowLength(key, previous);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Drops all cached hashes.
+     */
+    public synchronized void invalidateAll() {
+        if (!entries.isEmpty()) {
+            entries.clear();
+            size = 0;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Stores the cache in its directory if it changed since it was opened or last stored.
+     *
+     * @throws IOException if the index can not be written; the previous index is kept
+     */
+    public synchronized void flush() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Path temp = directory.resolve(INDEX_TEMP_FILE);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            writer.write(INDEX_HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Map<EHashAlgorithm, String>> entry : entries.entrySet()) {
+                writer.write(entry.getKey());
+                for (EHashAlgorithm algorithm : ALGORITHMS) {
+                    writer.write(' ');
+                    writer.write(entry.getValue().getOrDefault(algorithm, MISSING));
+                }
+                writer.newLine();
+            }
+            writer.flush();
+            channel.force(true);
+        }
+        Path index = directory.resolve(INDEX_FILE);
+        try {
+            Files.move(temp, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            cacheLogger.warning("Atomic moves are not supported in " + directory + ", replacing the index in place");
+            Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING);
+        }
+        dirty = false;
+    }
+
+    /**
+     * Stores the cache; see {@link #flush()}.
+     *
+     * @throws IOException if the index can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Retrieves the amount of cached files.
+     *
+     * @return the amount of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Retrieves the size of the stored entries.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getStoredSize() {
+        return size;
+    }
+
+    /**
+     * Retrieves the amount of lookups served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Retrieves the amount of lookups that missed the cache.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Retrieves the amount of entries evicted to stay within the maximum size.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Adds an entry as the most recently used one and evicts the least recently used ones beyond the maximum size.
+     */
+    private void store(String key, Map<EHashAlgorithm, String> hashes) {
+        entries.put(key, hashes);
+        size += rowLength(key, hashes);
+        Iterator<Map.Entry<String, Map<EHashAlgorithm, String>>> eldest = entries.entrySet().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            Map.Entry<String, Map<EHashAlgorithm, String>> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                break;
+            }
+            size -= rowLength(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private static long rowLength(String key, Map<EHashAlgorithm, String> hashes) {
+        long length = key.length() + 1;
+        for (EHashAlgorithm algorithm : ALGORITHMS) {
+            length += hashes.getOrDefault(algorithm, MISSING).length() + 1;
+        }
+        return length;
+    }
+}
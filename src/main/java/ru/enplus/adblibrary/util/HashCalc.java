@@ -1,32 +1,86 @@
 package ru.enplus.adblibrary.util;
 
+import ru.enplus.adblibrary.enums.EHashAlgorithm;
+
 import java.io.IOException;
-import java.math.BigInteger;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.security.MessageDigest;
+import java.nio.file.StandardOpenOption;
 import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Utility class for calculating cryptographic hashes of files.
  */
 public class HashCalc {
 
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 16;
+
+    /**
+     * Direct read buffers returned by finished hash calculations, reused by the next ones.
+     */
+    private static final Queue<ByteBuffer> READ_BUFFERS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Computes the digests of a file with several hash algorithms in a single pass.
+     * The file is read through a reused direct buffer, so heap use does not depend on the file size.
+     *
+     * @param file the path to the file for which the digests are to be computed
+     * @param algorithms the algorithms to be used for hashing
+     * @return the computed digests
+     * @throws IOException if an I/O error occurs reading from the file
+     * @throws NoSuchAlgorithmException if one of the hash algorithms is not available
+     */
+    public static DigestSet calculateDigests(Path file, Set<EHashAlgorithm> algorithms) throws IOException, NoSuchAlgorithmException {
+        MultiDigest digest = new MultiDigest(algorithms);
+        ByteBuffer buffer = READ_BUFFERS.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            if (READ_BUFFERS.size() < MAX_POOLED_BUFFERS) {
+                READ_BUFFERS.offer(buffer);
+            }
+        }
+        return digest.finish();
+    }
+
     /**
      * Computes the hash of a file using the specified hash algorithm.
      *
      * @param grabbedApplication the path to the file for which the hash is to be computed
-     * @param hashAlgorithm the algorithm to be used for hashing (e.g., SHA-1, SHA-256, SHA-512)
+     * @param hashAlgorithm the algorithm to be used for hashing
      * @return the computed hash as a hexadecimal string
      * @throws IOException if an I/O error occurs reading from the file
      * @throws NoSuchAlgorithmException if the specified hash algorithm is not available
      */
-    private static String findHashForFile(String grabbedApplication, String hashAlgorithm) throws IOException, NoSuchAlgorithmException {
-        Path filePath = Path.of(grabbedApplication);
-        byte[] data = Files.readAllBytes(Paths.get(filePath.toUri()));
-        byte[] hash = MessageDigest.getInstance(hashAlgorithm).digest(data);
-        return new BigInteger(1, hash).toString(16);
+    private static String findHashForFile(String grabbedApplication, EHashAlgorithm hashAlgorithm) throws IOException, NoSuchAlgorithmException {
+        return calculateDigests(Path.of(grabbedApplication), EnumSet.of(hashAlgorithm)).getHex(hashAlgorithm);
+    }
+
+    /**
+     * Computes the hash of a file using the specified hash algorithm.
+     *
+     * @param grabbedApplication the path to the file for which the hash is to be computed
+     * @param hashAlgorithm the algorithm to be used for hashing
+     * @return the computed hash as a hexadecimal string
+     * @throws NoSuchAlgorithmException if the specified hash algorithm is not available
+     * @throws IOException if an I/O error occurs reading from the file
+     */
+    public static String calculateHash(String grabbedApplication, EHashAlgorithm hashAlgorithm) throws NoSuchAlgorithmException, IOException {
+        return findHashForFile(grabbedApplication, hashAlgorithm);
     }
 
     /**
@@ -38,7 +92,7 @@ public class HashCalc {
      * @throws IOException if an I/O error occurs reading from the file
      */
     public static String calculateSha256Hash(String grabbedApplication) throws NoSuchAlgorithmException, IOException {
-        return findHashForFile(grabbedApplication, "SHA-256");
+        return findHashForFile(grabbedApplication, EHashAlgorithm.SHA256);
     }
 
     /**
@@ -50,7 +104,7 @@ public class HashCalc {
      * @throws IOException if an I/O error occurs reading from the file
      */
     public static String calculateSha1Hash(String grabbedApplication) throws NoSuchAlgorithmException, IOException {
-        return findHashForFile(grabbedApplication, "SHA-1");
+        return findHashForFile(grabbedApplication, EHashAlgorithm.SHA1);
     }
 
     /**
@@ -62,6 +116,6 @@ public class HashCalc {
      * @throws IOException if an I/O error occurs reading from the file
      */
     public static String calculateSha512Hash(String grabbedApplication) throws NoSuchAlgorithmException, IOException {
-        return findHashForFile(grabbedApplication, "SHA-512");
+        return findHashForFile(grabbedApplication, EHashAlgorithm.SHA512);
     }
 }
@@ -0,0 +1,196 @@
+package ru.enplus.adblibrary.util;
+
+import lombok.Getter;
+import ru.enplus.adblibrary.application.AndroidApplication;
+import ru.enplus.adblibrary.application.ApplicationInventory;
+import ru.enplus.adblibrary.application.InstalledPackage;
+import ru.enplus.adblibrary.enums.EPermissionSet;
+import ru.enplus.adblibrary.permissions.ApplicationPermission;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Persistent store of the application inventories of devices, one file per device serial.
+ * <p>
+ * Every inventory is stored as a text file of package rows, each followed by the permission rows of its application;
+ * dangerous permissions are derived from the others when the inventory is loaded.
+ * Writes are crash-safe like the ones of {@link HashCache}: the file is written to a temporary file, forced to disk
+ * and atomically moved over the previous one.
+ */
+public class InventoryStore {
+
+    private static final String FILE_SUFFIX = ".inv";
+    private static final String TEMP_FILE_SUFFIX = ".inv.tmp";
+    private static final String HEADER = "adblib-inventory 1";
+    private static final String DEVICE_ROW = "device ";
+    private static final String CAPTURED_ROW = "captured ";
+    private static final String PACKAGE_ROW = "package ";
+    private static final String PERMISSION_ROW = "permission ";
+    private static final String RUNTIME = "runtime";
+    private static final String INSTALL = "install";
+    private static final String REQUESTED = "requested";
+    private static final String DANGEROUS = "dangerous";
+    private static final String MISSING = "-";
+
+    private static final Logger storeLogger = Logger.getLogger("InventoryStoreLogger");
+
+    @Getter
+    private final Path directory;
+
+    /**
+     * Opens the inventory store in the directory.
+     *
+     * @param directory the store directory, created if it does not exist
+     * @throws IOException if the directory can not be created
+     */
+    public InventoryStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Loads the stored inventory of a device.
+     *
+     * @param deviceId the serial of the device
+     * @return the stored inventory, or null if there is none or it was written by another version
+     * @throws IOException if the inventory file can not be read
+     */
+    public ApplicationInventory load(String deviceId) throws IOException {
+        Path file = directory.resolve(fileName(deviceId, FILE_SUFFIX));
+        if (!Files.exists(file)) {
+            return null;
+        }
+        List<String> rows = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (rows.size() < 3 || !rows.get(0).equals(HEADER) || !rows.get(1).startsWith(DEVICE_ROW) || !rows.get(2).startsWith(CAPTURED_ROW)) {
+            storeLogger.warning("Ignoring the malformed inventory " + file);
+            return null;
+        }
+        try {
+            String deviceKey = rows.get(1).substring(DEVICE_ROW.length());
+            Instant captureTime = Instant.ofEpochMilli(Long.parseLong(rows.get(2).substring(CAPTURED_ROW.length())));
+            List<InstalledPackage> packages = new ArrayList<>();
+            List<AndroidApplication> applications = new ArrayList<>();
+            AndroidApplication application = null;
+            for (String row : rows.subList(3, rows.size())) {
+                if (row.startsWith(PACKAGE_ROW)) {
+                    String[] fields = row.substring(PACKAGE_ROW.length()).split(" ", 7);
+                    InstalledPackage installedPackage = new InstalledPackage(fields[5], fields[6], Long.parseLong(fields[0]), Integer.parseInt(fields[1]));
+                    application = new AndroidApplication();
+                    application.setPackageName(installedPackage.getPackageName());
+                    application.setPath(installedPackage.getPath());
+                    application.setSha1(decodeHash(fields[2]));
+                    application.setSha256(decodeHash(fields[3]));
+                    application.setSha512(decodeHash(fields[4]));
+                    packages.add(installedPackage);
+                    applications.add(application);
+                } else if (row.startsWith(PERMISSION_ROW) && application != null) {
+                    String[] fields = row.substring(PERMISSION_ROW.length()).split(" ", 3);
+                    EPermissionSet set = switch (fields[0]) {
+                        case RUNTIME -> EPermissionSet.RUNTIME;
+                        case INSTALL -> EPermissionSet.INSTALL;
+                        case REQUESTED -> EPermissionSet.REQUESTED;
+                        case DANGEROUS -> EPermissionSet.DANGEROUS;
+                        default -> throw new IllegalArgumentException("Unknown permission section " + fields[0]);
+                    };
+                    application.getPermissions().add(set, fields[2], fields[1].equals("1"));
+                }
+            }
+            return new ApplicationInventory(deviceKey, captureTime, packages, applications);
+        } catch (RuntimeException e) {
+            storeLogger.warning("Ignoring the malformed inventory " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the inventory of a device, replacing the previously stored one.
+     *
+     * @param deviceId  the serial of the device
+     * @param inventory the inventory to store
+     * @throws IOException if the inventory can not be written; the previously stored one is kept
+     */
+    public void save(String deviceId, ApplicationInventory inventory) throws IOException {
+        Path temp = directory.resolve(fileName(deviceId, TEMP_FILE_SUFFIX));
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            writer.write(HEADER);
+            writer.newLine();
+            writer.write(DEVICE_ROW + inventory.getDeviceKey());
+            writer.newLine();
+            writer.write(CAPTURED_ROW + inventory.getCaptureTime().toEpochMilli());
+            writer.newLine();
+            for (InstalledPackage installedPackage : inventory.getPackages().values()) {
+                AndroidApplication application = inventory.getApplications().get(installedPackage.getPackageName());
+                if (application == null) {
+                    continue;
+                }
+                writer.write(PACKAGE_ROW + installedPackage.getVersionCode() + ' ' + installedPackage.getUid()
+                        + ' ' + encodeHash(application.getSha1()) + ' ' + encodeHash(application.getSha256()) + ' ' + encodeHash(application.getSha512())
+                        + ' ' + installedPackage.getPackageName() + ' ' + installedPackage.getPath());
+                writer.newLine();
+                writePermissions(writer, RUNTIME, application.getRuntimePermissions());
+                writePermissions(writer, INSTALL, application.getInstallPermissions());
+                writePermissions(writer, REQUESTED, application.getRequestedPermissions());
+            }
+            writer.flush();
+            channel.force(true);
+        }
+        Path file = directory.resolve(fileName(deviceId, FILE_SUFFIX));
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            storeLogger.warning("Atomic moves are not supported in " + directory + ", replacing the inventory in place");
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Deletes the stored inventory of a device, so that its next inventory collects every application again.
+     *
+     * @param deviceId the serial of the device
+     * @throws IOException if the inventory file can not be deleted
+     */
+    public void delete(String deviceId) throws IOException {
+        Files.deleteIfExists(directory.resolve(fileName(deviceId, FILE_SUFFIX)));
+    }
+
+    private static void writePermissions(BufferedWriter writer, String section, List<ApplicationPermission> permissions) throws IOException {
+        for (ApplicationPermission permission : permissions) {
+            writer.write(PERMISSION_ROW + section + ' ' + (permission.isGranted() ? '1' : '0') + ' ' + permission.getPermissionName());
+            writer.newLine();
+        }
+    }
+
+    private static String encodeHash(String hash) {
+        return hash == null || hash.isEmpty() ? MISSING : hash;
+    }
+
+    private static String decodeHash(String field) {
+        return field.equals(MISSING) ? null : field;
+    }
+
+    /**
+     * Maps a device serial, e.g. {@code 192.168.1.5:5555}, to a file name valid on every file system.
+     */
+    private static String fileName(String deviceId, String suffix) {
+        StringBuilder name = new StringBuilder(deviceId.length() + suffix.length());
+        for (int i = 0; i < deviceId.length(); i++) {
+            char c = deviceId.charAt(i);
+            name.append(Character.isLetterOrDigit(c) || c == '.' || c == '-' ? c : '_');
+        }
+        return name.append(suffix).toString();
+    }
+}
@@ -0,0 +1,16 @@
+package ru.enplus.adblibrary.util;
+
+/**
+ * Callback receiving the output of a command line by line, as soon as each line arrives.
+ */
+@FunctionalInterface
+public interface LineConsumer {
+
+    /**
+     * Handles the next output line.
+     *
+     * @param line the output line without its line terminator
+     * @return true to keep reading, false to stop and terminate the command
+     */
+    boolean accept(String line);
+}
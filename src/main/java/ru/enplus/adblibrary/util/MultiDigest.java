@@ -0,0 +1,70 @@
+package ru.enplus.adblibrary.util;
+
+import ru.enplus.adblibrary.enums.EHashAlgorithm;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Feeds a single stream of data to the message digests of several hash algorithms at once,
+ * so the data is read only once no matter how many digests are needed.
+ * Not thread-safe.
+ */
+public final class MultiDigest {
+
+    private final Map<EHashAlgorithm, MessageDigest> digests = new EnumMap<>(EHashAlgorithm.class);
+
+    /**
+     * Constructs a MultiDigest computing the specified hash algorithms.
+     *
+     * @param algorithms the hash algorithms to compute
+     * @throws NoSuchAlgorithmException if one of the algorithms is not available
+     */
+    public MultiDigest(Set<EHashAlgorithm> algorithms) throws NoSuchAlgorithmException {
+        for (EHashAlgorithm algorithm : algorithms) {
+            digests.put(algorithm, MessageDigest.getInstance(algorithm.getDigestAlgorithm()));
+        }
+    }
+
+    /**
+     * Updates every digest with the remaining bytes of the buffer, which may be a direct buffer.
+     * Afterwards the buffer position equals its limit.
+     *
+     * @param buffer the data to digest
+     */
+    public void update(ByteBuffer buffer) {
+        int start = buffer.position();
+        for (MessageDigest digest : digests.values()) {
+            buffer.position(start);
+            digest.update(buffer);
+        }
+    }
+
+    /**
+     * Updates every digest with a range of the array.
+     *
+     * @param data   the data to digest
+     * @param offset the start of the range
+     * @param length the length of the range
+     */
+    public void update(byte[] data, int offset, int length) {
+        for (MessageDigest digest : digests.values()) {
+            digest.update(data, offset, length);
+        }
+    }
+
+    /**
+     * Completes every digest and resets them for the next stream of data.
+     *
+     * @return the computed digests
+     */
+    public DigestSet finish() {
+        Map<EHashAlgorithm, byte[]> result = new EnumMap<>(EHashAlgorithm.class);
+        digests.forEach((algorithm, digest) -> result.put(algorithm, digest.digest()));
+        return new DigestSet(result);
+    }
+}
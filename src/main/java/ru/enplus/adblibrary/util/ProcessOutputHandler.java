@@ -1,32 +1,262 @@
 package ru.enplus.adblibrary.util;
 
+import lombok.Getter;
+import lombok.Setter;
+import ru.enplus.adblibrary.shell.CommandResult;
+import ru.enplus.adblibrary.transport.CommandTransport;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Utility class to handle the output of a process.
+ * Both stdout and stderr are drained concurrently, every process is reaped, and a process outliving its deadline is killed.
  */
 public class ProcessOutputHandler {
 
+    private static final Duration STREAM_DRAIN_GRACE = Duration.ofSeconds(5);
+    private static final Duration REAP_GRACE = Duration.ofSeconds(5);
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    private static final ExecutorService STREAM_READERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "adb-process-stream-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The deadline applied by {@link #getProcessOutput(Process)}; zero disables it.
+     */
+    @Getter
+    @Setter
+    private Duration defaultTimeout = CommandTransport.DEFAULT_TIMEOUT;
+
     /**
-     * Retrieves and processes the output from a given process.
+     * Retrieves and processes the output from a given process, applying the default deadline.
      *
      * @param process The process whose output needs to be captured.
      * @return An ArrayList of strings containing each line of the process's output.
-     * @throws IOException If an I/O error occurs while reading the process output stream.
+     * @throws IOException If an I/O error occurs while reading the process output stream, or the process timed out.
      */
     public ArrayList<String> getProcessOutput(Process process) throws IOException {
-        ArrayList<String> processOutput = new ArrayList<>();
-        InputStream inputStream = process.getInputStream();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            processOutput.add(line);
+        return getProcessResult(process, defaultTimeout).getOutput();
+    }
+
+    /**
+     * Collects stdout, stderr and the exit code of a process, killing it if it outlives the deadline.
+     * Interrupting the calling thread cancels the command: the process is killed and reaped as well.
+     *
+     * @param process the process whose output needs to be captured
+     * @param timeout the time the process is allowed to run; zero disables the deadline
+     * @return the output, stderr output and exit code of the process
+     * @throws InterruptedIOException if the process timed out or the calling thread was interrupted
+     * @throws IOException            if an I/O error occurs while reading the process streams
+     */
+    public CommandResult getProcessResult(Process process, Duration timeout) throws IOException {
+        Future<ArrayList<String>> output = STREAM_READERS.submit(() -> readLines(process.getInputStream()));
+        Future<ArrayList<String>> errorOutput = STREAM_READERS.submit(() -> readLines(process.getErrorStream()));
+        CommandWatchdog.Deadline deadline = CommandWatchdog.schedule(timeout, process::destroyForcibly);
+        try {
+            int exitCode = process.waitFor();
+            if (!deadline.finish()) {
+                closeStreams(process);
+                throw new InterruptedIOException("Process " + process.pid() + " timed out after " + timeout.toMillis() + " ms and was killed");
+            }
+            return new CommandResult(awaitStream(output, process), awaitStream(errorOutput, process), exitCode);
+        } catch (InterruptedException e) {
+            deadline.finish();
+            reap(process);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Process " + process.pid() + " was cancelled and killed");
+        }
+    }
+
+    /**
+     * Feeds the stdout of a process to the consumer line by line while the process is still running.
+     * If the consumer stops early, the process is killed and reaped; stderr is drained and discarded.
+     *
+     * @param process  the process whose output needs to be streamed
+     * @param consumer the callback receiving each line; returning false stops the stream
+     * @param timeout  the time the process is allowed to run; zero disables the deadline
+     * @return true if the whole output was consumed, false if the consumer stopped early
+     * @throws InterruptedIOException if the process timed out or the calling thread was interrupted
+     * @throws IOException            if an I/O error occurs while reading the process output
+     */
+    public boolean streamProcessOutput(Process process, LineConsumer consumer, Duration timeout) throws IOException {
+        return streamProcessBytes(process, line -> consumer.accept(line.toString()), timeout);
+    }
+
+    /**
+     * Feeds the stdout of a process to the consumer line by line as undecoded bytes while the process is still running.
+     * The output is read through a single reused buffer, so parsers that only decode the fields they need allocate
+     * nothing per line. If the consumer stops early, the process is killed and reaped; stderr is drained and discarded.
+     *
+     * @param process  the process whose output needs to be streamed
+     * @param consumer the callback receiving each line; returning false stops the stream
+     * @param timeout  the time the process is allowed to run; zero disables the deadline
+     * @return true if the whole output was consumed, false if the consumer stopped early
+     * @throws InterruptedIOException if the process timed out or the calling thread was interrupted
+     * @throws IOException            if an I/O error occurs while reading the process output
+     */
+    public boolean streamProcessBytes(Process process, ByteLineConsumer consumer, Duration timeout) throws IOException {
+        STREAM_READERS.submit(() -> readLines(process.getErrorStream()));
+        CommandWatchdog.Deadline deadline = CommandWatchdog.schedule(timeout, process::destroyForcibly);
+        boolean completed = false;
+        try (InputStream output = process.getInputStream()) {
+            ByteLineTokenizer tokenizer = new ByteLineTokenizer(consumer);
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            int read;
+            while ((read = output.read(buffer)) >= 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Process " + process.pid() + " was cancelled and killed");
+                }
+                if (!tokenizer.feed(buffer, 0, read)) {
+                    return false;
+                }
+            }
+            if (!tokenizer.finish()) {
+                return false;
+            }
+            process.waitFor();
+            completed = deadline.finish();
+            if (!completed) {
+                throw new InterruptedIOException("Process " + process.pid() + " timed out after " + timeout.toMillis() + " ms and was killed");
+            }
+            return true;
+        } catch (IOException e) {
+            if (deadline.isExpired()) {
+                throw new InterruptedIOException("Process " + process.pid() + " timed out after " + timeout.toMillis() + " ms and was killed");
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Process " + process.pid() + " was cancelled and killed");
+        } finally {
+            if (!completed) {
+                deadline.finish();
+                reap(process);
+            }
+        }
+    }
+
+    /**
+     * Copies the stdout of a process unmodified into the channel while the process is still running.
+     * stderr is collected and reported if the process fails.
+     *
+     * @param process the process whose output needs to be copied
+     * @param target  the channel receiving the output; it is not closed
+     * @param timeout the time the process is allowed to run; zero disables the deadline
+     * @return the amount of bytes copied
+     * @throws InterruptedIOException if the process timed out or the calling thread was interrupted
+     * @throws IOException            if the process exited with a non-zero code or its output could not be copied
+     */
+    public long copyProcessOutput(Process process, WritableByteChannel target, Duration timeout) throws IOException {
+        Future<ArrayList<String>> errorOutput = STREAM_READERS.submit(() -> readLines(process.getErrorStream()));
+        CommandWatchdog.Deadline deadline = CommandWatchdog.schedule(timeout, process::destroyForcibly);
+        boolean completed = false;
+        try (ReadableByteChannel output = Channels.newChannel(process.getInputStream())) {
+            ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+            long transferred = 0;
+            while (output.read(buffer) >= 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Process " + process.pid() + " was cancelled and killed");
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    transferred += target.write(buffer);
+                }
+                buffer.clear();
+            }
+            int exitCode = process.waitFor();
+            completed = deadline.finish();
+            if (!completed) {
+                throw new InterruptedIOException("Process " + process.pid() + " timed out after " + timeout.toMillis() + " ms and was killed");
+            }
+            if (exitCode != 0) {
+                throw new IOException("Process " + process.pid() + " exited with code " + exitCode + ": " + String.join(" ", awaitStream(errorOutput, process)));
+            }
+            return transferred;
+        } catch (IOException e) {
+            if (deadline.isExpired()) {
+                throw new InterruptedIOException("Process " + process.pid() + " timed out after " + timeout.toMillis() + " ms and was killed");
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Process " + process.pid() + " was cancelled and killed");
+        } finally {
+            if (!completed) {
+                deadline.finish();
+                reap(process);
+            }
+        }
+    }
+
+    /**
+     * Kills a process and waits a bounded time for it to be reaped.
+     *
+     * @param process the process to kill
+     */
+    public void reap(Process process) {
+        process.destroyForcibly();
+        closeStreams(process);
+        try {
+            process.waitFor(REAP_GRACE.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for a stream reader to see the end of its stream once the process has exited.
+     */
+    private ArrayList<String> awaitStream(Future<ArrayList<String>> stream, Process process) throws IOException, InterruptedException {
+        try {
+            return stream.get(STREAM_DRAIN_GRACE.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            closeStreams(process);
+            throw new InterruptedIOException("Output of process " + process.pid() + " is still held open by another process");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void closeStreams(Process process) {
+        try {
+            process.getInputStream().close();
+            process.getErrorStream().close();
+            process.getOutputStream().close();
+        } catch (IOException ignored) {
+            // the streams are being discarded anyway
+        }
+    }
+
+    private static ArrayList<String> readLines(InputStream inputStream) throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
         }
-        reader.close();
-        return processOutput;
+        return lines;
     }
 }